@@ -51,6 +51,7 @@
 import javax.swing.UIManager.LookAndFeelInfo;
 import javax.swing.filechooser.FileFilter;
 
+import org.infinity.datatype.Flag;
 import org.infinity.datatype.ProRef;
 import org.infinity.gui.BrowserMenuBar;
 import org.infinity.gui.ButtonPopupWindow;
@@ -67,16 +68,21 @@
 import org.infinity.icon.Icons;
 import org.infinity.resource.Closeable;
 import org.infinity.resource.EffectFactory;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Profile;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.StructSchema;
 import org.infinity.resource.Viewable;
 import org.infinity.resource.ViewableContainer;
 import org.infinity.resource.bcs.Signatures;
 import org.infinity.resource.key.FileResourceEntry;
+import org.infinity.resource.key.ResourceBufferCache;
+import org.infinity.resource.key.ResourceInfoCache;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.key.ResourceTreeModel;
 import org.infinity.resource.text.PlainTextResource;
+import org.infinity.search.ReferenceIndex;
 import org.infinity.search.SearchFrame;
 import org.infinity.updater.UpdateCheck;
 import org.infinity.updater.UpdateInfo;
@@ -87,6 +93,7 @@
 import org.infinity.util.IdsMapCache;
 import org.infinity.util.IniMapCache;
 import org.infinity.util.StringTable;
+import org.infinity.util.StringTableIndex;
 import org.infinity.util.Table2daCache;
 import org.infinity.util.io.DlcManager;
 import org.infinity.util.io.FileManager;
@@ -204,6 +211,14 @@ public static void advanceProgress(String note)
     }
   }
 
+  /** Updates the note of the progress monitor without advancing it. */
+  public static void updateProgressNote(String note)
+  {
+    if (getInstance() != null && getInstance().pmProgress != null) {
+      getInstance().pmProgress.setNote((note != null) ? note: "");
+    }
+  }
+
   public static void main(String args[])
   {
     Profile.Game forcedGame = null;
@@ -310,6 +325,8 @@ protected Void doInBackground() throws Exception
         advanceProgress("Initializing GUI...");
         BrowserMenuBar.getInstance().gameLoaded(Profile.Game.Unknown, null);
         CreMapCache.reset();
+        StringTableIndex.update();
+        ReferenceIndex.update();
 //        if (BrowserMenuBar.getInstance().getMonitorFileChanges()) {
 //          FileWatcher.getInstance().start();
 //        }
@@ -636,6 +653,8 @@ public void openGame(Path keyFile)
       EffectFactory.init();
       Profile.openGame(keyFile, BrowserMenuBar.getInstance().getBookmarkName(keyFile));
       CreMapCache.reset();
+      StringTableIndex.update();
+      ReferenceIndex.update();
       removeViewable();
       ResourceTreeModel treemodel = ResourceFactory.getResourceTreeModel();
       updateWindowTitle();
@@ -805,6 +824,8 @@ private static boolean reloadFactory(boolean refreshOnly)
       retVal = Profile.openGame(keyFile, BrowserMenuBar.getInstance().getBookmarkName(keyFile));
       if (retVal) {
         CreMapCache.reset();
+        StringTableIndex.update();
+        ReferenceIndex.update();
       }
     }
     return retVal;
@@ -821,11 +842,18 @@ private static void clearCache(boolean refreshOnly)
     IdsMapCache.clearCache();
     IniMapCache.clearCache();
     Table2daCache.clearCache();
+    Flag.clearCache();
+    ResourceBufferCache.clearCache();
+    ResourceInfoCache.clearCache();
+    ParsedResourceCache.clearCache();
     CreMapCache.clearCache();
     SearchFrame.clearCache();
     StringTable.resetAll();
+    StringTableIndex.clearCache();
+    ReferenceIndex.clearCache();
     ProRef.clearCache();
     Signatures.clearCache();
+    StructSchema.clearCache();
   }
 
   private static void showProgress(String msg, int max)
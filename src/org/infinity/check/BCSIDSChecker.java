@@ -147,7 +147,7 @@ public void run()
     try {
       ThreadPoolExecutor executor = Misc.createThreadPool();
       bcsFiles = ResourceFactory.getResources("BCS");
-      bcsFiles.addAll(ResourceFactory.getResources("BS"));
+      bcsFiles.addAll(ResourceFactory.getResourcesView("BS"));
       progressIndex = 0;
       progress = new ProgressMonitor(NearInfinity.getInstance(), "Checking...",
                                      String.format(FMT_PROGRESS, bcsFiles.size(), bcsFiles.size()),
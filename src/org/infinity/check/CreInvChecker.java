@@ -43,10 +43,13 @@
 import org.infinity.gui.WindowBlocker;
 import org.infinity.icon.Icons;
 import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Profile;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.StructSchema;
+import org.infinity.resource.StructView;
 import org.infinity.resource.cre.CreResource;
 import org.infinity.resource.cre.Item;
 import org.infinity.resource.key.ResourceEntry;
@@ -146,7 +149,7 @@ public void run()
     try {
       ThreadPoolExecutor executor = Misc.createThreadPool();
       creFiles = ResourceFactory.getResources("CRE");
-      creFiles.addAll(ResourceFactory.getResources("CHR"));
+      creFiles.addAll(ResourceFactory.getResourcesView("CHR"));
       progressIndex = 0;
       progress = new ProgressMonitor(NearInfinity.getInstance(), "Checking inventories...",
                                      String.format(FMT_PROGRESS, creFiles.size(), creFiles.size()),
@@ -288,6 +291,30 @@ else if (entry.getOffset() >= slots_offset.getValue() + cre.getOffset() &&
     }
   }
 
+  // Checks whether all items are assigned to item slots without parsing the whole resource.
+  // Returns false if unassigned items exist or the check could not be performed.
+  private boolean isValid(ResourceEntry entry)
+  {
+    try {
+      StructView view = StructView.get(entry);
+      if (view != null) {
+        int numItems = Math.max(0, view.getSectionCount(StructSchema.SECTION_ITEM));
+        boolean[] assigned = new boolean[numItems];
+        int numAssigned = 0;
+        for (int i = 0, count = view.getSectionCount(StructSchema.SECTION_ITEM_SLOT); i < count; i++) {
+          int slot = view.getValue(StructSchema.SECTION_ITEM_SLOT, i, StructSchema.FIELD_ITEM_SLOT);
+          if (slot >= 0 && slot < numItems && !assigned[slot]) {
+            assigned[slot] = true;
+            numAssigned++;
+          }
+        }
+        return (numAssigned == numItems);
+      }
+    } catch (Exception e) {
+    }
+    return false;
+  }
+
   private synchronized void advanceProgress(boolean finished)
   {
     if (progress != null) {
@@ -349,13 +376,10 @@ public Worker(ResourceEntry entry)
     @Override
     public void run()
     {
-      if (entry != null) {
-        try {
-          checkCreature(new CreResource(entry));
-        } catch (Exception e) {
-          synchronized (System.err) {
-            e.printStackTrace();
-          }
+      if (entry != null && !isValid(entry)) {
+        Resource resource = ParsedResourceCache.get(entry);
+        if (resource instanceof CreResource) {
+          checkCreature((CreResource)resource);
         }
       }
       advanceProgress(false);
@@ -28,9 +28,12 @@
 import org.infinity.icon.Icons;
 import org.infinity.resource.AbstractAbility;
 import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.StructSchema;
+import org.infinity.resource.StructView;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.spl.SplResource;
 import org.infinity.search.ReferenceHitFrame;
@@ -106,7 +109,7 @@ public void actionPerformed(ActionEvent event)
       files = new ArrayList<ResourceEntry>();
       for (int i = 0; i < FILETYPES.length; i++) {
         if (boxes[i].isSelected())
-          files.addAll(ResourceFactory.getResources(FILETYPES[i]));
+          files.addAll(ResourceFactory.getResourcesView(FILETYPES[i]));
       }
       if (files.size() > 0)
         new Thread(this).start();
@@ -203,6 +206,30 @@ private void search(ResourceEntry entry, AbstractStruct struct)
     }
   }
 
+  // Checks effect indices of abilities without parsing the whole resource.
+  // Returns false if indices are invalid or the check could not be performed.
+  private boolean isValid(ResourceEntry entry)
+  {
+    try {
+      StructView view = StructView.get(entry);
+      if (view != null) {
+        int expectedEffectsIndex = view.getValue(SplResource.SPL_NUM_GLOBAL_EFFECTS);
+        for (int i = 0, count = view.getSectionCount(StructSchema.SECTION_ABILITY); i < count; i++) {
+          int effectsIndex = view.getValue(StructSchema.SECTION_ABILITY, i,
+                                           AbstractAbility.ABILITY_FIRST_EFFECT_INDEX);
+          if (effectsIndex != expectedEffectsIndex) {
+            return false;
+          }
+          expectedEffectsIndex += view.getValue(StructSchema.SECTION_ABILITY, i,
+                                                AbstractAbility.ABILITY_NUM_EFFECTS);
+        }
+        return true;
+      }
+    } catch (Exception e) {
+    }
+    return false;
+  }
+
   private synchronized void advanceProgress(boolean finished)
   {
     if (progress != null) {
@@ -231,8 +258,9 @@ public Worker(ResourceEntry entry)
     @Override
     public void run()
     {
-      if (entry != null) {
-        Resource resource = ResourceFactory.getResource(entry);
+      if (entry != null && !isValid(entry)) {
+        // full resource is only needed to report mis-indexed abilities
+        Resource resource = ParsedResourceCache.get(entry);
         if (resource != null) {
           search(entry, (AbstractStruct)resource);
         }
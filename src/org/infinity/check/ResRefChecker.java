@@ -114,7 +114,7 @@ public void actionPerformed(ActionEvent event)
       files = new ArrayList<ResourceEntry>();
       for (int i = 0; i < FILETYPES.length; i++) {
         if (boxes[i].isSelected())
-          files.addAll(ResourceFactory.getResources(FILETYPES[i]));
+          files.addAll(ResourceFactory.getResourcesView(FILETYPES[i]));
       }
       if (files.size() > 0)
         new Thread(this).start();
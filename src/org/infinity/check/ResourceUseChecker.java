@@ -51,6 +51,7 @@
 import org.infinity.gui.WindowBlocker;
 import org.infinity.icon.Icons;
 import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Profile;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
@@ -214,7 +215,7 @@ public void run()
     try {
       files = new ArrayList<ResourceEntry>();
       for (final String fileType : FILETYPES) {
-        files.addAll(ResourceFactory.getResources(fileType));
+        files.addAll(ResourceFactory.getResourcesView(fileType));
       }
       ThreadPoolExecutor executor = Misc.createThreadPool();
       progressIndex = 0;
@@ -228,7 +229,7 @@ public void run()
       table = new SortableTable(Arrays.asList(new String[]{"File", "Name"}),
                                 colClasses, Arrays.asList(new Integer[]{200, 200}));
 
-      checkList.addAll(ResourceFactory.getResources(checkType));
+      checkList.addAll(ResourceFactory.getResourcesView(checkType));
       boolean isCancelled = false;
       Debugging.timerReset();
       for (int i = 0; i < files.size(); i++) {
@@ -528,7 +529,7 @@ public Worker(ResourceEntry entry)
     public void run()
     {
       if (entry != null) {
-        Resource resource = ResourceFactory.getResource(entry);
+        Resource resource = ParsedResourceCache.get(entry);
         if (resource instanceof DlgResource) {
           checkDialog((DlgResource)resource);
         } else if (resource instanceof BcsResource) {
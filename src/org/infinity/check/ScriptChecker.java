@@ -175,7 +175,7 @@ public void run()
     try {
       ThreadPoolExecutor executor = Misc.createThreadPool();
       scriptFiles = ResourceFactory.getResources("BCS");
-      scriptFiles.addAll(ResourceFactory.getResources("BS"));
+      scriptFiles.addAll(ResourceFactory.getResourcesView("BS"));
       progressIndex = 0;
       progress = new ProgressMonitor(NearInfinity.getInstance(), "Checking scripts...",
                                      String.format(FMT_PROGRESS, scriptFiles.size(), scriptFiles.size()),
@@ -43,6 +43,7 @@
 import org.infinity.gui.WindowBlocker;
 import org.infinity.icon.Icons;
 import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Profile;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
@@ -111,7 +112,7 @@ public void run()
       ThreadPoolExecutor executor = Misc.createThreadPool();
       files = new ArrayList<ResourceEntry>();
       for (final String fileType : FILETYPES)
-        files.addAll(ResourceFactory.getResources(fileType));
+        files.addAll(ResourceFactory.getResourcesView(fileType));
       String type = "WWWW";
       progressIndex = 0;
       progress = new ProgressMonitor(NearInfinity.getInstance(), "Searching...",
@@ -165,11 +166,22 @@ public void run()
         return;
       }
 
+      int numUnused = 0;
       for (int i = 0; i < strUsed.length; i++) {
         if (!strUsed[i]) {
-          table.addTableItem(new UnusedStringTableItem(new Integer(i)));
+          numUnused++;
         }
       }
+      int[] unused = new int[numUnused];
+      for (int i = 0, j = 0; i < strUsed.length; i++) {
+        if (!strUsed[i]) {
+          unused[j++] = i;
+        }
+      }
+      String[] strings = StringTable.getStringRefs(unused, StringTable.Format.NONE);
+      for (int i = 0; i < unused.length; i++) {
+        table.addTableItem(new UnusedStringTableItem(new Integer(unused[i]), strings[i]));
+      }
       if (table.getRowCount() == 0) {
         resultFrame.close();
         JOptionPane.showMessageDialog(NearInfinity.getInstance(), "No unused strings found",
@@ -396,10 +408,10 @@ private static final class UnusedStringTableItem implements TableItem
     private final Integer strRef;
     private final String string;
 
-    private UnusedStringTableItem(Integer strRef)
+    private UnusedStringTableItem(Integer strRef, String string)
     {
       this.strRef = strRef;
-      string = StringTable.getStringRef(strRef.intValue(), StringTable.Format.NONE);
+      this.string = string;
     }
 
     @Override
@@ -430,7 +442,7 @@ public Worker(ResourceEntry entry)
     public void run()
     {
       if (entry != null) {
-        Resource resource = ResourceFactory.getResource(entry);
+        Resource resource = ParsedResourceCache.get(entry);
         if (resource instanceof DlgResource) {
           checkDialog((DlgResource)resource);
         } else if (resource instanceof BcsResource) {
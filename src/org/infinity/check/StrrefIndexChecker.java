@@ -46,6 +46,7 @@
 import org.infinity.gui.ViewFrame;
 import org.infinity.icon.Icons;
 import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Profile;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
@@ -147,7 +148,7 @@ public void actionPerformed(ActionEvent event)
       setVisible(false);
       for (int i = 0; i < FILETYPES.length; i++) {
         if (boxes[i].isSelected()) {
-          files.addAll(ResourceFactory.getResources(FILETYPES[i]));
+          files.addAll(ResourceFactory.getResourcesView(FILETYPES[i]));
         }
       }
       if (files.size() > 0) {
@@ -552,7 +553,7 @@ public Worker(ResourceEntry entry)
     public void run()
     {
       if (entry != null) {
-        Resource resource = ResourceFactory.getResource(entry);
+        Resource resource = ParsedResourceCache.get(entry);
         if (resource instanceof DlgResource) {
           checkDialog((DlgResource)resource);
         } else if (resource instanceof BcsResource) {
@@ -54,6 +54,7 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.StructView;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.wed.Overlay;
 import org.infinity.resource.wed.Tilemap;
@@ -66,6 +67,8 @@ public final class StructChecker extends ChildFrame implements ActionListener, R
   private static final String FMT_PROGRESS = "Checking %ss...";
   private static final String[] FILETYPES = {"ARE", "CHR", "CHU", "CRE", "DLG", "EFF", "GAM", "ITM",
                                              "PRO", "SPL", "STO", "VEF", "VVC", "WED", "WMP"};
+  // Resource types whose schemas describe all sections of the structure
+  private static final String[] LAYOUT_TYPES = {"ITM", "SPL"};
   private static final HashMap<String, StructInfo> fileInfo = new HashMap<String, StructInfo>();
   static {
     fileInfo.put("ARE", new StructInfo("AREA", new String[]{"V1.0", "V9.1"}));
@@ -157,7 +160,7 @@ public void actionPerformed(ActionEvent event)
       setVisible(false);
       for (int i = 0; i < FILETYPES.length; i++) {
         if (boxes[i].isSelected())
-          files.addAll(ResourceFactory.getResources(FILETYPES[i]));
+          files.addAll(ResourceFactory.getResourcesView(FILETYPES[i]));
       }
       if (files.size() > 0)
         new Thread(this).start();
@@ -421,6 +424,24 @@ private void search(ResourceEntry entry, AbstractStruct struct)
     }
   }
 
+  // Checks whether header and sections cover the resource data completely without parsing the whole
+  // resource. Returns false if corruptions may exist or the check could not be performed.
+  private boolean isValid(ResourceEntry entry)
+  {
+    for (final String type: LAYOUT_TYPES) {
+      if (type.equalsIgnoreCase(entry.getExtension())) {
+        try {
+          // only supported signatures and versions are covered by schemas
+          StructView view = StructView.get(entry);
+          return (view != null && view.isContiguous());
+        } catch (Exception e) {
+        }
+        break;
+      }
+    }
+    return false;
+  }
+
   // Checking for WED-specific corruptions
   private List<Corruption> getWedCorruption(ResourceEntry entry, AbstractStruct struct)
   {
@@ -637,7 +658,7 @@ public Worker(ResourceEntry entry)
     @Override
     public void run()
     {
-      if (entry != null) {
+      if (entry != null && !isValid(entry)) {
         Resource resource = ResourceFactory.getResource(entry);
         if (resource != null) {
           search(entry, (AbstractStruct)resource);
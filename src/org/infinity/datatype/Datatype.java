@@ -9,6 +9,7 @@
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Vector;
 
@@ -22,13 +23,42 @@ public abstract class Datatype implements StructEntry
   protected static final Dimension DIM_BROAD = new Dimension(650, 100);
   protected static final Dimension DIM_MEDIUM = new Dimension(450, 100);
 
-  private final List<UpdateListener> listeners = new ArrayList<UpdateListener>();
+  private static final int MAX_SHARED_INDEX = 0x10000;
+  // Names of indexed fields, mapped by base name
+  private static final HashMap<String, String[]> indexedNames = new HashMap<>();
+
   private final int length;
 
+  private List<UpdateListener> listeners;   // allocated on first registration
   private String name;
   private int offset;
   private StructEntry parent;
 
+  /**
+   * Returns a field name consisting of the specified name and index, separated by a space.
+   * Names are shared by all fields of the same name and index, which reduces the memory footprint
+   * of large lists of indexed fields.
+   */
+  public static synchronized String getIndexedName(String name, int index)
+  {
+    if (index < 0 || index >= MAX_SHARED_INDEX) {
+      return name + " " + index;
+    }
+    String[] names = indexedNames.get(name);
+    if (names == null || index >= names.length) {
+      String[] newNames = new String[Math.min(MAX_SHARED_INDEX, Math.max(index + 1, 64) * 2)];
+      if (names != null) {
+        System.arraycopy(names, 0, newNames, 0, names.length);
+      }
+      names = newNames;
+      indexedNames.put(name, names);
+    }
+    if (names[index] == null) {
+      names[index] = name + " " + index;
+    }
+    return names[index];
+  }
+
   protected Datatype(int offset, int length, String name)
   {
     this(null, offset, length, name);
@@ -143,6 +173,9 @@ public ByteBuffer getDataBuffer()
   public void addUpdateListener(UpdateListener l)
   {
     if (l != null) {
+      if (listeners == null) {
+        listeners = new ArrayList<UpdateListener>();
+      }
       listeners.add(l);
     }
   }
@@ -153,6 +186,9 @@ public void addUpdateListener(UpdateListener l)
    */
   public UpdateListener[] getUpdateListeners()
   {
+    if (listeners == null) {
+      return new UpdateListener[0];
+    }
     UpdateListener[] ar = new UpdateListener[listeners.size()];
     for (int i = 0; i < listeners.size(); i++) {
       ar[i] = listeners.get(i);
@@ -167,7 +203,7 @@ public UpdateListener[] getUpdateListeners()
    */
   public void removeUpdateListener(UpdateListener l)
   {
-    if (l != null) {
+    if (l != null && listeners != null) {
       listeners.remove(l);
     }
   }
@@ -183,8 +219,10 @@ protected void fireValueUpdated(UpdateEvent event)
         event.getStructure().getViewer().storeCurrentSelection();
       }
       boolean retVal = false;
-      for (final UpdateListener l: listeners) {
-        retVal |= l.valueUpdated(event);
+      if (listeners != null) {
+        for (final UpdateListener l: listeners) {
+          retVal |= l.valueUpdated(event);
+        }
       }
       if (retVal) {
         event.getStructure().fireTableDataChanged();
@@ -13,6 +13,8 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.JButton;
@@ -29,6 +31,11 @@ public class Flag extends Datatype implements Editable, IsNumeric, ActionListene
 {
   public static final String DESC_NONE = "No flags set";
 
+  // Max. number of cached flag descriptions
+  private static final int MAX_DESCRIPTIONS = 4096;
+  // Parsed flag descriptions, shared by all fields with identical description tables
+  private static final HashMap<Descriptions, Descriptions> descriptions = new HashMap<>();
+
   protected String nodesc;
   protected String[] table, toolTable;
   private ActionListener container;
@@ -36,6 +43,12 @@ public class Flag extends Datatype implements Editable, IsNumeric, ActionListene
   private JCheckBox[] checkBoxes;
   private long value;
 
+  /** Discards all cached flag descriptions. Call this after opening a new game. */
+  public static synchronized void clearCache()
+  {
+    descriptions.clear();
+  }
+
   Flag(ByteBuffer buffer, int offset, int length, String name)
   {
     this(null, buffer, offset, length, name);
@@ -294,13 +307,87 @@ protected void setEmptyDesc(String desc)
   // Sets labels and optional tooltips for each flag
   protected void setFlagDescriptions(int size, String[] stable, int startOfs, char separator)
   {
-    table = new String[8*size];
-    toolTable = new String[8*size];
     if (stable != null) {
       for (int i = startOfs; i < stable.length; i++) {
         if (stable[i] == null) {
           stable[i] = "";
         }
+      }
+    }
+    Descriptions desc = getDescriptions(new Descriptions(size, stable, startOfs, separator));
+    table = desc.table;
+    toolTable = desc.toolTable;
+  }
+
+  // Returns the shared instance of the specified flag descriptions
+  private static synchronized Descriptions getDescriptions(Descriptions key)
+  {
+    Descriptions desc = descriptions.get(key);
+    if (desc == null) {
+      if (descriptions.size() >= MAX_DESCRIPTIONS) {
+        descriptions.clear();
+      }
+      desc = key.init();
+      descriptions.put(desc, desc);
+    }
+    return desc;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  // Labels and tool tips of the individual flags, parsed from a description table
+  private static final class Descriptions
+  {
+    private final int size;
+    private final String[] stable;
+    private final int startOfs;
+    private final char separator;
+    private final int hashCode;
+    private String[] table, toolTable;
+
+    public Descriptions(int size, String[] stable, int startOfs, char separator)
+    {
+      this.size = size;
+      this.stable = stable;
+      this.startOfs = startOfs;
+      this.separator = separator;
+      this.hashCode = ((Arrays.hashCode(stable) * 31 + size) * 31 + startOfs) * 31 + separator;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Descriptions)) {
+        return false;
+      }
+      Descriptions d = (Descriptions)o;
+      return size == d.size && startOfs == d.startOfs && separator == d.separator &&
+             Arrays.equals(stable, d.stable);
+    }
+
+    // Parses the description table and returns a copy which is independent of the source table
+    public Descriptions init()
+    {
+      Descriptions desc = new Descriptions(size, (stable != null) ? stable.clone() : null,
+                                           startOfs, separator);
+      desc.table = new String[8*size];
+      desc.toolTable = new String[8*size];
+      desc.parse();
+      return desc;
+    }
+
+    private void parse()
+    {
+      if (stable == null) {
+        return;
+      }
+      for (int i = startOfs; i < stable.length; i++) {
         String[] s = null;
         try {
           s = stable[i].split(String.valueOf(separator));
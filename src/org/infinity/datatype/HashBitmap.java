@@ -32,7 +32,7 @@
 
 public class HashBitmap extends Datatype implements Editable, IsNumeric
 {
-  private final LongIntegerHashMap<? extends Object> idsmap;
+  private LongIntegerHashMap<? extends Object> idsmap;
   private final List<JButton> buttonList;
   private final JButton bUpdate;
   private final boolean sortByName;
@@ -346,6 +346,12 @@ protected LongIntegerHashMap<? extends Object> getHashBitmap()
     return idsmap;
   }
 
+  /** Replaces the list of available values, e.g. by a modifiable copy of a shared list. */
+  protected void setHashBitmap(LongIntegerHashMap<? extends Object> idsmap)
+  {
+    this.idsmap = normalizeHashMap(idsmap);
+  }
+
   private static LongIntegerHashMap<? extends Object> normalizeHashMap(LongIntegerHashMap<? extends Object> map)
   {
     if (map != null && !map.isEmpty() && map.get(map.keys()[0]) instanceof String) {
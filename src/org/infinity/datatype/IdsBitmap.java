@@ -7,7 +7,6 @@
 import java.nio.ByteBuffer;
 
 import org.infinity.resource.StructEntry;
-import org.infinity.util.IdsMap;
 import org.infinity.util.IdsMapCache;
 import org.infinity.util.IdsMapEntry;
 import org.infinity.util.LongIntegerHashMap;
@@ -32,7 +31,7 @@ public IdsBitmap(ByteBuffer buffer, int offset, int length, String name, String
   public IdsBitmap(StructEntry parent, ByteBuffer buffer, int offset, int length, String name, String resource,
                    int idsStart)
   {
-    super(parent, buffer, offset, length, name, createResourceList(resource, idsStart), true);
+    super(parent, buffer, offset, length, name, IdsMapCache.getTable(resource, idsStart), true);
   }
 
   public int getIdsMapEntryCount()
@@ -60,35 +59,14 @@ public void addIdsMapEntry(IdsMapEntry entry)
       @SuppressWarnings("unchecked")
       LongIntegerHashMap<IdsMapEntry>map = (LongIntegerHashMap<IdsMapEntry>)getHashBitmap();
       if (!map.containsKey(Long.valueOf(entry.getID()))) {
-        map.put(Long.valueOf(entry.getID()), entry);
-      }
-    }
-  }
-
-  private static LongIntegerHashMap<IdsMapEntry> createResourceList(String resource, int idsStart)
-  {
-    LongIntegerHashMap<IdsMapEntry> retVal = null;
-    IdsMap idsMap = IdsMapCache.get(resource);
-    if (idsMap != null) {
-      retVal = new LongIntegerHashMap<IdsMapEntry>();
-      for (final IdsMapEntry e: idsMap.getAllValues()) {
-        long id = e.getID();
-        if (id >= idsStart) {
-          id -= idsStart;
-          retVal.put(Long.valueOf(id), new IdsMapEntry(id, e.getSymbol()));
-        }
-      }
-
-      // Add a fitting symbol for "0" to IDS list if needed
-      if (!retVal.containsKey(0L)) {
-        if (resource.equalsIgnoreCase("EA.IDS")) {
-          retVal.put(0L, new IdsMapEntry(0L, "ANYONE"));
-        } else {
-          retVal.put(0L, new IdsMapEntry(0L, "NONE"));
+        if (map.isReadOnly()) {
+          // shared IDS table: continue with a private copy
+          map = new LongIntegerHashMap<IdsMapEntry>(map);
+          setHashBitmap(map);
         }
+        map.put(Long.valueOf(entry.getID()), entry);
       }
     }
-    return retVal;
   }
 }
 
@@ -128,7 +128,7 @@ public JComponent edit(final ActionListener container)
     List<List<ResourceEntry>> resourceList = new ArrayList<List<ResourceEntry>>(type.length);
     int entrynum = 0;
     for (int i = 0; i < type.length; i++) {
-      resourceList.add(ResourceFactory.getResources(type[i]));
+      resourceList.add(ResourceFactory.getResourcesView(type[i]));
       entrynum += resourceList.get(i).size();
     }
 
@@ -176,6 +176,11 @@ public void run()
     try {
       biffwriter.write();
       progress.setProgress(3, true);
+      if (biffwriter.isReplacementPending()) {
+        JOptionPane.showMessageDialog(editframe, bifentry + " is still in use and will be replaced " +
+                                      "the next time the game is opened.",
+                                      "Information", JOptionPane.INFORMATION_MESSAGE);
+      }
     } catch (Exception e) {
       progress.setProgress(3, false);
       JOptionPane.showMessageDialog(editframe, "Error while saving " + bifentry,
@@ -39,7 +39,7 @@ public IdsBrowser()
     super("IDS Browser");
     setIconImage(Icons.getIcon(Icons.ICON_HISTORY_16).getImage());
 
-    List<ResourceEntry> resList = ResourceFactory.getResources("IDS");
+    List<ResourceEntry> resList = ResourceFactory.getResourcesView("IDS");
     idsfiles = new JComboBox<>(resList.toArray(new ResourceEntry[resList.size()]));
     idsfiles.setEditable(false);
     idsfiles.setSelectedIndex(0);
@@ -283,7 +283,7 @@ private void updateResources()
         ext = data.split(";");
       }
       for (int j = 0; j < ext.length; j++) {
-        list.addAll(ResourceFactory.getResources(ext[j]));
+        list.addAll(ResourceFactory.getResourcesView(ext[j]));
       }
       Collections.sort(list);
       resources.add(list);
@@ -54,13 +54,15 @@
 import org.infinity.datatype.ResourceRef;
 import org.infinity.icon.Icons;
 import org.infinity.resource.Profile;
+import org.infinity.search.IndexedSearchClient;
 import org.infinity.search.SearchClient;
 import org.infinity.search.SearchMaster;
 import org.infinity.search.StringReferenceSearcher;
 import org.infinity.util.StringTable;
+import org.infinity.util.StringTableIndex;
 import org.infinity.util.io.FileManager;
 
-public class StringEditor extends ChildFrame implements SearchClient
+public class StringEditor extends ChildFrame implements IndexedSearchClient
 {
   public static final String TLK_FLAGS  = "Flags";
   public static final String TLK_SOUND  = "Associated sound";
@@ -159,7 +161,14 @@ protected Void doInBackground() throws Exception
     return retVal;
   }
 
-//--------------------- Begin Interface SearchClient ---------------------
+//--------------------- Begin Interface IndexedSearchClient ---------------------
+
+  @Override
+  public int[] getCandidates(String term, boolean regex)
+  {
+    StringTableIndex index = StringTableIndex.get(StringTable.Type.MALE);
+    return (index != null) ? index.find(term, regex) : null;
+  }
 
   @Override
   public String getText(int index)
@@ -176,7 +185,7 @@ public void hitFound(int index)
     showEntry(index);
   }
 
-//--------------------- End Interface SearchClient ---------------------
+//--------------------- End Interface IndexedSearchClient ---------------------
 
   private static String getWindowTitle(StringTable.Type dlgType)
   {
@@ -15,11 +15,12 @@
 import org.infinity.NearInfinity;
 import org.infinity.datatype.StringRef;
 import org.infinity.icon.Icons;
-import org.infinity.search.SearchClient;
+import org.infinity.search.IndexedSearchClient;
 import org.infinity.search.SearchMaster;
 import org.infinity.util.StringTable;
+import org.infinity.util.StringTableIndex;
 
-final class StringLookup extends ChildFrame implements SearchClient
+final class StringLookup extends ChildFrame implements IndexedSearchClient
 {
   private final StringRef strref;
 
@@ -54,17 +55,18 @@ final class StringLookup extends ChildFrame implements SearchClient
     setSize(540, 350);
     Center.center(this, NearInfinity.getInstance().getBounds());
 
-    // pre-caching string table to significantly reduce search time
-    new Thread(new Runnable() {
-      @Override
-      public void run()
-      {
-        StringTable.ensureFullyLoaded();
-      }
-    }).start();
+    // making sure the search index is available
+    StringTableIndex.update();
   }
 
-// --------------------- Begin Interface SearchClient ---------------------
+// --------------------- Begin Interface IndexedSearchClient ---------------------
+
+  @Override
+  public int[] getCandidates(String term, boolean regex)
+  {
+    StringTableIndex index = StringTableIndex.get(StringTable.Type.MALE);
+    return (index != null) ? index.find(term, regex) : null;
+  }
 
   @Override
   public String getText(int index)
@@ -81,6 +83,6 @@ public void hitFound(int index)
     strref.setValue(index);
   }
 
-// --------------------- End Interface SearchClient ---------------------
+// --------------------- End Interface IndexedSearchClient ---------------------
 }
 
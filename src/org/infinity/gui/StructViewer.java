@@ -419,8 +419,9 @@ public void actionPerformed(ActionEvent event)
           wnd = NearInfinity.getInstance();
         }
         WindowBlocker.blockWindow(wnd, true);
+        int[] rows = table.getSelectedRows();
+        struct.beginBatch();
         try {
-          int[] rows = table.getSelectedRows();
           for (int i = rows.length - 1; i >= 0; i--) {
             Object entry = table.getModel().getValueAt(rows[i], 1);
             if (entry instanceof AddRemovable) {
@@ -434,6 +435,7 @@ public void actionPerformed(ActionEvent event)
             }
           }
         } finally {
+          struct.commitBatch();
           WindowBlocker.blockWindow(wnd, false);
         }
       } else if (buttonPanel.getControlByType(ButtonPanel.Control.SAVE) == event.getSource()) {
@@ -455,7 +457,7 @@ public void actionPerformed(ActionEvent event)
       }
     } else if (event.getActionCommand().equals(UPDATE_VALUE)) {
       if (editable.updateValue(struct)) {
-        struct.setStructChanged(true);
+        struct.setFieldChanged(editable);
         struct.fireTableRowsUpdated(struct.getIndexOf(editable), struct.getIndexOf(editable));
         if (editable instanceof EffectType) {
           // don't lose current selection
@@ -111,6 +111,7 @@
 import org.infinity.util.IniMap;
 import org.infinity.util.IniMapEntry;
 import org.infinity.util.IniMapSection;
+import org.infinity.util.IntegerIntHashMap;
 import org.infinity.util.Misc;
 import org.infinity.util.Pair;
 import org.infinity.util.SimpleListModel;
@@ -4007,10 +4008,10 @@ private void updateFinalBamDecoder(int bamVersion) throws Exception
         }
         int[] hclPalette = new int[palette.length];
         ColorConvert.toHclPalette(palette, hclPalette);
-        HashMap<Integer, Byte> colorCache = new HashMap<Integer, Byte>(4096);
+        IntegerIntHashMap colorCache = new IntegerIntHashMap(4096);
         for (int i = 0; i < palette.length; i++) {
           if (i != transIndex) {
-            colorCache.put(Integer.valueOf(palette[i]), Byte.valueOf((byte)i));
+            colorCache.put(palette[i], i);
           }
         }
 
@@ -4031,16 +4032,16 @@ private void updateFinalBamDecoder(int bamVersion) throws Exception
               dstBuf[ofs] = (byte)transIndex;
             } else {
               c &= 0x00ffffff;
-              Byte colIdx = colorCache.get(Integer.valueOf(c));
-              if (colIdx != null) {
-                int ci = colIdx.intValue() & 0xff;
+              int colIdx = colorCache.get(c, -1);
+              if (colIdx >= 0) {
+                int ci = colIdx;
                 if (ci >= transIndex) ci++;
-                dstBuf[ofs] = colIdx.byteValue();//(byte)ci;
+                dstBuf[ofs] = (byte)colIdx;//(byte)ci;
               } else {
                 byte color = (byte)ColorConvert.nearestColor(srcBuf[ofs], hclPalette);
                 //int ci = (color < transIndex) ? color : (color + 1);
                 dstBuf[ofs] = color;//(byte)ci;
-                colorCache.put(Integer.valueOf(c), Byte.valueOf(color));
+                colorCache.put(c, color & 0xff);
               }
             }
           }
@@ -4106,10 +4107,10 @@ private void updateFinalBamFrame(int bamVersion, int frameIdx)
         }
         int[] hclPalette = new int[palette.length];
         ColorConvert.toHclPalette(palette, hclPalette);
-        HashMap<Integer, Byte> colorCache = new HashMap<Integer, Byte>(4096);
+        IntegerIntHashMap colorCache = new IntegerIntHashMap(4096);
         for (int i = 0; i < palette.length; i++) {
           if (i != transIndex) {
-            colorCache.put(Integer.valueOf(palette[i]), Byte.valueOf((byte)i));
+            colorCache.put(palette[i], i);
           }
         }
         IndexColorModel cm = new IndexColorModel(8, 256, palette, 0, false, transIndex, DataBuffer.TYPE_BYTE);
@@ -4127,16 +4128,16 @@ private void updateFinalBamFrame(int bamVersion, int frameIdx)
             dstBuf[ofs] = (byte)transIndex;
           } else {
             c &= 0x00ffffff;
-            Byte colIdx = colorCache.get(Integer.valueOf(c));
-            if (colIdx != null) {
-              int ci = colIdx.intValue() & 0xff;
+            int colIdx = colorCache.get(c, -1);
+            if (colIdx >= 0) {
+              int ci = colIdx;
               if (ci >= transIndex) ci++;
-              dstBuf[ofs] = colIdx.byteValue();//(byte)ci;
+              dstBuf[ofs] = (byte)colIdx;//(byte)ci;
             } else {
               byte color = (byte)ColorConvert.nearestColor(srcBuf[ofs], hclPalette);
               //int ci = (color < transIndex) ? color : (color + 1);
               dstBuf[ofs] = color;//(byte)ci;
-              colorCache.put(Integer.valueOf(c), Byte.valueOf(color));
+              colorCache.put(c, color & 0xff);
             }
           }
         }
@@ -59,7 +59,7 @@
 import org.infinity.resource.graphics.DxtEncoder;
 import org.infinity.util.BinPack2D;
 import org.infinity.util.DynamicArray;
-import org.infinity.util.IntegerHashMap;
+import org.infinity.util.IntegerIntHashMap;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
 
@@ -157,7 +157,7 @@ public static boolean convertV1(Component parent, BufferedImage img, String mosF
       byte[] tilePalette = new byte[1024];
       byte[] tileData = new byte[64*64];
       int curPalOfs = palOfs, curTableOfs = tableOfs, curDataOfs = dataOfs;
-      IntegerHashMap<Byte> colorCache = new IntegerHashMap<Byte>(1536);   // caching RGBColor -> index
+      IntegerIntHashMap colorCache = new IntegerIntHashMap(1536);   // caching RGBColor -> index
       for (int tileIdx = 0; tileIdx < tileList.size(); tileIdx++) {
         colorCache.clear();
         if (showProgress) {
@@ -185,20 +185,20 @@ public static boolean convertV1(Component parent, BufferedImage img, String mosF
             tilePalette[(i << 2) + 1] = (byte)((palette[i - 1] >>> 8) & 0xff);
             tilePalette[(i << 2) + 2] = (byte)((palette[i - 1] >>> 16) & 0xff);
             tilePalette[(i << 2) + 3] = 0;
-            colorCache.put(palette[i - 1], (byte)(i - 1));
+            colorCache.put(palette[i - 1], i - 1);
           }
           // filling pixel data
           for (int i = 0; i < pixels.length; i++) {
             if ((pixels[i] & 0xff000000) == 0) {
               tileData[i] = 0;
             } else {
-              Byte palIndex = colorCache.get(pixels[i]);
-              if (palIndex != null) {
+              int palIndex = colorCache.get(pixels[i], -1);
+              if (palIndex >= 0) {
                 tileData[i] = (byte)(palIndex + 1);
               } else {
                 byte color = (byte)ColorConvert.nearestColor(pixels[i], hclPalette);
                 tileData[i] = (byte)(color + 1);
-                colorCache.put(pixels[i], color);
+                colorCache.put(pixels[i], color & 0xff);
               }
             }
           }
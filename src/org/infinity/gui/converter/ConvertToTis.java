@@ -60,7 +60,7 @@
 import org.infinity.resource.graphics.DxtEncoder;
 import org.infinity.util.BinPack2D;
 import org.infinity.util.DynamicArray;
-import org.infinity.util.IntegerHashMap;
+import org.infinity.util.IntegerIntHashMap;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
 
@@ -151,7 +151,7 @@ public static boolean convertV1(Component parent, BufferedImage img, String tisF
         progress.setMillisToPopup(0);
       }
 
-      IntegerHashMap<Byte> colorCache = new IntegerHashMap<Byte>(2048);   // caching RGBColor -> index
+      IntegerIntHashMap colorCache = new IntegerIntHashMap(2048);   // caching RGBColor -> index
       for (int tileIdx = 0; tileIdx < tileCount; tileIdx++) {
         if (showProgress) {
           if (progress.isCanceled()) {
@@ -189,7 +189,7 @@ public static boolean convertV1(Component parent, BufferedImage img, String tisF
             tilePalette[(i << 2) + 1] = (byte)((palette[i - 1] >>> 8) & 0xff);
             tilePalette[(i << 2) + 2] = (byte)((palette[i - 1] >>> 16) & 0xff);
             tilePalette[(i << 2) + 3] = 0;
-            colorCache.put(palette[i - 1], (byte)(i - 1));
+            colorCache.put(palette[i - 1], i - 1);
           }
 
           // processing pixel data
@@ -197,13 +197,13 @@ public static boolean convertV1(Component parent, BufferedImage img, String tisF
             if ((srcBlock[i] & 0xff000000) == 0) {
               tileData[i] = 0;
             } else {
-              Byte palIndex = colorCache.get(srcBlock[i]);
-              if (palIndex != null) {
+              int palIndex = colorCache.get(srcBlock[i], -1);
+              if (palIndex >= 0) {
                 tileData[i] = (byte)(palIndex + 1);
               } else {
                 byte color = (byte)ColorConvert.nearestColor(srcBlock[i], hclPalette);
                 tileData[i] = (byte)(color + 1);
-                colorCache.put(srcBlock[i], color);
+                colorCache.put(srcBlock[i], color & 0xff);
               }
             }
           }
@@ -79,6 +79,8 @@
   public static final String ICON_ZOOM_16             = "Zoom16.gif";
 
   private static final Map<URL, ImageIcon> ICONMAP = new HashMap<URL, ImageIcon>(100);
+  // Resolved graphics file locations, indexed by package name and filename
+  private static final Map<String, URL> URLMAP = new HashMap<String, URL>(100);
 
   /**
    * Returns an ImageIcon object of the specified graphics filename.
@@ -97,7 +99,7 @@ public static ImageIcon getIcon(String name)
    * @param fileName The graphics filename.
    * @return The ImageIcon object, or {@code null} on error.
    */
-  public static ImageIcon getIcon(Class<?> c, String fileName)
+  public static synchronized ImageIcon getIcon(Class<?> c, String fileName)
   {
     URL url = getValidURL(c, fileName);
     if (url != null) {
@@ -137,11 +139,17 @@ public static Image getImage(Class<?> c, String fileName)
     return null;
   }
 
-  // Returns a URL instance that points to the specified filename
+  // Returns a URL instance that points to the specified filename. Lookups are cached, since searching
+  // the class path is expensive and icons are requested whenever a field with buttons is created.
   private static URL getValidURL(Class<?> c, String fileName)
   {
     URL retVal = null;
     if (fileName != null && !fileName.isEmpty()) {
+      String key = ((c != null) ? c.getPackage().getName() : "") + ':' + fileName;
+      if (URLMAP.containsKey(key)) {
+        return URLMAP.get(key);
+      }
+
       if (c == null) {
         retVal = ClassLoader.getSystemResource(fileName);
       }
@@ -153,6 +161,7 @@ private static URL getValidURL(Class<?> c, String fileName)
         String separator = (fileName.charAt(0) == '/') ? "" : "/";
         retVal = ClassLoader.getSystemResource(basePath + separator + fileName);
       }
+      URLMAP.put(key, retVal);
     }
     return retVal;
   }
@@ -8,10 +8,15 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -47,7 +52,7 @@ public abstract class AbstractStruct extends AbstractTableModel implements Struc
   public static final String COMMON_UNUSED        = "Unused";
   public static final String COMMON_UNUSED_BYTES  = "Unused bytes?";
 
-  private List<StructEntry> list;
+  private FieldList list;
   private AbstractStruct superStruct;
   private Map<Class<? extends StructEntry>, SectionCount> countmap;
   private Map<Class<? extends StructEntry>, SectionOffset> offsetmap;
@@ -57,6 +62,13 @@ public abstract class AbstractStruct extends AbstractTableModel implements Struc
   private boolean structChanged;
   private int startoffset, endoffset, extraoffset;
   private Collection<Component> viewerComponents = null;
+  private List<SectionReader> deferredReaders;  // section readers pending in lazy mode
+  private ByteBuffer deferredBuffer;            // data source of pending section readers
+  private FieldIndex fieldIndex;                // lookup tables for getAttribute(), built on demand
+  private int batchDepth;                       // nesting level of batch edits started on this structure
+  private List<AbstractStruct> batchModified;   // structures with pending table events
+  private StructEntry batchSelection;           // selected viewer entry at the start of a batch edit
+  private List<StructEntry> changedFields;      // modified fields of a top-level structure, null if untracked
 
   private static void adjustEntryOffsets(AbstractStruct superStruct, AbstractStruct modifiedStruct,
                                          AddRemovable datatype, int amount)
@@ -71,6 +83,7 @@ private static void adjustEntryOffsets(AbstractStruct superStruct, AbstractStruc
       if (structEntry instanceof AbstractStruct)
         adjustEntryOffsets((AbstractStruct)structEntry, modifiedStruct, datatype, amount);
     }
+    superStruct.invalidateFieldIndex();
   }
 
   private static void adjustSectionOffsets(AbstractStruct superStruct, AddRemovable datatype, int amount)
@@ -99,16 +112,32 @@ protected AbstractStruct()
   }
 
   protected AbstractStruct(ResourceEntry entry) throws Exception
+  {
+    this(entry, false);
+  }
+
+  /**
+   * Creates a structure from the specified resource.
+   * @param entry The resource entry.
+   * @param lazy If {@code true}, sections registered by {@link #readSection(ByteBuffer, SectionReader)}
+   *             are not parsed before fields of the structure are accessed for the first time.
+   *             Fields decoded directly by {@link #read(ByteBuffer, int)} are always available.
+   */
+  protected AbstractStruct(ResourceEntry entry, boolean lazy) throws Exception
   {
     this.entry = entry;
-    list = new ArrayList<StructEntry>();
+    list = new FieldList(10);
     name = entry.toString();
     ByteBuffer bb = entry.getResourceBuffer();
+    if (lazy) {
+      deferredReaders = new ArrayList<SectionReader>();
+    }
     endoffset = read(bb, 0);
-    if (this instanceof HasAddRemovable && !list.isEmpty()) {// Is this enough?
-      Collections.sort(list); // This way we can writeField out in the order in list - sorted by offset
-      fixHoles((ByteBuffer)bb.position(0));
-      initAddStructMaps();
+    if (deferredReaders != null && !deferredReaders.isEmpty()) {
+      deferredBuffer = bb;
+    } else {
+      deferredReaders = null;
+      finishRead(bb);
     }
   }
 
@@ -117,7 +146,7 @@ protected AbstractStruct(AbstractStruct superStruct, String name, int startoffse
     this.superStruct = superStruct;
     this.name = name;
     this.startoffset = startoffset;
-    list = new ArrayList<StructEntry>(listSize);
+    list = new FieldList(listSize);
   }
 
   protected AbstractStruct(AbstractStruct superStruct, String name, ByteBuffer buffer, int startoffset)
@@ -189,9 +218,12 @@ public int compareTo(StructEntry o)
   @Override
   public Object clone() throws CloneNotSupportedException
   {
+    ensureLoaded();
     AbstractStruct newstruct = (AbstractStruct)super.clone();
     newstruct.superStruct = null;
-    newstruct.list = new ArrayList<StructEntry>(list.size());
+    newstruct.list = new FieldList(list.size());
+    newstruct.fieldIndex = null;
+    newstruct.changedFields = null;
     newstruct.viewer = null;
     for (int i = 0; i < list.size(); i++)
       newstruct.list.add((StructEntry)list.get(i).clone());
@@ -210,6 +242,8 @@ public void copyNameAndOffset(StructEntry structEntry)
   {
     name = structEntry.getName();
     setOffset(structEntry.getOffset());
+    if (superStruct != null)
+      superStruct.invalidateFieldIndex();
   }
 
   @Override
@@ -233,6 +267,7 @@ public StructEntry getParent()
   @Override
   public int getSize()
   {
+    ensureLoaded();
     return endoffset - startoffset;
   }
 
@@ -273,6 +308,8 @@ public void setOffset(int newoffset)
     int delta = getSize();
     startoffset = newoffset;
     endoffset = newoffset + delta;
+    if (superStruct != null)
+      superStruct.invalidateFieldIndex();
   }
 
   @Override
@@ -334,6 +371,11 @@ public Object getValueAt(int row, int column)
   public JComponent makeViewer(ViewableContainer container)
   {
     if (viewer == null) {
+      ensureLoaded();
+      AbstractStruct root = getRootStruct();
+      if (!root.structChanged && root.changedFields == null) {
+        root.resetChangedFields();
+      }
       viewer = new StructViewer(this, viewerComponents);
       viewerInitialized(viewer);
     }
@@ -387,7 +429,7 @@ public void setValueAt(Object value, int row, int column)
         JOptionPane.showMessageDialog(viewer, "Error updating value", "Error", JOptionPane.ERROR_MESSAGE);
       else {
         fireTableCellUpdated(row, column);
-        setStructChanged(true);
+        setFieldChanged((InlineEditable)o);
       }
     }
   }
@@ -405,11 +447,12 @@ public String toString()
 
   public int addDatatype(AddRemovable addedEntry)
   {
+    ensureLoaded();
     int index = 0;
     // Find place to add
-    if (viewer != null && viewer.getSelectedEntry() != null &&
-        viewer.getSelectedEntry().getClass() == addedEntry.getClass()) {
-      index = viewer.getSelectedRow();
+    StructEntry selected = getSelectedEntry();
+    if (selected != null && selected.getClass() == addedEntry.getClass()) {
+      index = getIndexOf(selected);
     } else if (offsetmap.containsKey(addedEntry.getClass())) {
       int offset = offsetmap.get(addedEntry.getClass()).getValue() + extraoffset;
       int fieldCount = getFieldCount();
@@ -439,6 +482,7 @@ public int addDatatype(AddRemovable addedEntry)
 
   public int addDatatype(AddRemovable addedEntry, int index)
   {
+    ensureLoaded();
     // Increase count
     if (countmap.containsKey(addedEntry.getClass()))
       countmap.get(addedEntry.getClass()).incValue(1);
@@ -484,14 +528,56 @@ else if (index == 0 && getFieldCount() > 0) {
     adjustSectionOffsets(topStruct, addedEntry, addedEntry.getSize());
 
     addField(addedEntry, index);
+    invalidateFieldIndex();
     datatypeAdded(addedEntry);
     if (superStruct != null)
       superStruct.datatypeAddedInChild(this, addedEntry);
     setStructChanged(true);
-    fireTableRowsInserted(index, index);
+    if (!deferTableEvent()) {
+      fireTableRowsInserted(index, index);
+    }
     return index;
   }
 
+  /**
+   * Starts a batch edit. Table model events of {@link #addDatatype(AddRemovable)},
+   * {@link #removeDatatype(AddRemovable, boolean)} and {@link #setListEntry(int, StructEntry)}
+   * are collected for this structure and all substructures until the matching call of
+   * {@link #commitBatch()}. Batch edits can be nested.
+   */
+  public void beginBatch()
+  {
+    if (batchDepth++ == 0) {
+      batchModified = new ArrayList<AbstractStruct>();
+      batchSelection = (viewer != null) ? viewer.getSelectedEntry() : null;
+    }
+  }
+
+  /**
+   * Completes a batch edit started by {@link #beginBatch()}. Each modified structure
+   * notifies its listeners once about the changed table data.
+   */
+  public void commitBatch()
+  {
+    if (batchDepth <= 0) {
+      throw new IllegalStateException("No batch edit in progress");
+    }
+    if (--batchDepth == 0) {
+      List<AbstractStruct> modified = batchModified;
+      batchModified = null;
+      batchSelection = null;
+      for (final AbstractStruct struct: modified) {
+        struct.fireTableDataChanged();
+      }
+    }
+  }
+
+  /** Returns whether a batch edit is in progress for this structure or any parent structure. */
+  public boolean isBatchActive()
+  {
+    return getBatchOwner() != null;
+  }
+
   /**
    * Adds the specified entry as a new field to the current structure.
    * @param entry The new field to add.
@@ -511,6 +597,7 @@ public StructEntry addField(StructEntry entry)
   public StructEntry addField(StructEntry entry, int index)
   {
     if (entry != null) {
+      ensureLoaded();
       if (index < 0) index = 0; else if (index > list.size()) index = list.size();
       entry.setParent(this);
       list.add(index, entry);
@@ -522,6 +609,7 @@ public StructEntry addField(StructEntry entry, int index)
   public void addToList(int startIndex, List<StructEntry> toBeAdded)
   {
     if (toBeAdded != null) {
+      ensureLoaded();
       startIndex = Math.max(-1, Math.min(list.size() - 1, startIndex));
       for (int i = 0; i < toBeAdded.size(); i++) {
         addField(toBeAdded.get(i), startIndex+i+1);
@@ -533,6 +621,7 @@ public void addToList(int startIndex, List<StructEntry> toBeAdded)
   public void addToList(StructEntry startFromEntry, List<StructEntry> toBeAdded)
   {
     if (toBeAdded != null) {
+      ensureLoaded();
       int startIndex = list.indexOf(startFromEntry) + 1;
       for (int i = 0; i < toBeAdded.size(); i++) {
         addField(toBeAdded.get(i), startIndex+i);
@@ -545,6 +634,7 @@ public void addToList(StructEntry startFromEntry, List<StructEntry> toBeAdded)
    */
   public void clearFields()
   {
+    ensureLoaded();
     Iterator<StructEntry> iter = list.iterator();
     while (iter.hasNext()) {
       StructEntry e = iter.next();
@@ -627,8 +717,46 @@ private StructEntry getAttribute(AbstractStruct parent, int offset, Class<? exte
     if (parent == null) parent = this;
     if (type == null) type = StructEntry.class;
 
-    for (int i = 0, count = parent.getFieldCount(); i < count; i++) {
-      StructEntry structEntry = parent.getField(i);
+    if (parent.deferredBuffer != null) {
+      // fields decoded in advance may already satisfy the request
+      StructEntry structEntry = parent.findAttribute(offset, type, recursive);
+      if (structEntry != null) {
+        return structEntry;
+      }
+      parent.ensureLoaded();
+    }
+    return parent.findAttribute(offset, type, recursive);
+  }
+
+  // Searches the available fields of this structure for the specified offset
+  private StructEntry findAttribute(int offset, Class<? extends StructEntry> type, boolean recursive)
+  {
+    int[] candidates = getFieldIndex().getCandidates(list, offset);
+    if (candidates == null) {
+      // fields have been moved
+      invalidateFieldIndex();
+      candidates = getFieldIndex().getCandidates(list, offset);
+    }
+    if (candidates.length == 0) {
+      // fields may have been moved without notice
+      return getAttribute(list, offset, type, recursive);
+    }
+    for (final int pos: candidates) {
+      StructEntry structEntry = list.get(pos);
+      if (recursive && structEntry instanceof AbstractStruct) {
+        return getAttribute((AbstractStruct)structEntry, offset, type, recursive);
+      } else if (type.isInstance(structEntry)) {
+        return structEntry;
+      }
+    }
+    return null;
+  }
+
+  private StructEntry getAttribute(List<StructEntry> fields, int offset, Class<? extends StructEntry> type,
+                                   boolean recursive)
+  {
+    for (int i = 0, count = fields.size(); i < count; i++) {
+      StructEntry structEntry = fields.get(i);
       if (offset >= structEntry.getOffset() &&
           offset < structEntry.getOffset() + structEntry.getSize()) {
         if (recursive && structEntry instanceof AbstractStruct) {
@@ -646,23 +774,50 @@ private StructEntry getAttribute(AbstractStruct parent, String name, boolean rec
     if (name != null && !name.isEmpty()) {
       if (parent == null) parent = this;
 
-      for (int i = 0, count = parent.getFieldCount(); i < count; i++) {
-        StructEntry structEntry = parent.getField(i);
-        if (structEntry.getName().equals(name)) {
+      if (parent.deferredBuffer != null) {
+        // fields decoded in advance may already satisfy the request
+        StructEntry structEntry = parent.findAttribute(name, recursive);
+        if (structEntry != null) {
           return structEntry;
-        } else if (recursive && structEntry instanceof AbstractStruct) {
-          structEntry = getAttribute((AbstractStruct)structEntry, name, recursive);
-          if (structEntry != null) {
-            return structEntry;
-          }
         }
+        parent.ensureLoaded();
       }
+      return parent.findAttribute(name, recursive);
     }
     return null;
   }
 
+  // Searches the available fields of this structure for the specified name
+  private StructEntry findAttribute(String name, boolean recursive)
+  {
+    FieldIndex index = getFieldIndex();
+    int pos = index.getPosition(name);
+    if (pos >= 0 && !name.equals(list.get(pos).getName())) {
+      // field has been renamed
+      invalidateFieldIndex();
+      index = getFieldIndex();
+      pos = index.getPosition(name);
+    }
+
+    if (recursive) {
+      // a nested structure preceding the matching field takes precedence
+      int endPos = (pos >= 0) ? pos : list.size();
+      for (final int structPos: index.getStructPositions()) {
+        if (structPos >= endPos) {
+          break;
+        }
+        StructEntry structEntry = getAttribute((AbstractStruct)list.get(structPos), name, recursive);
+        if (structEntry != null) {
+          return structEntry;
+        }
+      }
+    }
+    return (pos >= 0) ? list.get(pos) : null;
+  }
+
   public int getEndOffset()
   {
+    ensureLoaded();
     return endoffset;
   }
 
@@ -673,12 +828,14 @@ public int getExtraOffset()
 
   public List<StructEntry> getList()
   {
+    ensureLoaded();
     return list;
   }
 
   /** Returns the number of fields in the current structure. */
   public int getFieldCount()
   {
+    ensureLoaded();
     return list.size();
   }
 
@@ -689,6 +846,7 @@ public int getFieldCount()
    */
   public StructEntry getField(int index)
   {
+    ensureLoaded();
     try {
       return list.get(index);
     } catch (IndexOutOfBoundsException e) {
@@ -706,6 +864,7 @@ public List<StructEntry> getFlatList()
 
   public int getIndexOf(StructEntry structEntry)
   {
+    ensureLoaded();
     return list.indexOf(structEntry);
   }
 
@@ -721,6 +880,7 @@ public AbstractStruct getSuperStruct()
 
   public AbstractStruct getSuperStruct(StructEntry structEntry)
   {
+    ensureLoaded();
     for (int i = 0; i < list.size(); i++) {
       Object o = list.get(i);
       if (o == structEntry)
@@ -761,6 +921,7 @@ public StructViewer getViewer()
 
   public void realignStructOffsets()
   {
+    ensureLoaded();
     int offset = startoffset;
     for (int i = 0; i < list.size(); i++) {
       StructEntry structEntry = list.get(i);
@@ -769,10 +930,12 @@ public void realignStructOffsets()
       if (structEntry instanceof AbstractStruct)
         ((AbstractStruct)structEntry).realignStructOffsets();
     }
+    invalidateFieldIndex();
   }
 
   public List<AddRemovable> removeAllRemoveables()
   {
+    ensureLoaded();
     List<AddRemovable> removed = new ArrayList<AddRemovable>();
     for (int i = 0; i < list.size(); i++) {
       StructEntry o = list.get(i);
@@ -787,6 +950,7 @@ public List<AddRemovable> removeAllRemoveables()
 
   public void removeDatatype(AddRemovable removedEntry, boolean removeRecurse)
   {
+    ensureLoaded();
     if (removeRecurse && removedEntry instanceof HasAddRemovable) { // Recusivly removeTableLine substructures first
       AbstractStruct removedStruct = (AbstractStruct)removedEntry;
       for (int i = 0; i < removedStruct.list.size(); i++) {
@@ -799,6 +963,7 @@ public void removeDatatype(AddRemovable removedEntry, boolean removeRecurse)
     }
     int index = list.indexOf(removedEntry);
     list.remove(index);
+    invalidateFieldIndex();
     // decrease count
     if (countmap != null && countmap.containsKey(removedEntry.getClass()))
       countmap.get(removedEntry.getClass()).incValue(-1);
@@ -818,7 +983,9 @@ public void removeDatatype(AddRemovable removedEntry, boolean removeRecurse)
     datatypeRemoved(removedEntry);
     if (superStruct != null)
       superStruct.datatypeRemovedInChild(this, removedEntry);
-    fireTableRowsDeleted(index, index);
+    if (!deferTableEvent()) {
+      fireTableRowsDeleted(index, index);
+    }
     setStructChanged(true);
   }
 
@@ -830,6 +997,7 @@ public void removeDatatype(AddRemovable removedEntry, boolean removeRecurse)
   public boolean removeField(StructEntry entry)
   {
     if (entry != null) {
+      ensureLoaded();
       if (list.remove(entry)) {
         entry.setParent(null);
         return true;
@@ -845,6 +1013,7 @@ public boolean removeField(StructEntry entry)
    */
   public StructEntry removeField(int index)
   {
+    ensureLoaded();
     if (index >= 0 && index < list.size()) {
       StructEntry e = list.remove(index);
       if (e != null) {
@@ -857,6 +1026,7 @@ public StructEntry removeField(int index)
 
   public ByteBuffer removeFromList(StructEntry startFromEntry, int numBytes) throws IOException
   {
+    ensureLoaded();
     int startindex = list.indexOf(startFromEntry) + 1;
     int endindex = startindex;
     int len = 0;
@@ -901,8 +1071,12 @@ public boolean replaceEntry(StructEntry newEntry)
 
   public void setListEntry(int index, StructEntry structEntry)
   {
+    ensureLoaded();
     list.set(index, structEntry);
-    fireTableRowsUpdated(index, index);
+    invalidateFieldIndex();
+    if (!deferTableEvent()) {
+      fireTableRowsUpdated(index, index);
+    }
   }
 
   public boolean hasStructChanged()
@@ -912,13 +1086,94 @@ public boolean hasStructChanged()
 
   public void setStructChanged(boolean changed)
   {
-    structChanged = changed;
-    if (superStruct != null)
-      superStruct.setStructChanged(changed);
+    AbstractStruct root = getRootStruct();
+    if (changed) {
+      // unspecified modifications require the whole resource to be written
+      root.changedFields = null;
+    } else if (root.changedFields != null || root.viewer != null) {
+      // structure has just been saved or discarded
+      root.resetChangedFields();
+    }
+    updateStructChanged(changed);
+  }
+
+  /**
+   * Marks the structure as changed because of a modified field value. If the layout of the
+   * structure is not modified otherwise, saving the resource writes only the data of modified fields.
+   * @param field The modified field of this structure.
+   */
+  public void setFieldChanged(StructEntry field)
+  {
+    AbstractStruct root = getRootStruct();
+    if (field != null && root.changedFields != null) {
+      root.changedFields.add(field);
+      updateStructChanged(true);
+    } else {
+      setStructChanged(true);
+    }
+  }
+
+  /**
+   * Writes the data of modified fields to the specified file without rewriting the remaining data.
+   * This is only possible for top-level structures which support it and whose layout has not been
+   * changed since the file has been written or loaded. Nothing is written if {@code false} is returned.
+   * @param file The file containing the unmodified resource data.
+   * @return {@code true} if all modifications have been written to the file,
+   *         {@code false} if the whole resource has to be written instead.
+   */
+  public boolean writeChangedFields(Path file) throws IOException
+  {
+    if (superStruct != null || changedFields == null || changedFields.isEmpty() ||
+        !isPartialWriteSupported() || isLayoutChanged() ||
+        !Files.isRegularFile(file) || Files.size(file) != getSize()) {
+      return false;
+    }
+
+    // merging adjacent and overlapping fields into contiguous regions
+    List<StructEntry> fields = new ArrayList<StructEntry>(changedFields);
+    Collections.sort(fields);
+    List<ByteBuffer> regions = new ArrayList<ByteBuffer>();
+    List<Integer> regionOffsets = new ArrayList<Integer>();
+    for (int i = 0; i < fields.size(); ) {
+      int start = fields.get(i).getOffset();
+      int end = start + fields.get(i).getSize();
+      int last = i + 1;
+      while (last < fields.size() && fields.get(last).getOffset() <= end) {
+        end = Math.max(end, fields.get(last).getOffset() + fields.get(last).getSize());
+        last++;
+      }
+      if (start < 0 || end > getSize()) {
+        return false;
+      }
+      ByteBuffer bb = ByteBuffer.allocate(end - start);
+      for (int j = i; j < last; j++) {
+        StructEntry field = fields.get(j);
+        bb.position(field.getOffset() - start);
+        try (ByteBufferOutputStream bbos = new ByteBufferOutputStream(bb)) {
+          field.write(bbos);
+        }
+      }
+      bb.position(0);
+      regions.add(bb);
+      regionOffsets.add(start);
+      i = last;
+    }
+
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      for (int i = 0; i < regions.size(); i++) {
+        ByteBuffer bb = regions.get(i);
+        long position = regionOffsets.get(i);
+        while (bb.hasRemaining()) {
+          position += ch.write(bb, position);
+        }
+      }
+    }
+    return true;
   }
 
   public String toMultiLineString()
   {
+    ensureLoaded();
     StringBuffer sb = new StringBuffer(30 * list.size());
     for (int i = 0; i < list.size(); i++) {
       StructEntry datatype = list.get(i);
@@ -936,17 +1191,20 @@ public void setExtraComponents(Collection<Component> list)
   /** Returns the SectionOffset entry linked to the specified StructEntry object if available. */
   public SectionOffset getSectionOffset(Class<? extends StructEntry> cls)
   {
+    ensureLoaded();
     return offsetmap.get(cls);
   }
 
   /** Returns the SectionCount entry linked to the specified StructEntry object if available. */
   public SectionCount getSectionCount(Class<? extends StructEntry> cls)
   {
+    ensureLoaded();
     return countmap.get(cls);
   }
 
   private void addFlatList(List<StructEntry> flatList)
   {
+    ensureLoaded();
     for (int i = 0; i < list.size(); i++) {
       StructEntry o = list.get(i);
       if (o instanceof AbstractStruct)
@@ -1058,6 +1316,58 @@ private void fixHoles(ByteBuffer buffer)
     }
   }
 
+  /** Returns whether sections of this structure have not been parsed yet. */
+  public boolean isLoadPending()
+  {
+    return (deferredBuffer != null);
+  }
+
+  /**
+   * Parses the specified section of the structure. Reading is postponed until fields are accessed
+   * for the first time if the structure has been created in lazy mode.
+   * Section readers are invoked in the order of registration.
+   * @param buffer The resource data.
+   * @param reader Adds the fields of the section to the structure.
+   * @return End offset of the parsed section, or {@code 0} if parsing has been postponed.
+   */
+  protected int readSection(ByteBuffer buffer, SectionReader reader) throws Exception
+  {
+    if (deferredReaders != null) {
+      deferredReaders.add(reader);
+      return 0;
+    }
+    return reader.read(buffer);
+  }
+
+  // Parses all pending sections of a structure in lazy mode
+  private void ensureLoaded()
+  {
+    if (deferredBuffer != null) {
+      ByteBuffer bb = deferredBuffer;
+      List<SectionReader> readers = deferredReaders;
+      deferredBuffer = null;
+      deferredReaders = null;
+      try {
+        for (final SectionReader reader: readers) {
+          endoffset = Math.max(endoffset, reader.read(bb));
+        }
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+      finishRead(bb);
+    }
+  }
+
+  // Sorts fields by offset and marks unused data regions of a top-level resource structure
+  private void finishRead(ByteBuffer buffer)
+  {
+    if (this instanceof HasAddRemovable && !list.isEmpty()) {// Is this enough?
+      Collections.sort(list); // This way we can writeField out in the order in list - sorted by offset
+      fixHoles((ByteBuffer)buffer.position(0));
+      initAddStructMaps();
+    }
+  }
+
   // To be overriden by subclasses
   protected int getAddedPosition()
   {
@@ -1110,16 +1420,308 @@ protected void writeFlatList(OutputStream os) throws IOException
   /** Assign a new list of fields. Clears current list if argument is null. */
   protected void setList(List<StructEntry> newList)
   {
-    if (newList != null) {
-      list = newList;
+    ensureLoaded();
+    if (newList instanceof FieldList) {
+      list = (FieldList)newList;
+    } else if (newList != null) {
+      list = new FieldList(newList);
     } else {
       list.clear();
     }
   }
 
+  /**
+   * Returns whether modified fields can be written back to the resource file individually.
+   * Only structures which write all fields at their respective offsets and don't generate
+   * additional data when saved should return {@code true}.
+   */
+  protected boolean isPartialWriteSupported()
+  {
+    return false;
+  }
+
   protected void setSuperStruct(AbstractStruct struct)
   {
     this.superStruct = struct;
   }
-}
 
+  // Returns the topmost superstructure, or this structure if it has no superstructure
+  private AbstractStruct getRootStruct()
+  {
+    AbstractStruct root = this;
+    while (root.superStruct != null) {
+      root = root.superStruct;
+    }
+    return root;
+  }
+
+  private void updateStructChanged(boolean changed)
+  {
+    structChanged = changed;
+    if (superStruct != null)
+      superStruct.updateStructChanged(changed);
+  }
+
+  // Starts tracking of modified fields from the current state of the structure
+  private void resetChangedFields()
+  {
+    changedFields = new ArrayList<StructEntry>();
+    resetLayout();
+  }
+
+  // Marks the current field lists of this structure and all substructures as unchanged
+  private void resetLayout()
+  {
+    ensureLoaded();
+    list.resetLayout();
+    for (int i = 0, size = list.size(); i < size; i++) {
+      if (list.get(i) instanceof AbstractStruct) {
+        ((AbstractStruct)list.get(i)).resetLayout();
+      }
+    }
+  }
+
+  // Returns whether fields have been added, removed or replaced in this structure or any substructure
+  private boolean isLayoutChanged()
+  {
+    ensureLoaded();
+    if (list.isLayoutChanged()) {
+      return true;
+    }
+    for (int i = 0, size = list.size(); i < size; i++) {
+      if (list.get(i) instanceof AbstractStruct && ((AbstractStruct)list.get(i)).isLayoutChanged()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Returns the outermost structure with an active batch edit
+  private AbstractStruct getBatchOwner()
+  {
+    AbstractStruct owner = null;
+    for (AbstractStruct struct = this; struct != null; struct = struct.superStruct) {
+      if (struct.batchDepth > 0) {
+        owner = struct;
+      }
+    }
+    return owner;
+  }
+
+  // Registers a pending table event if a batch edit is in progress
+  private boolean deferTableEvent()
+  {
+    AbstractStruct owner = getBatchOwner();
+    if (owner != null) {
+      boolean found = false;
+      for (final AbstractStruct struct: owner.batchModified) {
+        if (struct == this) {
+          found = true;
+          break;
+        }
+      }
+      if (!found) {
+        owner.batchModified.add(this);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  // Returns the selected entry of the viewer. Table selection is not updated during batch edits,
+  // so the entry selected at the start of the batch edit is used instead.
+  private StructEntry getSelectedEntry()
+  {
+    if (batchDepth > 0) {
+      return (batchSelection != null && list.contains(batchSelection)) ? batchSelection : null;
+    } else if (viewer != null) {
+      return viewer.getSelectedEntry();
+    }
+    return null;
+  }
+
+  // Returns the lookup tables for the current list of fields
+  private FieldIndex getFieldIndex()
+  {
+    FieldIndex index = fieldIndex;  // structures may be shared by concurrent readers
+    if (index == null || index.getStamp() != list.getStamp()) {
+      index = new FieldIndex(list);
+      fieldIndex = index;
+    }
+    return index;
+  }
+
+  // Discards the lookup tables, e.g. after field offsets have been changed
+  private void invalidateFieldIndex()
+  {
+    fieldIndex = null;
+  }
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Parses a section of a structure on demand. */
+  protected interface SectionReader
+  {
+    /**
+     * Adds the fields of the section to the structure.
+     * @param buffer The resource data.
+     * @return End offset of the section.
+     */
+    int read(ByteBuffer buffer) throws Exception;
+  }
+
+  /** A list of fields which keeps track of modifications. */
+  private static final class FieldList extends ArrayList<StructEntry>
+  {
+    private static final long serialVersionUID = 1L;
+
+    private int updateCount;
+    private int sortCount;
+    private int layoutStamp = -1;   // layout state when the list has been marked as unchanged
+
+    public FieldList(int initialCapacity)
+    {
+      super(initialCapacity);
+    }
+
+    public FieldList(Collection<? extends StructEntry> c)
+    {
+      super(c);
+    }
+
+    @Override
+    public StructEntry set(int index, StructEntry element)
+    {
+      updateCount++;
+      return super.set(index, element);
+    }
+
+    @Override
+    public void sort(Comparator<? super StructEntry> c)
+    {
+      super.sort(c);
+      sortCount++;
+    }
+
+    /** Returns a value which changes whenever fields are added, removed, replaced or reordered. */
+    public int getStamp()
+    {
+      return modCount + updateCount;
+    }
+
+    /** Returns whether fields have been added, removed or replaced since the last call of {@link #resetLayout()}. */
+    public boolean isLayoutChanged()
+    {
+      return getLayoutState() != layoutStamp;
+    }
+
+    public void resetLayout()
+    {
+      layoutStamp = getLayoutState();
+    }
+
+    // Sorting does not affect the layout of a structure
+    private int getLayoutState()
+    {
+      return modCount - sortCount + updateCount;
+    }
+  }
+
+  /**
+   * Lookup tables for field names and offsets. Names are mapped to the first matching list position.
+   * Offsets are sorted to allow binary search.
+   */
+  private static final class FieldIndex
+  {
+    private final int stamp;
+    private final HashMap<String, Integer> names;
+    private final int[] structPositions;  // list positions of nested structures in ascending order
+    private final long[] offsets;         // field offset (upper 32 bits) and list position (lower 32 bits)
+    private final int[] maxEnds;          // running maximum of field end offsets, in order of "offsets"
+
+    public FieldIndex(FieldList list)
+    {
+      stamp = list.getStamp();
+      int size = list.size();
+      names = new HashMap<String, Integer>(size * 2);
+      offsets = new long[size];
+      int[] structs = new int[size];
+      int numStructs = 0;
+      for (int i = 0; i < size; i++) {
+        StructEntry e = list.get(i);
+        if (e.getName() != null && !names.containsKey(e.getName())) {
+          names.put(e.getName(), Integer.valueOf(i));
+        }
+        if (e instanceof AbstractStruct) {
+          structs[numStructs++] = i;
+        }
+        offsets[i] = ((long)e.getOffset() << 32) | i;
+      }
+      structPositions = Arrays.copyOf(structs, numStructs);
+
+      Arrays.sort(offsets);
+      maxEnds = new int[size];
+      int maxEnd = Integer.MIN_VALUE;
+      for (int i = 0; i < size; i++) {
+        StructEntry e = list.get((int)offsets[i]);
+        maxEnd = Math.max(maxEnd, e.getOffset() + e.getSize());
+        maxEnds[i] = maxEnd;
+      }
+    }
+
+    public int getStamp()
+    {
+      return stamp;
+    }
+
+    /** Returns the list position of the first field with the specified name, or -1 if not available. */
+    public int getPosition(String name)
+    {
+      Integer pos = names.get(name);
+      return (pos != null) ? pos.intValue() : -1;
+    }
+
+    public int[] getStructPositions()
+    {
+      return structPositions;
+    }
+
+    /**
+     * Returns the list positions of all fields covering the specified offset in ascending order.
+     * Returns {@code null} if fields have been moved since the index has been created.
+     */
+    public int[] getCandidates(List<StructEntry> list, int offset)
+    {
+      // first entry starting after the offset
+      int lo = 0, hi = offsets.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if ((int)(offsets[mid] >> 32) <= offset) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+
+      int[] result = new int[4];
+      int count = 0;
+      for (int i = lo - 1; i >= 0 && maxEnds[i] > offset; i--) {
+        int pos = (int)offsets[i];
+        StructEntry e = list.get(pos);
+        if (e.getOffset() != (int)(offsets[i] >> 32)) {
+          return null;
+        }
+        if (offset < e.getOffset() + e.getSize()) {
+          if (count == result.length) {
+            result = Arrays.copyOf(result, count * 2);
+          }
+          result[count++] = pos;
+        }
+      }
+      result = Arrays.copyOf(result, count);
+      Arrays.sort(result);
+      return result;
+    }
+  }
+}
@@ -7,6 +7,7 @@
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 
 import org.infinity.datatype.Bitmap;
@@ -68,6 +69,14 @@
   private String[] s_poricon;
   private String[] s_effname;
 
+  // Game-specific settings which are used frequently when effect structures are created
+  private final Profile.Engine engine;
+  private final boolean isEE;
+  private final boolean isTobEx;
+  private final String[] saveType;
+  // Cached resource extension lists, indexed by resource type string
+  private final HashMap<String, String[]> resourceTypes = new HashMap<String, String[]>();
+
   /**
    * Used in conjunction with {@code getEffectStructure} to address specific fields within
    * an effect structure.
@@ -863,8 +872,13 @@ private static boolean updateOpcode342(AbstractStruct struct) throws Exception
 
   public EffectFactory()
   {
+    engine = Profile.getEngine();
+    isEE = Profile.isEnhancedEdition();
+    isTobEx = Boolean.TRUE.equals(Profile.getProperty(Profile.Key.IS_GAME_TOBEX));
+    saveType = getSaveType();
+
     s_effname = null;
-    switch (Profile.getEngine()) {
+    switch (engine) {
       case BG1:
         s_effname = new String[]{
             // 0..9
@@ -1702,15 +1716,15 @@ private String makeEffectParams(Datatype parent, ByteBuffer buffer, int offset,
 
     // Processing game specific effects
     if (s.size() == initSize && restype == null) {
-      if (Profile.getEngine() == Profile.Engine.BG1) {
+      if (engine == Profile.Engine.BG1) {
         restype = makeEffectParamsBG1(parent, buffer, offset, s, effectType, isV1);
-      } else if (Profile.getEngine() == Profile.Engine.PST) {
+      } else if (engine == Profile.Engine.PST) {
         restype = makeEffectParamsPST(parent, buffer, offset, s, effectType, isV1);
-      } else if (Profile.getEngine() == Profile.Engine.IWD) {
+      } else if (engine == Profile.Engine.IWD) {
         restype = makeEffectParamsIWD(parent, buffer, offset, s, effectType, isV1);
-      } else if (Profile.getEngine() == Profile.Engine.BG2 || Profile.isEnhancedEdition()) {
+      } else if (engine == Profile.Engine.BG2 || isEE) {
         restype = makeEffectParamsBG2(parent, buffer, offset, s, effectType, isV1);
-      } else if (Profile.getEngine() == Profile.Engine.IWD2) {
+      } else if (engine == Profile.Engine.IWD2) {
         restype = makeEffectParamsIWD2(parent, buffer, offset, s, effectType, isV1);
       }
     }
@@ -1724,11 +1738,21 @@ private String makeEffectParams(Datatype parent, ByteBuffer buffer, int offset,
     return restype;
   }
 
+  // Returns the list of resource extensions for the specified resource type, shared by all resource fields
+  private synchronized String[] getResourceTypes(String restype)
+  {
+    String[] retVal = resourceTypes.get(restype);
+    if (retVal == null) {
+      retVal = restype.split(":");
+      resourceTypes.put(restype, retVal);
+    }
+    return retVal;
+  }
+
   private String makeEffectParamsGeneric(Datatype parent, ByteBuffer buffer, int offset,
                                          List<StructEntry> s, int effectType, boolean isV1)
   {
     String restype = null;
-    boolean isTobEx = Profile.getProperty(Profile.Key.IS_GAME_TOBEX);
 
     switch (effectType) {
       case 0: // AC bonus
@@ -4948,7 +4972,7 @@ private int makeEffectResource(Datatype parent, ByteBuffer buffer, int offset, L
                                  int effectType, String resourceType, int param1, int param2)
   {
     if (resourceType == null) {
-      if ((Profile.getEngine() == Profile.Engine.BG2 || Profile.isEnhancedEdition()) &&
+      if ((engine == Profile.Engine.BG2 || isEE) &&
           effectType == 319 && param2 == 11) {    // Restrict item (BGEE)
         s.add(new TextString(buffer, offset, 8, "Script name"));
       } else {
@@ -4957,7 +4981,7 @@ private int makeEffectResource(Datatype parent, ByteBuffer buffer, int offset, L
     } else if (resourceType.equalsIgnoreCase(EFFECT_STRING)) {
       s.add(new TextString(buffer, offset, 8, EFFECT_STRING));
     } else {
-      s.add(new ResourceRef(buffer, offset, EFFECT_RESOURCE, resourceType.split(":")));
+      s.add(new ResourceRef(buffer, offset, EFFECT_RESOURCE, getResourceTypes(resourceType)));
     }
     offset += 8;
 
@@ -4966,11 +4990,11 @@ private int makeEffectResource(Datatype parent, ByteBuffer buffer, int offset, L
 
   private int makeEffectCommon2(ByteBuffer buffer, int offset, List<StructEntry> s, boolean isV1)
   {
-    String[] save_type = getSaveType();
+    String[] save_type = saveType;
     if (isV1) {
       s.add(new DecNumber(buffer, offset, 4, EFFECT_DICE_COUNT_MAX_LEVEL));
       s.add(new DecNumber(buffer, offset + 4, 4, EFFECT_DICE_SIZE_MIN_LEVEL));
-      if (Profile.getEngine() == Profile.Engine.IWD2) {
+      if (engine == Profile.Engine.IWD2) {
         s.add(new Flag(buffer, offset + 8, 4, EFFECT_SAVE_TYPE, save_type));
         s.add(new DecNumber(buffer, offset + 12, 4, EFFECT_SAVE_PENALTY));
       }
@@ -4979,7 +5003,7 @@ private int makeEffectCommon2(ByteBuffer buffer, int offset, List<StructEntry> s
         s.add(new DecNumber(buffer, offset + 12, 4, EFFECT_SAVE_BONUS));
       }
     } else {
-      if (Profile.getEngine() == Profile.Engine.IWD2) {
+      if (engine == Profile.Engine.IWD2) {
         s.add(new Flag(buffer, offset, 4, EFFECT_SAVE_TYPE, save_type));
         s.add(new DecNumber(buffer, offset + 4, 4, EFFECT_SAVE_PENALTY));
         s.add(new DecNumber(buffer, offset + 8, 4, EFFECT_PARAMETER));
@@ -5000,7 +5024,7 @@ private int makeEffectCommon2(ByteBuffer buffer, int offset, List<StructEntry> s
   private int makeEffectParam25(Datatype parent, ByteBuffer buffer, int offset, List<StructEntry> s,
                                 int effectType, String resourceType, int param1, int param2)
   {
-    if (Profile.isEnhancedEdition()) {
+    if (isEE) {
       switch (effectType) {
         case 12:    // Damage
           s.add(new Flag(buffer, offset, 4, EFFECT_SPECIAL,
@@ -5121,9 +5145,9 @@ private int makeEffectParam25(Datatype parent, ByteBuffer buffer, int offset, Li
           s.add(new DecNumber(buffer, offset, 4, EFFECT_SPECIAL));
           break;
       }
-    } else if (Profile.getEngine() == Profile.Engine.BG2) {
+    } else if (engine == Profile.Engine.BG2) {
       s.add(new DecNumber(buffer, offset, 4, EFFECT_SPECIAL));
-    } else if (Profile.getEngine() == Profile.Engine.PST) {
+    } else if (engine == Profile.Engine.PST) {
       switch (effectType) {
         case 12:  // Damage
           s.add(new Flag(buffer, offset, 4, "Specific visual for",
@@ -0,0 +1,269 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.infinity.resource.key.ResourceBufferCache;
+import org.infinity.resource.key.ResourceEntry;
+
+/**
+ * A global cache for parsed structured resources, intended for checkers and searchers which
+ * process the same resources repeatedly. Resources are associated with the resource name, the
+ * actual file path and its modification stamp.
+ * <p>
+ * Cached resources are shared and must be treated as read-only. Resources which are going to be
+ * edited or shown in a viewer should be created by {@link ResourceFactory#getResource(ResourceEntry)}
+ * instead.
+ * <p>
+ * The cache is limited by the total size of the cached resources and discards least recently used
+ * entries first. Resources are softly referenced and may be discarded by the garbage collector
+ * when memory runs low.
+ */
+public final class ParsedResourceCache
+{
+  /** Default max. total size of cached resources (in bytes of resource data). */
+  public static final long DEFAULT_CACHE_SIZE = 16L * 1024L * 1024L;
+
+  private static final LinkedHashMap<Key, Item> map = new LinkedHashMap<>(256, 0.75f, true);
+  private static final ReferenceQueue<Resource> queue = new ReferenceQueue<>();
+
+  private static long maxSize = DEFAULT_CACHE_SIZE;
+  private static long curSize = 0L;
+  private static long hits = 0L;
+  private static long misses = 0L;
+
+  /**
+   * Returns the parsed resource of the specified entry. The resource is taken from the cache
+   * if available and up to date.
+   * @param entry The resource entry.
+   * @return The resource object, or {@code null} if the resource could not be loaded.
+   */
+  public static Resource get(ResourceEntry entry)
+  {
+    if (entry == null) {
+      throw new NullPointerException();
+    }
+
+    Path path = entry.getActualPath();
+    long stamp = ResourceBufferCache.getStamp(path);
+    if (path == null || stamp == 0L || getMaxSize() <= 0L) {
+      return ResourceFactory.getResource(entry);
+    }
+
+    Key key = new Key(entry.getResourceName(), path);
+    synchronized (map) {
+      purge();
+      Item item = map.get(key);
+      if (item != null) {
+        Resource resource = item.get();
+        if (resource != null && item.stamp == stamp) {
+          hits++;
+          return resource;
+        }
+        removeItem(key);
+      }
+      misses++;
+    }
+
+    Resource resource = ResourceFactory.getResource(entry);
+    // only structured resources are safe to share between concurrent readers
+    if (resource instanceof AbstractStruct) {
+      long cost = Math.max(1, ((AbstractStruct)resource).getSize());
+      synchronized (map) {
+        if (cost <= maxSize / 8) {
+          Item old = map.put(key, new Item(key, resource, stamp, cost));
+          if (old != null) {
+            curSize -= old.cost;
+          }
+          curSize += cost;
+          trimToSize();
+        }
+      }
+    }
+    return resource;
+  }
+
+  /** Removes all cached resources associated with the specified file path. */
+  public static void invalidate(Path path)
+  {
+    if (path != null) {
+      synchronized (map) {
+        Iterator<Map.Entry<Key, Item>> iter = map.entrySet().iterator();
+        while (iter.hasNext()) {
+          Map.Entry<Key, Item> e = iter.next();
+          if (path.equals(e.getKey().path)) {
+            curSize -= e.getValue().cost;
+            iter.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /** Removes all cached resources associated with the specified resource entry. */
+  public static void invalidate(ResourceEntry entry)
+  {
+    if (entry != null) {
+      String name = entry.getResourceName().toUpperCase(Locale.ENGLISH);
+      synchronized (map) {
+        Iterator<Map.Entry<Key, Item>> iter = map.entrySet().iterator();
+        while (iter.hasNext()) {
+          Map.Entry<Key, Item> e = iter.next();
+          if (name.equals(e.getKey().name)) {
+            curSize -= e.getValue().cost;
+            iter.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /** Removes all cached resources and resets statistics. */
+  public static void clearCache()
+  {
+    synchronized (map) {
+      map.clear();
+      while (queue.poll() != null) {}
+      curSize = 0L;
+      hits = misses = 0L;
+    }
+  }
+
+  /** Returns the max. total size of cached resources (in bytes of resource data). */
+  public static long getMaxSize()
+  {
+    synchronized (map) {
+      return maxSize;
+    }
+  }
+
+  /**
+   * Sets the max. total size of cached resources (in bytes of resource data).
+   * Specify {@code 0} to disable caching.
+   */
+  public static void setMaxSize(long size)
+  {
+    synchronized (map) {
+      maxSize = Math.max(0L, size);
+      trimToSize();
+    }
+  }
+
+  /** Returns the total size of the currently cached resources (in bytes of resource data). */
+  public static long getSize()
+  {
+    synchronized (map) {
+      purge();
+      return curSize;
+    }
+  }
+
+  /** Returns the number of resource requests served from the cache. */
+  public static long getHitCount()
+  {
+    synchronized (map) {
+      return hits;
+    }
+  }
+
+  /** Returns the number of resource requests which had to be parsed from the source. */
+  public static long getMissCount()
+  {
+    synchronized (map) {
+      return misses;
+    }
+  }
+
+  // Removes entries of resources which have been discarded by the garbage collector
+  private static void purge()
+  {
+    Object ref;
+    while ((ref = queue.poll()) != null) {
+      Item item = (Item)ref;
+      if (map.remove(item.key, item)) {
+        curSize -= item.cost;
+      }
+    }
+  }
+
+  private static void removeItem(Key key)
+  {
+    Item item = map.remove(key);
+    if (item != null) {
+      curSize -= item.cost;
+    }
+  }
+
+  // Removes least recently used entries until cache size is within limits
+  private static void trimToSize()
+  {
+    Iterator<Map.Entry<Key, Item>> iter = map.entrySet().iterator();
+    while (curSize > maxSize && iter.hasNext()) {
+      Map.Entry<Key, Item> e = iter.next();
+      curSize -= e.getValue().cost;
+      iter.remove();
+    }
+  }
+
+  private ParsedResourceCache() {}
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  private static class Key
+  {
+    private final String name;
+    private final Path path;
+
+    public Key(String name, Path path)
+    {
+      this.name = name.toUpperCase(Locale.ENGLISH);
+      this.path = path;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      int hash = 7;
+      hash = 31 * hash + name.hashCode();
+      hash = 31 * hash + path.hashCode();
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (o == this) {
+        return true;
+      } else if (o instanceof Key) {
+        Key other = (Key)o;
+        return name.equals(other.name) && path.equals(other.path);
+      }
+      return false;
+    }
+  }
+
+  private static class Item extends SoftReference<Resource>
+  {
+    private final Key key;
+    private final long stamp;
+    private final long cost;
+
+    public Item(Key key, Resource resource, long stamp, long cost)
+    {
+      super(resource, queue);
+      this.key = key;
+      this.stamp = stamp;
+      this.cost = cost;
+    }
+  }
+}
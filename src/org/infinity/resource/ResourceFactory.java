@@ -14,14 +14,21 @@
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardWatchEventKinds;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.regex.Pattern;
 
 import javax.swing.JFileChooser;
@@ -53,9 +60,12 @@
 import org.infinity.resource.key.BIFFResourceEntry;
 import org.infinity.resource.key.FileResourceEntry;
 import org.infinity.resource.key.Keyfile;
+import org.infinity.resource.key.ResourceBufferCache;
 import org.infinity.resource.key.ResourceEntry;
+import org.infinity.resource.key.ResourceInfoCache;
 import org.infinity.resource.key.ResourceTreeFolder;
 import org.infinity.resource.key.ResourceTreeModel;
+import org.infinity.resource.key.ResourceTreeSnapshot;
 import org.infinity.resource.maze.MazeResource;
 import org.infinity.resource.mus.MusResource;
 import org.infinity.resource.other.EffResource;
@@ -79,6 +89,7 @@
 import org.infinity.resource.video.WbmResource;
 import org.infinity.resource.wed.WedResource;
 import org.infinity.resource.wmp.WmpResource;
+import org.infinity.search.ReferenceIndex;
 import org.infinity.util.StaticSimpleXorDecryptor;
 import org.infinity.util.CreMapCache;
 import org.infinity.util.DynamicArray;
@@ -95,6 +106,9 @@
  */
 public final class ResourceFactory implements FileWatchListener
 {
+  // Max. number of resource names kept in the cache of missing resources
+  private static final int MISSING_CACHE_SIZE = 10000;
+
   private static ResourceFactory instance;
 
   private JFileChooser fc;
@@ -102,6 +116,22 @@ public final class ResourceFactory implements FileWatchListener
   private ResourceTreeModel treeModel;
   private Path pendingSelection;
 
+  // Lookup keys of resources which could neither be found in the resource tree nor in the file system
+  @SuppressWarnings("serial")
+  private final Map<String, Boolean> missingEntries = new LinkedHashMap<String, Boolean>(256, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest)
+    {
+      return size() > MISSING_CACHE_SIZE;
+    }
+  };
+  private long missingHits, missingQueries;
+
+  // Resource lists of the default resource folders by resource type ("" for all types)
+  private final Map<String, List<ResourceEntry>> resourceCache = new HashMap<>();
+  private long resourceCacheVersion = -1L;
+  private boolean resourceCacheIgnoreOverrides;
+
   public static Keyfile getKeyfile()
   {
     if (getInstance() != null) {
@@ -433,15 +463,22 @@ public static ResourceEntry getResourceEntry(String resourceName, boolean search
   {
     if (getInstance() != null) {
       ResourceEntry entry = getInstance().treeModel.getResourceEntry(resourceName);
+      if (entry != null || resourceName == null) {
+        return entry;
+      }
+
+      // skipping file system queries for resources known to be missing
+      String missingKey = getMissingKey(resourceName, searchExtraDirs, extraDirs);
+      if (getInstance().isMissing(missingKey)) {
+        return null;
+      }
 
       // checking default override folder list
-      if (entry == null) {
-        List<Path> extraFolders = Profile.getOverrideFolders(searchExtraDirs);
-        if (extraFolders != null) {
-          Path file = FileManager.query(extraFolders, resourceName);
-          if (file != null && Files.isRegularFile(file)) {
-            entry = new FileResourceEntry(file);
-          }
+      List<Path> extraFolders = Profile.getOverrideFolders(searchExtraDirs);
+      if (extraFolders != null) {
+        Path file = FileManager.query(extraFolders, resourceName);
+        if (file != null && Files.isRegularFile(file)) {
+          entry = new FileResourceEntry(file);
         }
       }
 
@@ -453,12 +490,64 @@ public static ResourceEntry getResourceEntry(String resourceName, boolean search
         }
       }
 
+      if (entry == null) {
+        getInstance().addMissing(missingKey);
+      }
       return entry;
     } else {
       return null;
     }
   }
 
+  /**
+   * Returns the number of resource lookups which were answered by the cache of missing resources
+   * without accessing the file system.
+   */
+  public static long getMissingCacheHitCount()
+  {
+    if (getInstance() != null) {
+      synchronized (getInstance().missingEntries) {
+        return getInstance().missingHits;
+      }
+    }
+    return 0L;
+  }
+
+  /**
+   * Returns the number of resource lookups which were not found in the resource tree and
+   * had to be checked against the cache of missing resources.
+   */
+  public static long getMissingCacheQueryCount()
+  {
+    if (getInstance() != null) {
+      synchronized (getInstance().missingEntries) {
+        return getInstance().missingQueries;
+      }
+    }
+    return 0L;
+  }
+
+  /**
+   * Discards all cached information about missing resources.
+   * Hit and query counts are not affected.
+   */
+  public static void clearMissingCache()
+  {
+    if (getInstance() != null) {
+      getInstance().clearMissing();
+    }
+  }
+
+  /** Resets hit and query counts of the cache of missing resources. */
+  public static void resetMissingCacheStatistics()
+  {
+    if (getInstance() != null) {
+      synchronized (getInstance().missingEntries) {
+        getInstance().missingHits = getInstance().missingQueries = 0L;
+      }
+    }
+  }
+
   /** Returns the resource tree model of the current game. */
   public static ResourceTreeModel getResourceTreeModel()
   {
@@ -494,6 +583,36 @@ public static List<ResourceEntry> getResources(String type, List<Path> extraDirs
     }
   }
 
+  /**
+   * Returns an unmodifiable sorted list of all resources of the specified resource type from BIFFs,
+   * extra and override directories. The list is shared between callers and is replaced
+   * whenever the resource tree changes. Prefer this method over {@link #getResources(String)}
+   * if the list is not modified.
+   * @param type Resource extension.
+   */
+  public static List<ResourceEntry> getResourcesView(String type)
+  {
+    if (getInstance() != null) {
+      return getInstance().getCachedResources(type);
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Returns an unmodifiable sorted list of all available resources from BIFFs, extra and override
+   * directories. The list is shared between callers and is replaced whenever the resource tree
+   * changes.
+   */
+  public static List<ResourceEntry> getResourcesView()
+  {
+    if (getInstance() != null) {
+      return getInstance().getCachedResources(null);
+    } else {
+      return null;
+    }
+  }
+
   /**
    * Returns all available resources from BIFFs, extra and override directories
    * from BIFFs, extra and override directories.
@@ -829,6 +948,19 @@ private static ResourceFactory getInstance()
     return instance;
   }
 
+  // Returns the lookup key for the cache of missing resources
+  private static String getMissingKey(String resourceName, boolean searchExtraDirs, List<Path> extraDirs)
+  {
+    StringBuilder sb = new StringBuilder(resourceName.toUpperCase(Locale.ENGLISH));
+    if (searchExtraDirs) {
+      sb.append("|*");
+    }
+    if (extraDirs != null) {
+      sb.append('|').append(extraDirs);
+    }
+    return sb.toString();
+  }
+
 
   private ResourceFactory(Path keyFile)
   {
@@ -854,6 +986,34 @@ private ResourceFactory(Path keyFile)
     }
   }
 
+  // Returns whether the resource of the specified lookup key is known to be missing
+  private boolean isMissing(String key)
+  {
+    synchronized (missingEntries) {
+      missingQueries++;
+      if (missingEntries.get(key) != null) {
+        missingHits++;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  private void addMissing(String key)
+  {
+    synchronized (missingEntries) {
+      missingEntries.put(key, Boolean.TRUE);
+    }
+  }
+
+  // Discards cached entries only, statistics are kept
+  private void clearMissing()
+  {
+    synchronized (missingEntries) {
+      missingEntries.clear();
+    }
+  }
+
   // Cleans up resources
   private void close()
   {
@@ -1033,6 +1193,7 @@ private void unregisterResourceInternal(Path resource)
 
   private void registerResourceInternal(Path resource, boolean autoselect)
   {
+    clearMissing();
     if (!BrowserMenuBar.getInstance().showUnknownResourceTypes() &&
         !Profile.isResourceTypeSupported(FileManager.getFileExtension(resource))) {
       return;
@@ -1161,50 +1322,156 @@ private void setPendingSelection(Path path)
 
   private void loadResourcesInternal() throws Exception
   {
+    clearMissing();
     treeModel = new ResourceTreeModel();
 
     // Get resources from keyfile
+    long timeStart = System.currentTimeMillis();
     NearInfinity.advanceProgress("Loading BIFF resources...");
     keyfile.populateResourceTree(treeModel);
+    long timeBiff = System.currentTimeMillis() - timeStart;
 
     // Add resources from extra folders
-    NearInfinity.advanceProgress("Loading extra resources...");
+    timeStart = System.currentTimeMillis();
+    NearInfinity.advanceProgress(String.format("Loading extra resources... (BIFF: %d ms)", timeBiff));
+    // folder content is restored from the snapshot file if available and up to date
     List<Path> extraPaths = Profile.getProperty(Profile.Key.GET_GAME_EXTRA_FOLDERS);
-    extraPaths.forEach((path) -> {
-      if (Files.isDirectory(path)) {
-        treeModel.addDirectory((ResourceTreeFolder)treeModel.getRoot(), path, false);
+    List<Path> overridePaths = Profile.getOverrideFolders(false);
+    List<Path> keyPaths = new ArrayList<>();
+    keyPaths.add(keyfile.getKeyfile());
+    keyPaths.addAll(keyfile.getDlcKeyfiles());
+    Path snapshotFile = getSnapshotFile();
+    ResourceTreeSnapshot snapshot =
+        ResourceTreeSnapshot.load(snapshotFile, Profile.getGameRoot(), keyPaths, extraPaths, overridePaths);
+    if (snapshot == null) {
+      snapshot = ResourceTreeSnapshot.create(Profile.getGameRoot(), keyPaths, extraPaths, overridePaths);
+      if (snapshotFile != null && snapshot.isComplete() && snapshot.isStable()) {
+        try {
+          snapshot.save(snapshotFile);
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
       }
-    });
+    }
 
-    NearInfinity.advanceProgress("Loading override resources...");
-    final boolean overrideInOverride = (BrowserMenuBar.getInstance() != null &&
-                                        BrowserMenuBar.getInstance().getOverrideMode() == BrowserMenuBar.OVERRIDE_IN_OVERRIDE);
-    String overrideFolder = Profile.getOverrideFolderName();
-    List<Path> overridePaths = Profile.getOverrideFolders(false);
-    for (final Path overridePath: overridePaths) {
-      if (Files.isDirectory(overridePath)) {
-        try (DirectoryStream<Path> dstream = Files.newDirectoryStream(overridePath)) {
-          dstream.forEach((path) -> {
-            if (Files.isRegularFile(path)) {
-              ResourceEntry entry = getResourceEntry(path.getFileName().toString());
-              if (entry instanceof FileResourceEntry) {
-                treeModel.addResourceEntry(entry, entry.getTreeFolderName(), true);
-              } else if (entry instanceof BIFFResourceEntry) {
-                ((BIFFResourceEntry)entry).setOverride(true);
-                if (overrideInOverride) {
-                  treeModel.removeResourceEntry(entry, entry.getExtension());
-                  treeModel.addResourceEntry(new FileResourceEntry(path, true), overrideFolder, true);
-                }
-              }
-            }
-          });
+    for (int i = 0; i < extraPaths.size(); i++) {
+      ResourceTreeSnapshot.Folder listing = snapshot.getExtraFolder(i);
+      if (listing != null) {
+        treeModel.addDirectory((ResourceTreeFolder)treeModel.getRoot(), extraPaths.get(i), listing, false);
+      }
+    }
+    long timeExtra = System.currentTimeMillis() - timeStart;
+
+    timeStart = System.currentTimeMillis();
+    NearInfinity.advanceProgress(String.format("Loading override resources... (BIFF: %d ms, extra: %d ms)",
+                                               timeBiff, timeExtra));
+
+    // maps resource names to the first matching file in the override folders
+    Map<String, Path> overrideFiles = new LinkedHashMap<>();
+    for (int i = 0; i < overridePaths.size(); i++) {
+      ResourceTreeSnapshot.Folder listing = snapshot.getOverrideFolder(i);
+      if (listing != null) {
+        for (final String fileName: listing.getFiles()) {
+          overrideFiles.putIfAbsent(fileName.toUpperCase(Locale.ENGLISH), overridePaths.get(i).resolve(fileName));
         }
       }
     }
+
+    // override files are classified concurrently and merged into the tree model in a single step
+    List<Path> files = new ArrayList<>(overrideFiles.values());
+    List<OverrideClassifier> classifiers = new ArrayList<>();
+    ThreadPoolExecutor executor = Misc.createThreadPool();
+    int numChunks = Math.max(1, Math.min(executor.getCorePoolSize(), files.size() / 256));
+    List<Future<OverrideClassifier>> results = new ArrayList<>(numChunks);
+    for (int i = 0; i < numChunks; i++) {
+      OverrideClassifier classifier =
+          new OverrideClassifier(treeModel, files.subList(i * files.size() / numChunks,
+                                                          (i + 1) * files.size() / numChunks));
+      Misc.isQueueReady(executor, true, -1);
+      results.add(executor.submit(classifier));
+    }
+    executor.shutdown();
+    for (final Future<OverrideClassifier> result: results) {
+      classifiers.add(result.get());
+    }
+
+    for (final OverrideClassifier classifier: classifiers) {
+      classifier.removed.forEach((folderName, list) -> treeModel.removeResourceEntries(list, folderName));
+    }
+    Map<String, List<ResourceEntry>> added = new HashMap<>();
+    for (final OverrideClassifier classifier: classifiers) {
+      classifier.added.forEach((folderName, list) -> {
+        added.computeIfAbsent(folderName, (name) -> new ArrayList<>()).addAll(list);
+      });
+    }
+    added.forEach((folderName, list) -> treeModel.addResourceEntries(list, folderName, true));
     treeModel.sort();
+    long timeOverride = System.currentTimeMillis() - timeStart;
+
+    NearInfinity.updateProgressNote(String.format("Resources loaded (BIFF: %d ms, extra: %d ms, override: %d ms)",
+                                                  timeBiff, timeExtra, timeOverride));
+  }
+
+  // Returns the path of the resource tree snapshot file for the current game, or null if not available
+  private static Path getSnapshotFile()
+  {
+    Path homeRoot = Profile.getHomeRoot();
+    if (homeRoot != null && Files.isDirectory(homeRoot) &&
+        homeRoot.getFileSystem().equals(FileSystems.getDefault())) {
+      return homeRoot.resolve(ResourceTreeSnapshot.SNAPSHOT_FILE_NAME);
+    }
+    return null;
   }
 
   private List<ResourceEntry> getResourcesInternal(String type, List<Path> extraDirs)
+  {
+    if (extraDirs == null) {
+      return new ArrayList<>(getCachedResources(type));
+    }
+    return collectResources(type, extraDirs);
+  }
+
+  private List<ResourceEntry> getResourcesInternal(Pattern pattern, List<Path> extraDirs)
+  {
+    if (extraDirs == null) {
+      List<ResourceEntry> list = getCachedResources(null);
+      if (pattern == null) {
+        return new ArrayList<>(list);
+      }
+      List<ResourceEntry> retList = new ArrayList<>();
+      for (final ResourceEntry entry: list) {
+        if (pattern.matcher(entry.getResourceName()).matches()) {
+          retList.add(entry);
+        }
+      }
+      return retList;
+    }
+    return collectResources(pattern, extraDirs);
+  }
+
+  // Returns the shared resource list of the specified type (or all types if null) for default extra
+  // directories. Lists are rebuilt whenever the tree model or the override option changes.
+  private List<ResourceEntry> getCachedResources(String type)
+  {
+    boolean ignoreOverrides = (BrowserMenuBar.getInstance() == null || BrowserMenuBar.getInstance().ignoreOverrides());
+    synchronized (resourceCache) {
+      if (resourceCacheVersion != treeModel.getVersion() || resourceCacheIgnoreOverrides != ignoreOverrides) {
+        resourceCache.clear();
+        resourceCacheVersion = treeModel.getVersion();
+        resourceCacheIgnoreOverrides = ignoreOverrides;
+      }
+      String key = (type != null) ? type.toUpperCase(Locale.ENGLISH) : "";
+      List<ResourceEntry> list = resourceCache.get(key);
+      if (list == null) {
+        list = (type != null) ? collectResources(type, null) : collectResources((Pattern)null, null);
+        list = Collections.unmodifiableList(list);
+        resourceCache.put(key, list);
+      }
+      return list;
+    }
+  }
+
+  private List<ResourceEntry> collectResources(String type, List<Path> extraDirs)
   {
     List<ResourceEntry> list;
     ResourceTreeFolder bifNode = treeModel.getFolder(type);
@@ -1240,7 +1507,7 @@ private List<ResourceEntry> getResourcesInternal(String type, List<Path> extraDi
     return list;
   }
 
-  private List<ResourceEntry> getResourcesInternal(Pattern pattern, List<Path> extraDirs)
+  private List<ResourceEntry> collectResources(Pattern pattern, List<Path> extraDirs)
   {
     List<ResourceEntry> retList = new ArrayList<>();
 
@@ -1377,6 +1644,7 @@ private boolean saveResourceInternal(Resource resource, Component parent)
       return false;
     }
     Path outPath;
+    boolean isSource = false;   // whether resource is saved to the file it has been loaded from
     if (entry instanceof BIFFResourceEntry) {
       Path overridePath = FileManager.query(Profile.getGameRoot(), Profile.getOverrideFolderName());
       if (!Files.isDirectory(overridePath)) {
@@ -1393,6 +1661,7 @@ private boolean saveResourceInternal(Resource resource, Component parent)
       ((BIFFResourceEntry)entry).setOverride(true);
     } else {
       outPath = entry.getActualPath();
+      isSource = FileManager.isDefaultFileSystem(outPath);
       // extra step for saving resources from a read-only medium (such as DLCs)
       if (!FileManager.isDefaultFileSystem(outPath)) {
         outPath = Profile.getGameRoot().resolve(outPath.subpath(0, outPath.getNameCount()).toString());
@@ -1421,7 +1690,12 @@ private boolean saveResourceInternal(Resource resource, Component parent)
               Files.delete(bakPath);
             }
             if (!Files.exists(bakPath)) {
-              Files.move(outPath, bakPath);
+              if (isSource) {
+                // original file may be updated in place
+                Files.copy(outPath, bakPath);
+              } else {
+                Files.move(outPath, bakPath);
+              }
             }
           } catch (IOException e) {
             e.printStackTrace();
@@ -1431,14 +1705,24 @@ private boolean saveResourceInternal(Resource resource, Component parent)
         return false;
       }
     }
-    try (OutputStream os = StreamUtils.getOutputStream(outPath, true)) {
-      ((Writeable)resource).write(os);
+    try {
+      // writing modified fields only if possible
+      if (!isSource || !(resource instanceof AbstractStruct) ||
+          !((AbstractStruct)resource).writeChangedFields(outPath)) {
+        try (OutputStream os = StreamUtils.getOutputStream(outPath, true)) {
+          ((Writeable)resource).write(os);
+        }
+      }
     } catch (IOException e) {
       JOptionPane.showMessageDialog(parent, "Error while saving " + resource.getResourceEntry().toString(),
                                     "Error", JOptionPane.ERROR_MESSAGE);
       e.printStackTrace();
       return false;
     }
+    ResourceBufferCache.invalidate(entry);
+    ParsedResourceCache.invalidate(entry);
+    ReferenceIndex.invalidate(entry);
+    clearMissing();
     JOptionPane.showMessageDialog(parent, "File saved to \"" + outPath.toAbsolutePath() + '\"',
                                   "Save complete", JOptionPane.INFORMATION_MESSAGE);
     if (resource.getResourceEntry().getExtension().equals("IDS")) {
@@ -1466,6 +1750,10 @@ private boolean saveResourceInternal(Resource resource, Component parent)
   public void fileChanged(FileWatchEvent e)
   {
 //    System.out.println("ResourceFactory.fileChanged(): " + e.getKind().toString() + " - " + e.getPath());
+    ResourceBufferCache.invalidate(e.getPath());
+    ResourceInfoCache.invalidate(e.getPath());
+    ParsedResourceCache.invalidate(e.getPath());
+    ReferenceIndex.invalidate(e.getPath());
     if (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE) {
       registerResourceInternal(e.getPath(), isPendingSelection(e.getPath(), true));
     } else if (e.getKind() == StandardWatchEventKinds.ENTRY_DELETE) {
@@ -1474,4 +1762,51 @@ public void fileChanged(FileWatchEvent e)
   }
 
 //--------------------- End Interface FileWatchListener ---------------------
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  // Determines the tree folders of override files without modifying the resource tree
+  private static class OverrideClassifier implements Callable<OverrideClassifier>
+  {
+    private final Map<String, List<ResourceEntry>> added = new HashMap<>();
+    private final Map<String, List<ResourceEntry>> removed = new HashMap<>();
+    private final ResourceTreeModel treeModel;
+    private final List<Path> files;
+
+    public OverrideClassifier(ResourceTreeModel treeModel, List<Path> files)
+    {
+      this.treeModel = treeModel;
+      this.files = files;
+    }
+
+    @Override
+    public OverrideClassifier call() throws Exception
+    {
+      final boolean overrideInOverride = (BrowserMenuBar.getInstance() != null &&
+                                          BrowserMenuBar.getInstance().getOverrideMode() == BrowserMenuBar.OVERRIDE_IN_OVERRIDE);
+      final String overrideFolder = Profile.getOverrideFolderName();
+      for (final Path file: files) {
+        ResourceEntry entry = treeModel.getResourceEntry(file.getFileName().toString());
+        if (entry == null) {
+          entry = new FileResourceEntry(file);
+        }
+        if (entry instanceof FileResourceEntry) {
+          add(added, entry.getTreeFolderName(), entry);
+        } else if (entry instanceof BIFFResourceEntry) {
+          ((BIFFResourceEntry)entry).setOverride(true);
+          if (overrideInOverride) {
+            add(removed, entry.getExtension(), entry);
+            add(added, overrideFolder, new FileResourceEntry(file, true));
+          }
+        }
+      }
+      return this;
+    }
+
+    private static void add(Map<String, List<ResourceEntry>> map, String folderName, ResourceEntry entry)
+    {
+      map.computeIfAbsent(folderName, (name) -> new ArrayList<>()).add(entry);
+    }
+  }
 }
@@ -0,0 +1,378 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.infinity.datatype.EffectType;
+import org.infinity.resource.cre.CreResource;
+import org.infinity.resource.cre.Item;
+import org.infinity.resource.itm.ItmResource;
+
+/**
+ * Describes the binary layout of a structured resource format: the fields of a structure
+ * (offset, size and type) and the sections (arrays of substructures) referenced by it.
+ * Schemas are used by {@link StructView} to read field values directly from resource data
+ * without creating {@link StructEntry} objects.
+ * Only formats and versions with a fixed layout are described.
+ */
+public final class StructSchema
+{
+  /** Supported field types. */
+  public enum Type {
+    /** Little-endian signed integer of 1, 2 or 4 bytes. */
+    SIGNED,
+    /** Little-endian unsigned integer of 1, 2 or 4 bytes. */
+    UNSIGNED,
+    /** Null-terminated text string, such as a resource reference. */
+    TEXT,
+  }
+
+  // Section labels
+  public static final String SECTION_ABILITY    = "Ability";
+  public static final String SECTION_EFFECT     = "Effect";
+  public static final String SECTION_ITEM       = "Item";
+  public static final String SECTION_ITEM_SLOT  = "Item slot";
+
+  // Field labels
+  public static final String FIELD_ITEM_SLOT    = "Item slot";
+
+  private static final HashMap<String, StructSchema> schemas = new HashMap<>();
+
+  private final String name;
+  private final int size;
+  private final HashMap<String, Field> fields = new HashMap<>();
+  private final HashMap<String, Section> sections = new HashMap<>();
+  private final List<Section> sectionList = new ArrayList<>();
+
+  /**
+   * Returns the schema of the specified resource format.
+   * @param extension The resource type.
+   * @param signature The signature of the resource data.
+   * @param version The version of the resource data.
+   * @return The schema, or {@code null} if the format is not supported.
+   */
+  public static synchronized StructSchema get(String extension, String signature, String version)
+  {
+    if (extension == null || signature == null || version == null) {
+      return null;
+    }
+    if (schemas.isEmpty()) {
+      init();
+    }
+    String key = extension.toUpperCase(Locale.ENGLISH) + '|' + signature + '|' + version;
+    return schemas.get(key);
+  }
+
+  /** Removes all cached schemas. Schemas depend on the currently loaded game. */
+  public static synchronized void clearCache()
+  {
+    schemas.clear();
+  }
+
+  /**
+   * Creates an empty schema.
+   * @param name A descriptive name of the structure.
+   * @param size The size of the structure, in bytes.
+   */
+  public StructSchema(String name, int size)
+  {
+    this.name = name;
+    this.size = size;
+  }
+
+  /** Returns the descriptive name of the structure. */
+  public String getName()
+  {
+    return name;
+  }
+
+  /** Returns the size of the structure, in bytes. */
+  public int getSize()
+  {
+    return size;
+  }
+
+  /**
+   * Adds a field definition to the schema.
+   * @param name The field label.
+   * @param offset The field offset, relative to the start of the structure.
+   * @param size The field size, in bytes.
+   * @param type The field type.
+   * @return The current schema.
+   */
+  public StructSchema addField(String name, int offset, int size, Type type)
+  {
+    if (offset < 0 || size <= 0 || offset + size > this.size) {
+      throw new IllegalArgumentException("Invalid field definition: " + name);
+    }
+    if (type != Type.TEXT && size != 1 && size != 2 && size != 4) {
+      throw new IllegalArgumentException("Invalid numeric field size: " + name);
+    }
+    fields.put(name, new Field(name, offset, size, type));
+    return this;
+  }
+
+  /**
+   * Adds a section definition to the schema.
+   * @param name The section label.
+   * @param offsetField Label of the field containing the section offset.
+   * @param countField Label of the field containing the number of section entries.
+   * @param entry Schema of a single section entry.
+   * @return The current schema.
+   */
+  public StructSchema addSection(String name, String offsetField, String countField, StructSchema entry)
+  {
+    return addSection(new Section(name, getField(offsetField), getField(countField), 0, null, null, entry));
+  }
+
+  /**
+   * Adds a section definition with a fixed number of entries to the schema.
+   * @param name The section label.
+   * @param offsetField Label of the field containing the section offset.
+   * @param count The number of section entries.
+   * @param entry Schema of a single section entry.
+   * @return The current schema.
+   */
+  public StructSchema addSection(String name, String offsetField, int count, StructSchema entry)
+  {
+    return addSection(new Section(name, getField(offsetField), null, count, null, null, entry));
+  }
+
+  /**
+   * Adds a section definition to the schema whose entries are followed by the entries
+   * referenced from another section, such as the ability effects of items and spells.
+   * @param name The section label.
+   * @param offsetField Label of the field containing the section offset.
+   * @param countField Label of the field containing the number of section entries.
+   * @param nestedSection Label of the section referencing additional entries.
+   * @param nestedCountField Label of the field in {@code nestedSection} containing the number
+   *                         of additional entries.
+   * @param entry Schema of a single section entry.
+   * @return The current schema.
+   */
+  public StructSchema addSection(String name, String offsetField, String countField,
+                                 String nestedSection, String nestedCountField, StructSchema entry)
+  {
+    Section nested = sections.get(nestedSection);
+    if (nested == null) {
+      throw new IllegalArgumentException("Unknown section: " + nestedSection);
+    }
+    return addSection(new Section(name, getField(offsetField), getField(countField), 0,
+                                  nested, nested.entry.getField(nestedCountField), entry));
+  }
+
+  /** Returns the definition of the specified field. Throws an exception if not available. */
+  public Field getField(String name)
+  {
+    Field field = fields.get(name);
+    if (field == null) {
+      throw new IllegalArgumentException(this.name + ": unknown field " + name);
+    }
+    return field;
+  }
+
+  /** Returns whether the schema defines a field of the specified label. */
+  public boolean hasField(String name)
+  {
+    return fields.containsKey(name);
+  }
+
+  /** Returns the definition of the specified section. Throws an exception if not available. */
+  public Section getSection(String name)
+  {
+    Section section = sections.get(name);
+    if (section == null) {
+      throw new IllegalArgumentException(this.name + ": unknown section " + name);
+    }
+    return section;
+  }
+
+  /** Returns all section definitions in order of declaration. */
+  public List<Section> getSections()
+  {
+    return Collections.unmodifiableList(sectionList);
+  }
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+
+  private StructSchema addSection(Section section)
+  {
+    sections.put(section.name, section);
+    sectionList.add(section);
+    return this;
+  }
+
+  private static void put(String extension, String signature, String version, StructSchema schema)
+  {
+    schemas.put(extension + '|' + signature + '|' + version, schema);
+  }
+
+  // Defines schemas of supported resource formats
+  private static void init()
+  {
+    StructSchema effect = new StructSchema(SECTION_EFFECT, 48)
+        .addField(EffectType.EFFECT_TYPE, 0, 2, Type.UNSIGNED)
+        .addField(EffectType.EFFECT_TYPE_TARGET, 2, 1, Type.UNSIGNED)
+        .addField(EffectFactory.EFFECT_PARAMETER_1, 4, 4, Type.SIGNED)
+        .addField(EffectFactory.EFFECT_PARAMETER_2, 8, 4, Type.SIGNED)
+        .addField(EffectFactory.EFFECT_RESOURCE, 20, 8, Type.TEXT);
+
+    // ITM and SPL
+    StructSchema itmAbility = new StructSchema(SECTION_ABILITY, 56)
+        .addField(AbstractAbility.ABILITY_NUM_EFFECTS, 30, 2, Type.SIGNED)
+        .addField(AbstractAbility.ABILITY_FIRST_EFFECT_INDEX, 32, 2, Type.SIGNED);
+    StructSchema splAbility = new StructSchema(SECTION_ABILITY, 40)
+        .addField(AbstractAbility.ABILITY_NUM_EFFECTS, 30, 2, Type.SIGNED)
+        .addField(AbstractAbility.ABILITY_FIRST_EFFECT_INDEX, 32, 2, Type.SIGNED);
+    put("ITM", "ITM ", "V1  ", createItmSpl("ITM V1", 114, itmAbility, effect));
+    put("ITM", "ITM ", "V1.1", createItmSpl("ITM V1.1", 154, itmAbility, effect));
+    put("ITM", "ITM ", "V2.0", createItmSpl("ITM V2.0", 130, itmAbility, effect));
+    put("SPL", "SPL ", "V1  ", createItmSpl("SPL V1", 114, splAbility, effect));
+    put("SPL", "SPL ", "V2.0", createItmSpl("SPL V2.0", 130, splAbility, effect));
+
+    // CRE: item related sections only
+    StructSchema item = new StructSchema(SECTION_ITEM, 20)
+        .addField(Item.CRE_ITEM_RESREF, 0, 8, Type.TEXT);
+    StructSchema itemSlot = new StructSchema(SECTION_ITEM_SLOT, 2)
+        .addField(FIELD_ITEM_SLOT, 0, 2, Type.SIGNED);
+    if (Profile.getGame() != Profile.Game.PSTEE) {
+      // number of item slots depends on creature data in PSTEE
+      put("CRE", "CRE ", "V1.0", createCre("CRE V1.0", 696, 38, item, itemSlot));
+      put("CRE", "CRE ", "V1.1", createCre("CRE V1.1", 696, 38, item, itemSlot));
+      put("CRE", "CRE ", "V9.0", createCre("CRE V9.0", 800, 38, item, itemSlot));
+    }
+    put("CRE", "CRE ", "V1.2", createCre("CRE V1.2", 860, 46, item, itemSlot));
+    put("CRE", "CRE ", "V2.2", createCre("CRE V2.2", 1554, 50, item, itemSlot));
+  }
+
+  private static StructSchema createItmSpl(String name, int size, StructSchema ability, StructSchema effect)
+  {
+    return new StructSchema(name, size)
+        .addField(AbstractStruct.COMMON_SIGNATURE, 0, 4, Type.TEXT)
+        .addField(AbstractStruct.COMMON_VERSION, 4, 4, Type.TEXT)
+        .addField(ItmResource.ITM_OFFSET_ABILITIES, 100, 4, Type.UNSIGNED)
+        .addField(ItmResource.ITM_NUM_ABILITIES, 104, 2, Type.SIGNED)
+        .addField(ItmResource.ITM_OFFSET_EFFECTS, 106, 4, Type.UNSIGNED)
+        .addField(ItmResource.ITM_FIRST_EFFECT_INDEX, 110, 2, Type.SIGNED)
+        .addField(ItmResource.ITM_NUM_GLOBAL_EFFECTS, 112, 2, Type.SIGNED)
+        .addSection(SECTION_ABILITY, ItmResource.ITM_OFFSET_ABILITIES, ItmResource.ITM_NUM_ABILITIES, ability)
+        .addSection(SECTION_EFFECT, ItmResource.ITM_OFFSET_EFFECTS, ItmResource.ITM_NUM_GLOBAL_EFFECTS,
+                    SECTION_ABILITY, AbstractAbility.ABILITY_NUM_EFFECTS, effect);
+  }
+
+  // slotsOffset: offset of the "item slots offset" field, followed by items and effects definitions
+  private static StructSchema createCre(String name, int slotsOffset, int numSlots,
+                                        StructSchema item, StructSchema itemSlot)
+  {
+    return new StructSchema(name, slotsOffset + 28)
+        .addField(AbstractStruct.COMMON_SIGNATURE, 0, 4, Type.TEXT)
+        .addField(AbstractStruct.COMMON_VERSION, 4, 4, Type.TEXT)
+        .addField(CreResource.CRE_OFFSET_ITEM_SLOTS, slotsOffset, 4, Type.UNSIGNED)
+        .addField(CreResource.CRE_OFFSET_ITEMS, slotsOffset + 4, 4, Type.UNSIGNED)
+        .addField(CreResource.CRE_NUM_ITEMS, slotsOffset + 8, 4, Type.SIGNED)
+        .addField(CreResource.CRE_OFFSET_EFFECTS, slotsOffset + 12, 4, Type.UNSIGNED)
+        .addField(CreResource.CRE_NUM_EFFECTS, slotsOffset + 16, 4, Type.SIGNED)
+        .addSection(SECTION_ITEM, CreResource.CRE_OFFSET_ITEMS, CreResource.CRE_NUM_ITEMS, item)
+        .addSection(SECTION_ITEM_SLOT, CreResource.CRE_OFFSET_ITEM_SLOTS, numSlots, itemSlot);
+  }
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Definition of a single field. */
+  public static final class Field
+  {
+    private final String name;
+    private final int offset;
+    private final int size;
+    private final Type type;
+
+    private Field(String name, int offset, int size, Type type)
+    {
+      this.name = name;
+      this.offset = offset;
+      this.size = size;
+      this.type = type;
+    }
+
+    /** Returns the field label. */
+    public String getName() { return name; }
+
+    /** Returns the field offset, relative to the start of the structure. */
+    public int getOffset() { return offset; }
+
+    /** Returns the field size, in bytes. */
+    public int getSize() { return size; }
+
+    /** Returns the field type. */
+    public Type getType() { return type; }
+
+    @Override
+    public String toString()
+    {
+      return name;
+    }
+  }
+
+  /** Definition of a section, i.e. an array of substructures referenced by a structure. */
+  public static final class Section
+  {
+    private final String name;
+    private final Field offsetField;
+    private final Field countField;
+    private final int count;
+    private final Section nestedSection;
+    private final Field nestedCountField;
+    private final StructSchema entry;
+
+    private Section(String name, Field offsetField, Field countField, int count,
+                    Section nestedSection, Field nestedCountField, StructSchema entry)
+    {
+      this.name = name;
+      this.offsetField = offsetField;
+      this.countField = countField;
+      this.count = count;
+      this.nestedSection = nestedSection;
+      this.nestedCountField = nestedCountField;
+      this.entry = entry;
+    }
+
+    /** Returns the section label. */
+    public String getName() { return name; }
+
+    /** Returns the field containing the section offset. */
+    public Field getOffsetField() { return offsetField; }
+
+    /** Returns the field containing the number of entries, or {@code null} for fixed-size sections. */
+    public Field getCountField() { return countField; }
+
+    /** Returns the number of entries of fixed-size sections. */
+    public int getCount() { return count; }
+
+    /** Returns the section referencing additional entries, or {@code null} if not available. */
+    public Section getNestedSection() { return nestedSection; }
+
+    /** Returns the field in the nested section containing the number of additional entries. */
+    public Field getNestedCountField() { return nestedCountField; }
+
+    /** Returns the schema of a single section entry. */
+    public StructSchema getEntry() { return entry; }
+
+    @Override
+    public String toString()
+    {
+      return name;
+    }
+  }
+}
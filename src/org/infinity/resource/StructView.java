@@ -0,0 +1,226 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.io.StreamUtils;
+
+/**
+ * A read-only view of structured resource data, as described by a {@link StructSchema}.
+ * Field values are read directly from the underlying buffer on request. No {@link StructEntry}
+ * objects are created, which makes views suitable for scanning large numbers of resources.
+ */
+public final class StructView
+{
+  private final StructSchema schema;
+  private final ByteBuffer buffer;
+  private final int offset;
+
+  /**
+   * Returns a view of the specified resource.
+   * @param entry The resource entry.
+   * @return A view of the resource data, or {@code null} if no schema is available for the
+   *         resource type and version.
+   */
+  public static StructView get(ResourceEntry entry) throws Exception
+  {
+    if (entry == null) {
+      return null;
+    }
+    ByteBuffer bb = entry.getResourceBuffer();
+    if (bb == null || bb.limit() < 8) {
+      return null;
+    }
+    String sig = StreamUtils.readString(bb, 0, 4);
+    String ver = StreamUtils.readString(bb, 4, 4);
+    StructSchema schema = StructSchema.get(entry.getExtension(), sig, ver);
+    if (schema == null || schema.getSize() > bb.limit()) {
+      return null;
+    }
+    return new StructView(schema, bb, 0);
+  }
+
+  /**
+   * Creates a view of a structure located at the specified buffer offset.
+   * @param schema Layout definition of the structure.
+   * @param buffer Resource data.
+   * @param offset Start offset of the structure. Section offsets are relative to this value.
+   */
+  public StructView(StructSchema schema, ByteBuffer buffer, int offset)
+  {
+    if (schema == null || buffer == null) {
+      throw new NullPointerException();
+    }
+    this.schema = schema;
+    this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    this.offset = offset;
+  }
+
+  /** Returns the schema of the structure. */
+  public StructSchema getSchema()
+  {
+    return schema;
+  }
+
+  /** Returns the start offset of the structure. */
+  public int getOffset()
+  {
+    return offset;
+  }
+
+  /** Returns the size of the available resource data. */
+  public int getDataSize()
+  {
+    return buffer.limit();
+  }
+
+  /**
+   * Returns the numeric value of the specified field.
+   * @throws IllegalArgumentException if the field is not defined by the schema.
+   * @throws IndexOutOfBoundsException if the field is located outside of the resource data.
+   */
+  public int getValue(String field)
+  {
+    return getValue(offset, schema.getField(field));
+  }
+
+  /** Returns the text of the specified field. */
+  public String getString(String field)
+  {
+    return getString(offset, schema.getField(field));
+  }
+
+  /**
+   * Returns the numeric value of a field in the specified section entry.
+   * @param section The section label.
+   * @param index Index of the section entry.
+   * @param field The field label in the section entry.
+   */
+  public int getValue(String section, int index, String field)
+  {
+    StructSchema.Section s = schema.getSection(section);
+    return getValue(getEntryOffset(s, index), s.getEntry().getField(field));
+  }
+
+  /**
+   * Returns the text of a field in the specified section entry.
+   * @param section The section label.
+   * @param index Index of the section entry.
+   * @param field The field label in the section entry.
+   */
+  public String getString(String section, int index, String field)
+  {
+    StructSchema.Section s = schema.getSection(section);
+    return getString(getEntryOffset(s, index), s.getEntry().getField(field));
+  }
+
+  /** Returns the absolute start offset of the specified section. */
+  public int getSectionOffset(String section)
+  {
+    return getSectionOffset(schema.getSection(section));
+  }
+
+  /**
+   * Returns the number of entries in the specified section, including entries referenced
+   * from nested sections.
+   */
+  public int getSectionCount(String section)
+  {
+    return getSectionCount(schema.getSection(section));
+  }
+
+  /** Returns the absolute start offset of an entry in the specified section. */
+  public int getEntryOffset(String section, int index)
+  {
+    return getEntryOffset(schema.getSection(section), index);
+  }
+
+  /**
+   * Returns whether the structure and the sections defined by the schema cover the resource
+   * data completely, without gaps and without overlapping each other.
+   */
+  public boolean isContiguous()
+  {
+    List<StructSchema.Section> sections = schema.getSections();
+    long[] ranges = new long[sections.size() + 1];
+    int numRanges = 0;
+    ranges[numRanges++] = ((long)offset << 32) | schema.getSize();
+    for (final StructSchema.Section s: sections) {
+      int count = getSectionCount(s);
+      if (count > 0) {
+        long size = (long)count * s.getEntry().getSize();
+        int start = getSectionOffset(s);
+        if (start < 0 || size > Integer.MAX_VALUE) {
+          return false;
+        }
+        ranges[numRanges++] = ((long)start << 32) | size;
+      }
+    }
+
+    // ranges are sorted by start offset
+    Arrays.sort(ranges, 0, numRanges);
+    long end = offset;
+    for (int i = 0; i < numRanges; i++) {
+      long start = ranges[i] >>> 32;
+      if (start != end) {
+        return false;
+      }
+      end = start + (ranges[i] & 0xffffffffL);
+    }
+    return end == buffer.limit();
+  }
+
+  @Override
+  public String toString()
+  {
+    return schema.getName() + " @ " + Integer.toHexString(offset) + "h";
+  }
+
+  private int getSectionOffset(StructSchema.Section section)
+  {
+    return offset + getValue(offset, section.getOffsetField());
+  }
+
+  private int getSectionCount(StructSchema.Section section)
+  {
+    int count = (section.getCountField() != null) ? getValue(offset, section.getCountField()) : section.getCount();
+    StructSchema.Section nested = section.getNestedSection();
+    if (nested != null) {
+      for (int i = 0, cnt = getSectionCount(nested); i < cnt; i++) {
+        count += getValue(getEntryOffset(nested, i), section.getNestedCountField());
+      }
+    }
+    return count;
+  }
+
+  private int getEntryOffset(StructSchema.Section section, int index)
+  {
+    return getSectionOffset(section) + index * section.getEntry().getSize();
+  }
+
+  private int getValue(int base, StructSchema.Field field)
+  {
+    int ofs = base + field.getOffset();
+    boolean signed = (field.getType() == StructSchema.Type.SIGNED);
+    switch (field.getSize()) {
+      case 1:
+        return signed ? buffer.get(ofs) : buffer.get(ofs) & 0xff;
+      case 2:
+        return signed ? buffer.getShort(ofs) : buffer.getShort(ofs) & 0xffff;
+      default:
+        return buffer.getInt(ofs);
+    }
+  }
+
+  private String getString(int base, StructSchema.Field field)
+  {
+    return StreamUtils.readString(buffer, base + field.getOffset(), field.getSize());
+  }
+}
@@ -234,7 +234,18 @@ private static void addScriptNames(Set<String> scriptNames, ByteBuffer buffer, i
 
   public AreResource(ResourceEntry entry) throws Exception
   {
-    super(entry);
+    this(entry, false);
+  }
+
+  /**
+   * Creates an area resource from the specified resource entry.
+   * @param entry The resource entry.
+   * @param lazy If {@code true}, structures referenced by the area header are not parsed before
+   *             they are accessed for the first time.
+   */
+  public AreResource(ResourceEntry entry, boolean lazy) throws Exception
+  {
+    super(entry, lazy);
   }
 
 //--------------------- Begin Interface Closeable ---------------------
@@ -350,6 +361,12 @@ public void write(OutputStream os) throws IOException
 
 // --------------------- End Interface Writeable ---------------------
 
+  @Override
+  protected boolean isPartialWriteSupported()
+  {
+    return true;
+  }
+
   @Override
   protected void viewerInitialized(StructViewer viewer)
   {
@@ -626,7 +643,49 @@ else if (Profile.getEngine() == Profile.Engine.IWD2) {
       addField(new Unknown(buffer, offset + 196, 88));
     }
 
-    offset = offset_actors.getValue();
+    int endoffset = readSection(buffer, bb -> readSections(bb));
+    for (int i = 0; i < getFieldCount(); i++) {
+      StructEntry entry = getField(i);
+      endoffset = Math.max(endoffset, entry.getOffset() + entry.getSize());
+    }
+    return endoffset;
+  }
+
+  // Reads all sections referenced by the area header
+  private int readSections(ByteBuffer buffer) throws Exception
+  {
+    SectionOffset offset_actors = (SectionOffset)getAttribute(ARE_OFFSET_ACTORS, false);
+    SectionCount count_actors = (SectionCount)getAttribute(ARE_NUM_ACTORS, false);
+    SectionCount count_itepoints = (SectionCount)getAttribute(ARE_NUM_TRIGGERS, false);
+    SectionOffset offset_itepoints = (SectionOffset)getAttribute(ARE_OFFSET_TRIGGERS, false);
+    SectionOffset offset_spoints = (SectionOffset)getAttribute(ARE_OFFSET_SPAWN_POINTS, false);
+    SectionCount count_spoints = (SectionCount)getAttribute(ARE_NUM_SPAWN_POINTS, false);
+    SectionOffset offset_entrances = (SectionOffset)getAttribute(ARE_OFFSET_ENTRANCES, false);
+    SectionCount count_entrances = (SectionCount)getAttribute(ARE_NUM_ENTRANCES, false);
+    SectionOffset offset_containers = (SectionOffset)getAttribute(ARE_OFFSET_CONTAINERS, false);
+    SectionCount count_containers = (SectionCount)getAttribute(ARE_NUM_CONTAINERS, false);
+    HexNumber offset_items = (HexNumber)getAttribute(ARE_OFFSET_ITEMS, false);
+    HexNumber offset_vertices = (HexNumber)getAttribute(ARE_OFFSET_VERTICES, false);
+    SectionCount count_ambients = (SectionCount)getAttribute(ARE_NUM_AMBIENTS, false);
+    SectionOffset offset_ambients = (SectionOffset)getAttribute(ARE_OFFSET_AMBIENTS, false);
+    SectionOffset offset_variables = (SectionOffset)getAttribute(ARE_OFFSET_VARIABLES, false);
+    SectionCount count_variables = (SectionCount)getAttribute(ARE_NUM_VARIABLES, false);
+    SectionCount size_exploredbitmap = (SectionCount)getAttribute(ARE_SIZE_EXPLORED_BITMAP, false);
+    SectionOffset offset_exploredbitmap = (SectionOffset)getAttribute(ARE_OFFSET_EXPLORED_BITMAP, false);
+    SectionCount count_doors = (SectionCount)getAttribute(ARE_NUM_DOORS, false);
+    SectionOffset offset_doors = (SectionOffset)getAttribute(ARE_OFFSET_DOORS, false);
+    SectionCount count_animations = (SectionCount)getAttribute(ARE_NUM_ANIMATIONS, false);
+    SectionOffset offset_animations = (SectionOffset)getAttribute(ARE_OFFSET_ANIMATIONS, false);
+    SectionCount count_tiledobjects = (SectionCount)getAttribute(ARE_NUM_TILED_OBJECTS, false);
+    SectionOffset offset_tiledobjects = (SectionOffset)getAttribute(ARE_OFFSET_TILED_OBJECTS, false);
+    SectionOffset offset_songs = (SectionOffset)getAttribute(ARE_OFFSET_SONGS, false);
+    SectionOffset offset_rest = (SectionOffset)getAttribute(ARE_OFFSET_REST_ENCOUNTERS, false);
+    SectionOffset offset_automapnote = (SectionOffset)getAttribute(ARE_OFFSET_AUTOMAP_NOTES, false);
+    SectionCount count_automapnote = (SectionCount)getAttribute(ARE_NUM_AUTOMAP_NOTES, false);
+    SectionOffset offset_protrap = (SectionOffset)getAttribute(ARE_OFFSET_PROJECTILE_TRAPS, false);
+    SectionCount count_protrap = (SectionCount)getAttribute(ARE_NUM_PROJECTILE_TRAPS, false);
+
+    int offset = offset_actors.getValue();
     for (int i = 0; i < count_actors.getValue(); i++) {
       Actor actor = new Actor(this, buffer, offset, i);
       offset = actor.getEndOffset();
@@ -888,7 +947,7 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
   {
     if (entry != null && searchOptions != null) {
       try {
-        AreResource are = new AreResource(entry);
+        AreResource are = new AreResource(entry, true);
         Actor[] actors;
         Animation[] animations;
         Item[][] items;
@@ -896,10 +955,10 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
         String key;
         Object o;
 
-        // preparing substructures
+        // preparing substructures (only if needed to avoid parsing them)
         DecNumber ofs = (DecNumber)are.getAttribute(ARE_OFFSET_ACTORS, false);
         DecNumber cnt = (DecNumber)are.getAttribute(ARE_NUM_ACTORS, false);
-        if (ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
+        if (searchOptions.hasAnyOption(SearchOptions.ARE_Actor_Character) && ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
           actors = new Actor[cnt.getValue()];
           for (int idx = 0; idx < actors.length; idx++) {
             actors[idx] = (Actor)are.getAttribute(String.format(SearchOptions.getResourceName(SearchOptions.ARE_Actor), idx), false);
@@ -910,7 +969,7 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
 
         ofs = (DecNumber)are.getAttribute(ARE_OFFSET_ANIMATIONS, false);
         cnt = (DecNumber)are.getAttribute(ARE_NUM_ANIMATIONS, false);
-        if (ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
+        if (searchOptions.hasAnyOption(SearchOptions.ARE_Animation_Animation) && ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
           animations = new Animation[cnt.getValue()];
           for (int idx = 0; idx < animations.length; idx++) {
             animations[idx] = (Animation)are.getAttribute(String.format(SearchOptions.getResourceName(SearchOptions.ARE_Animation), idx), false);
@@ -921,7 +980,7 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
 
         ofs = (DecNumber)are.getAttribute(ARE_OFFSET_CONTAINERS, false);
         cnt = (DecNumber)are.getAttribute(ARE_NUM_CONTAINERS, false);
-        if (ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
+        if (searchOptions.hasAnyOption(SearchOptions.ARE_Container_Item_Item) && ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
           items = new Item[cnt.getValue()][];
           for (int i = 0; i < cnt.getValue(); i++) {
             String label = String.format(SearchOptions.getResourceName(SearchOptions.ARE_Container), i);
@@ -217,7 +217,7 @@ public void itemStateChanged(ItemEvent event)
       ButtonPopupMenu bpmFind = (ButtonPopupMenu)event.getSource();
       if (bpmFind.getSelectedItem() == ifindall) {
         List<ResourceEntry> files = ResourceFactory.getResources("BCS");
-        files.addAll(ResourceFactory.getResources("BS"));
+        files.addAll(ResourceFactory.getResourcesView("BS"));
         new TextResourceSearcher(files, panel.getTopLevelAncestor());
       } else if (bpmFind.getSelectedItem() == ifindthis) {
         List<ResourceEntry> files = new ArrayList<ResourceEntry>(1);
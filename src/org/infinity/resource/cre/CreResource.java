@@ -709,7 +709,18 @@ public CreResource(String name) throws Exception
 
   public CreResource(ResourceEntry entry) throws Exception
   {
-    super(entry);
+    this(entry, false);
+  }
+
+  /**
+   * Creates a creature resource from the specified resource entry.
+   * @param entry The resource entry.
+   * @param lazy If {@code true}, spells, effects, items and item slots are not parsed before
+   *             they are accessed for the first time.
+   */
+  public CreResource(ResourceEntry entry, boolean lazy) throws Exception
+  {
+    super(entry, lazy);
     isChr = entry.getExtension().equalsIgnoreCase("CHR");
   }
 
@@ -831,6 +842,12 @@ public void write(OutputStream os) throws IOException
 
 // --------------------- End Interface Writeable ---------------------
 
+  @Override
+  protected boolean isPartialWriteSupported()
+  {
+    return true;
+  }
+
   @Override
   protected void viewerInitialized(StructViewer viewer)
   {
@@ -1353,7 +1370,21 @@ private int readIWD2(ByteBuffer buffer, int offset) throws Exception
     addField(effects_count);
     addField(new ResourceRef(buffer, offset + 1566, CRE_DIALOG, "DLG"));
 
-    offset = getExtraOffset() + effects_offset.getValue();
+    int endoffset = readSection(buffer, bb -> readIWD2Sections(bb));
+    return Math.max(endoffset, getFieldsEnd(offset));
+  }
+
+  // Reads effects, items and item slots
+  private int readIWD2Sections(ByteBuffer buffer) throws Exception
+  {
+    IsNumeric effect_version = (IsNumeric)getAttribute(CRE_EFFECT_VERSION, false);
+    SectionOffset itemslots_offset = (SectionOffset)getAttribute(CRE_OFFSET_ITEM_SLOTS, false);
+    SectionOffset items_offset = (SectionOffset)getAttribute(CRE_OFFSET_ITEMS, false);
+    SectionCount items_count = (SectionCount)getAttribute(CRE_NUM_ITEMS, false);
+    SectionOffset effects_offset = (SectionOffset)getAttribute(CRE_OFFSET_EFFECTS, false);
+    SectionCount effects_count = (SectionCount)getAttribute(CRE_NUM_EFFECTS, false);
+
+    int offset = getExtraOffset() + effects_offset.getValue();
     if (effect_version.getValue() == 1)
       for (int i = 0; i < effects_count.getValue(); i++) {
         Effect2 eff = new Effect2(this, buffer, offset, i);
@@ -1403,14 +1434,7 @@ private int readIWD2(ByteBuffer buffer, int offset) throws Exception
     addField(new DecNumber(buffer, offset + 100, 2, CRE_SELECTED_WEAPON_SLOT));
     addField(new DecNumber(buffer, offset + 102, 2, CRE_SELECTED_WEAPON_ABILITY));
 
-    int endoffset = offset;
-    for (int i = 0; i < getFieldCount(); i++) {
-      StructEntry entry = getField(i);
-      if (entry.getOffset() + entry.getSize() > endoffset) {
-        endoffset = entry.getOffset() + entry.getSize();
-      }
-    }
-    return endoffset;
+    return getFieldsEnd(offset);
   }
 
   ////////////////////////
@@ -1728,7 +1752,26 @@ else if (version.equalsIgnoreCase("V9.0")) {
     addField(countEffects);
     addField(new ResourceRef(buffer, offset + 708, CRE_DIALOG, "DLG"));
 
-    offset = getExtraOffset() + offsetKnownSpells.getValue();
+    int endoffset = readSection(buffer, bb -> readOtherSections(bb, version));
+    return Math.max(endoffset, getFieldsEnd(offset));
+  }
+
+  // Reads spells, effects, items and item slots
+  private int readOtherSections(ByteBuffer buffer, String version) throws Exception
+  {
+    IsNumeric effect_version = (IsNumeric)getAttribute(CRE_EFFECT_VERSION, false);
+    SectionOffset offsetKnownSpells = (SectionOffset)getAttribute(CRE_OFFSET_KNOWN_SPELLS, false);
+    SectionCount countKnownSpells = (SectionCount)getAttribute(CRE_NUM_KNOWN_SPELLS, false);
+    SectionOffset offsetMemSpellInfo = (SectionOffset)getAttribute(CRE_OFFSET_MEMORIZATION_INFO, false);
+    SectionCount countMemSpellInfo = (SectionCount)getAttribute(CRE_NUM_MEMORIZATION_INFO, false);
+    SectionOffset offsetMemSpells = (SectionOffset)getAttribute(CRE_OFFSET_MEMORIZED_SPELLS, false);
+    SectionOffset offsetItemslots = (SectionOffset)getAttribute(CRE_OFFSET_ITEM_SLOTS, false);
+    SectionOffset offsetItems = (SectionOffset)getAttribute(CRE_OFFSET_ITEMS, false);
+    SectionCount countItems = (SectionCount)getAttribute(CRE_NUM_ITEMS, false);
+    SectionOffset offsetEffects = (SectionOffset)getAttribute(CRE_OFFSET_EFFECTS, false);
+    SectionCount countEffects = (SectionCount)getAttribute(CRE_NUM_EFFECTS, false);
+
+    int offset = getExtraOffset() + offsetKnownSpells.getValue();
     for (int i = 0; i < countKnownSpells.getValue(); i++) {
       KnownSpells known = new KnownSpells(this, buffer, offset, i);
       offset = known.getEndOffset();
@@ -1886,6 +1929,12 @@ else if (version.equalsIgnoreCase("V9.0")) {
         offset += 80;
       }
     }
+    return getFieldsEnd(offset);
+  }
+
+  // Returns the end offset of the data covered by all fields, but not less than the specified offset
+  private int getFieldsEnd(int offset)
+  {
     int endoffset = offset;
     for (int i = 0; i < getFieldCount(); i++) {
       StructEntry entry = getField(i);
@@ -1949,7 +1998,7 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
   {
     if (entry != null && searchOptions != null) {
       try {
-        CreResource cre = new CreResource(entry);
+        CreResource cre = new CreResource(entry, true);
         AbstractStruct[] effects;
         AbstractStruct[] items;
         Datatype[] spells;
@@ -1957,10 +2006,20 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
         String key;
         Object o;
 
-        // preparing substructures
+        // preparing substructures (only if needed to avoid parsing them)
+        boolean useEffects = searchOptions.hasAnyOption(SearchOptions.CRE_Effect_Type1,
+                                                        SearchOptions.CRE_Effect_Type2,
+                                                        SearchOptions.CRE_Effect_Type3,
+                                                        SearchOptions.CRE_Effect_Type4);
+        boolean useItems = searchOptions.hasAnyOption(SearchOptions.CRE_Item_Item1, SearchOptions.CRE_Item_Item2,
+                                                      SearchOptions.CRE_Item_Item3, SearchOptions.CRE_Item_Item4);
+        boolean useSpells = searchOptions.hasAnyOption(SearchOptions.CRE_Spell_Spell1,
+                                                       SearchOptions.CRE_Spell_Spell2,
+                                                       SearchOptions.CRE_Spell_Spell3,
+                                                       SearchOptions.CRE_Spell_Spell4);
         DecNumber ofs = (DecNumber)cre.getAttribute(CRE_OFFSET_EFFECTS, false);
         DecNumber cnt = (DecNumber)cre.getAttribute(CRE_NUM_EFFECTS, false);
-        if (ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
+        if (useEffects && ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
           effects = new AbstractStruct[cnt.getValue()];
           for (int idx = 0; idx < cnt.getValue(); idx++) {
             String label = String.format(SearchOptions.getResourceName(SearchOptions.CRE_Effect), idx);
@@ -1972,7 +2031,7 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
 
         ofs = (DecNumber)cre.getAttribute(CRE_OFFSET_ITEMS, false);
         cnt = (DecNumber)cre.getAttribute(CRE_NUM_ITEMS, false);
-        if (ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
+        if (useItems && ofs != null && ofs.getValue() > 0 && cnt != null && cnt.getValue() > 0) {
           items = new AbstractStruct[cnt.getValue()];
           for (int idx = 0; idx < cnt.getValue(); idx++) {
             String label = String.format(SearchOptions.getResourceName(SearchOptions.CRE_Item), idx);
@@ -1982,7 +2041,9 @@ public static boolean matchSearchOptions(ResourceEntry entry, SearchOptions sear
           items = new AbstractStruct[0];
         }
 
-        if (Profile.getEngine() == Profile.Engine.IWD2) {
+        if (!useSpells) {
+          spells = new Datatype[0];
+        } else if (Profile.getEngine() == Profile.Engine.IWD2) {
           final String[] spellTypes = new String[]{
               SearchOptions.getResourceName(SearchOptions.CRE_IWD2SpellBard),
               SearchOptions.getResourceName(SearchOptions.CRE_IWD2SpellCleric),
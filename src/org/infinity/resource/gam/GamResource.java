@@ -217,6 +217,12 @@ public void write(OutputStream os) throws IOException
 
 // --------------------- End Interface Writeable ---------------------
 
+  @Override
+  protected boolean isPartialWriteSupported()
+  {
+    return true;
+  }
+
   @Override
   protected void viewerInitialized(StructViewer viewer)
   {
@@ -78,7 +78,7 @@
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.search.ReferenceSearcher;
 import org.infinity.util.DynamicArray;
-import org.infinity.util.IntegerHashMap;
+import org.infinity.util.IntegerIntHashMap;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
 
@@ -1062,9 +1062,9 @@ private byte[] convertToBamV1(boolean compressed) throws Exception
       int[] hclPalette = new int[palette.length];
       ColorConvert.toHclPalette(palette, hclPalette);
       // initializing color cache
-      IntegerHashMap<Byte> colorCache = new IntegerHashMap<Byte>(1536);
+      IntegerIntHashMap colorCache = new IntegerIntHashMap(1536);
       for (int i = 0; i < palette.length; i++) {
-        colorCache.put(palette[i] & 0x00ffffff, (byte)i);
+        colorCache.put(palette[i] & 0x00ffffff, i);
       }
       // adding transparent color index to the palette if available
       if (hasTransparency) {
@@ -1099,13 +1099,13 @@ private byte[] convertToBamV1(boolean compressed) throws Exception
                 dstData[dstIdx++] = (byte)cnt;
               } else {
                 // visible pixel
-                Byte colIdx = colorCache.get(srcData[srcIdx] & 0x00ffffff);
-                if (colIdx != null) {
+                int colIdx = colorCache.get(srcData[srcIdx] & 0x00ffffff, -1);
+                if (colIdx >= 0) {
                   dstData[dstIdx++] = (byte)(colIdx + colorShift);
                 } else {
                   int color = ColorConvert.nearestColor(srcData[srcIdx], hclPalette);
                   dstData[dstIdx++] = (byte)(color + colorShift);
-                  colorCache.put(srcData[srcIdx] & 0x00ffffff, (byte)color);
+                  colorCache.put(srcData[srcIdx] & 0x00ffffff, color);
                 }
                 srcIdx++;
               }
@@ -1121,13 +1121,13 @@ private byte[] convertToBamV1(boolean compressed) throws Exception
             byte[] dstData = new byte[img.getWidth()*img.getHeight()];
             int idx = 0, max = dstData.length;
             while (idx < max) {
-              Byte colIdx = colorCache.get(srcData[idx] & 0x00ffffff);
-              if (colIdx != null) {
+              int colIdx = colorCache.get(srcData[idx] & 0x00ffffff, -1);
+              if (colIdx >= 0) {
                 dstData[idx] = (byte)(colIdx + colorShift);
               } else {
                 int color = ColorConvert.nearestColor(srcData[idx], hclPalette);
                 dstData[idx] = (byte)(color + colorShift);
-                colorCache.put(srcData[idx] & 0x00ffffff, (byte)color);
+                colorCache.put(srcData[idx] & 0x00ffffff, color);
               }
               idx++;
             }
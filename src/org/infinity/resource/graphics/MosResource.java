@@ -50,7 +50,7 @@
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.search.ReferenceSearcher;
 import org.infinity.util.DynamicArray;
-import org.infinity.util.IntegerHashMap;
+import org.infinity.util.IntegerIntHashMap;
 import org.infinity.util.io.StreamUtils;
 
 public class MosResource implements Resource, ActionListener, PropertyChangeListener
@@ -476,7 +476,7 @@ private byte[] convertToMosV1(boolean compressed) throws Exception
       byte[] tilePalette = new byte[1024];
       byte[] tileData = new byte[64*64];
       int curPalOfs = palOfs, curTableOfs = tableOfs, curDataOfs = dataOfs;
-      IntegerHashMap<Byte> colorCache = new IntegerHashMap<Byte>(1536);   // caching RGBColor -> index
+      IntegerIntHashMap colorCache = new IntegerIntHashMap(1536);   // caching RGBColor -> index
       for (int tileIdx = 0; tileIdx < tileList.size(); tileIdx++) {
         colorCache.clear();
         if (progress.isCanceled()) {
@@ -500,20 +500,20 @@ private byte[] convertToMosV1(boolean compressed) throws Exception
             tilePalette[(i << 2) + 1] = (byte)((palette[i - 1] >>> 8) & 0xff);
             tilePalette[(i << 2) + 2] = (byte)((palette[i - 1] >>> 16) & 0xff);
             tilePalette[(i << 2) + 3] = 0;
-            colorCache.put(palette[i - 1], (byte)(i - 1));
+            colorCache.put(palette[i - 1], i - 1);
           }
           // filling pixel data
           for (int i = 0; i < pixels.length; i++) {
             if ((pixels[i] & 0xff000000) == 0) {
               tileData[i] = 0;
             } else {
-              Byte palIndex = colorCache.get(pixels[i]);
-              if (palIndex != null) {
+              int palIndex = colorCache.get(pixels[i], -1);
+              if (palIndex >= 0) {
                 tileData[i] = (byte)(palIndex + 1);
               } else {
                 byte color = (byte)ColorConvert.nearestColor(pixels[i], hclPalette);
                 tileData[i] = (byte)(color + 1);
-                colorCache.put(pixels[i], color);
+                colorCache.put(pixels[i], color & 0xff);
               }
             }
           }
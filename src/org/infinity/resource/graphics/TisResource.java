@@ -81,7 +81,7 @@
 import org.infinity.search.ReferenceSearcher;
 import org.infinity.util.BinPack2D;
 import org.infinity.util.DynamicArray;
-import org.infinity.util.IntegerHashMap;
+import org.infinity.util.IntegerIntHashMap;
 import org.infinity.util.io.StreamUtils;
 
 public class TisResource implements Resource, Closeable, ActionListener, ChangeListener,
@@ -621,7 +621,7 @@ public Status convertToPaletteTis(Path output, boolean showProgress)
           BufferedImage image =
               ColorConvert.createCompatibleImage(decoder.getTileWidth(), decoder.getTileHeight(),
                                                  Transparency.BITMASK);
-          IntegerHashMap<Byte> colorCache = new IntegerHashMap<Byte>(1800);   // caching RGBColor -> index
+          IntegerIntHashMap colorCache = new IntegerIntHashMap(1800);   // caching RGBColor -> index
           for (int tileIdx = 0; tileIdx < decoder.getTileCount(); tileIdx++) {
             colorCache.clear();
             if (progress != null && progress.isCanceled()) {
@@ -656,20 +656,20 @@ public Status convertToPaletteTis(Path output, boolean showProgress)
                 tilePalette[(i << 2) + 1] = (byte)((palette[i - 1] >>> 8) & 0xff);
                 tilePalette[(i << 2) + 2] = (byte)((palette[i - 1] >>> 16) & 0xff);
                 tilePalette[(i << 2) + 3] = 0;
-                colorCache.put(palette[i - 1], (byte)(i - 1));
+                colorCache.put(palette[i - 1], i - 1);
               }
               // filling pixel data
               for (int i = 0; i < tileData.length; i++) {
                 if ((pixels[i] & 0xff000000) == 0) {
                   tileData[i] = 0;
                 } else {
-                  Byte palIndex = colorCache.get(pixels[i]);
-                  if (palIndex != null) {
+                  int palIndex = colorCache.get(pixels[i], -1);
+                  if (palIndex >= 0) {
                     tileData[i] = (byte)(palIndex + 1);
                   } else {
                     byte color = (byte)ColorConvert.nearestColor(pixels[i], hclPalette);
                     tileData[i] = (byte)(color + 1);
-                    colorCache.put(pixels[i], color);
+                    colorCache.put(pixels[i], color & 0xff);
                   }
                 }
               }
@@ -7,7 +7,10 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 
@@ -16,7 +19,7 @@
 /**
  * Abstract base class for specifialized BIFF readers.
  */
-public abstract class AbstractBIFFReader //implements AutoCloseable
+public abstract class AbstractBIFFReader implements AutoCloseable
 {
   /** Supported BIFF archive types. */
   public enum Type {
@@ -28,6 +31,9 @@ public enum Type {
     BIFC,
   }
 
+  // File name suffix of BIFF files waiting to replace a BIFF file which is still in use
+  private static final String PENDING_SUFFIX = ".pending";
+
   // A cache for AbstractBIFFReader instances
   private static final LinkedHashMap<Path, AbstractBIFFReader> BIFF_CACHE = new LinkedHashMap<>();
 
@@ -61,12 +67,116 @@ public static ByteBuffer getTisHeader(int tileCount, int tileSize)
     return bb;
   }
 
-  /** Removes all {@code AbstractBIFFReader} entries from the cache. */
-  public static void resetCache()
+  /** Closes and removes all {@code AbstractBIFFReader} entries from the cache. */
+  public static synchronized void resetCache()
   {
+    BIFF_CACHE.values().forEach((reader) -> {
+      try {
+        reader.close();
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    });
     BIFF_CACHE.clear();
   }
 
+  /**
+   * Replaces the specified BIFF file by the given file. All BIFF readers are closed first.
+   * <p>
+   * Memory-mapped regions of a BIFF file may still be in use by resource data returned earlier.
+   * Some platforms (e.g. Windows) do not allow to replace such a file. In this case the new file
+   * is stored next to the BIFF file and swapped in the next time the BIFF file is opened while
+   * no mapped regions exist. Until then BIFF readers use the new file directly.
+   * @param source The new BIFF file. It is moved to its new location.
+   * @param target The BIFF file to replace. It does not have to exist.
+   * @return {@code true} if the BIFF file has been replaced,
+   *         {@code false} if the replacement is pending.
+   * @throws IOException On error.
+   */
+  public static synchronized boolean replace(Path source, Path target) throws IOException
+  {
+    if (source == null || target == null) {
+      throw new NullPointerException();
+    }
+
+    resetCache();
+    Path pending = getPendingFile(target);
+    try {
+      moveFile(source, target);
+    } catch (FileSystemException e) {
+      moveFile(source, pending);
+      return false;
+    }
+    // an outdated replacement must not overwrite the new BIFF file later
+    deleteFile(pending);
+    return true;
+  }
+
+  // Returns the file containing the current content of the specified BIFF file.
+  // A pending replacement is swapped in if possible, otherwise the replacement is returned.
+  private static Path resolvePending(Path file)
+  {
+    Path pending = getPendingFile(file);
+    if (Files.isRegularFile(pending)) {
+      try {
+        Files.move(pending, file, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        return pending;
+      }
+    }
+    return file;
+  }
+
+  private static Path getPendingFile(Path file)
+  {
+    return file.resolveSibling(file.getFileName().toString() + PENDING_SUFFIX);
+  }
+
+  // Moves the file. Retries after releasing unreachable mapped regions if the target is in use.
+  private static void moveFile(Path source, Path target) throws IOException
+  {
+    for (int retry = 2; ; retry--) {
+      try {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return;
+      } catch (FileSystemException e) {
+        if (retry == 0 || !releaseMappings()) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  // Deletes the file if it exists. Retries after releasing unreachable mapped regions if the file is in use.
+  private static void deleteFile(Path file) throws IOException
+  {
+    for (int retry = 2; ; retry--) {
+      try {
+        Files.deleteIfExists(file);
+        return;
+      } catch (FileSystemException e) {
+        if (retry == 0 || !releaseMappings()) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  // Mapped regions are only released when they are garbage collected.
+  // Returns false if the current thread has been interrupted.
+  private static boolean releaseMappings()
+  {
+    System.gc();
+    System.runFinalization();
+    try {
+      Thread.sleep(100);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
   // Fetches a cached AbstractBIFFReader associated of the specified path or creates a new one
   private static AbstractBIFFReader queryBIFFReader(Path file) throws Exception
   {
@@ -75,16 +185,17 @@ private static AbstractBIFFReader queryBIFFReader(Path file) throws Exception
       // get and remove an available cached entry
       retVal = BIFF_CACHE.get(file);
       if (retVal == null) {
-        Type type = detectBiffType(file);
+        Path actualFile = resolvePending(file);
+        Type type = detectBiffType(actualFile);
         switch (type) {
           case BIFF:
-            retVal = new BIFFReader(file);
+            retVal = new BIFFReader(actualFile);
             break;
           case BIF:
-            retVal = new BIFReader(file);
+            retVal = new BIFReader(actualFile);
             break;
           case BIFC:
-            retVal = new BIFCReader(file);
+            retVal = new BIFCReader(actualFile);
             break;
           default:
             throw new IOException("Unsupported BIFF type");
@@ -135,6 +246,13 @@ public int[] getResourceInfo(int locator) throws IOException
   /** Re-opens the BIFF file if it had been {@code close}d before. Does nothing if the BIFF file is open. */
   public abstract void open() throws Exception;
 
+  /**
+   * Releases file handles and mapped regions held by the BIFF reader. Resource data returned
+   * earlier stays valid. The reader can be reactivated by calling {@link #open()}.
+   */
+  @Override
+  public abstract void close() throws IOException;
+
   /** Returns the BIFF resource type. */
   public abstract Type getType();
 
@@ -4,15 +4,18 @@
 
 package org.infinity.resource.key;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 
 import org.infinity.NearInfinity;
@@ -22,13 +25,27 @@
 
 /**
  * Provides read operations for block-compressed BIFC V1.0 archives.
+ * An index of all compressed blocks is created when the archive is opened, which allows
+ * direct access to the blocks containing the requested resource data. Recently decompressed
+ * blocks are kept in a size-limited cache. Compressed data is read from the archive on demand,
+ * so no part of the file stays mapped and {@link #close()} releases it immediately.
  */
 public class BIFCReader extends AbstractBIFFReader
 {
+  // Max. amount of decompressed block data to keep in memory (in bytes)
+  private static final int BLOCK_CACHE_SIZE = 4 * 1024 * 1024;
+
   private final WindowBlocker blocker;
+  private final BlockCache blockCache = new BlockCache(BLOCK_CACHE_SIZE);
 
+  private FileChannel channel;
   private int uncSize;
   private int numFiles, numTilesets;
+  private int numBlocks;
+  private int[] blockDataOffsets;   // file offsets to compressed block data
+  private int[] blockCompSizes;     // compressed block sizes
+  private int[] blockStartOffsets;  // start offsets of blocks in decompressed data
+  private int[] blockUncSizes;      // decompressed block sizes
 
   protected BIFCReader(Path file) throws Exception
   {
@@ -40,18 +57,43 @@ protected BIFCReader(Path file) throws Exception
   @Override
   public synchronized void open() throws Exception
   {
-    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
-      String sigver = StreamUtils.readString(channel, 8);
+    if (channel != null) {
+      return;
+    }
+
+    FileChannel ch = FileChannel.open(getFile(), StandardOpenOption.READ);
+    try {
+      ByteBuffer header = readBytes(ch, 0L, 12);
+      String sigver = StreamUtils.readString(header, 0, 8);
       if (!"BIFCV1.0".equals(sigver)) {
         throw new Exception("Invalid BIFF header");
       }
 
-      this.uncSize = StreamUtils.readInt(channel);
+      this.uncSize = header.getInt(8);
       if (this.uncSize < 0) {
         throw new Exception("Invalid BIFF archive");
       }
+      this.channel = ch;
+      initBlocks();
+      init();
+    } catch (Exception e) {
+      channel = null;
+      ch.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException
+  {
+    blockCache.clear();
+    if (channel != null) {
+      try {
+        channel.close();
+      } finally {
+        channel = null;
+      }
     }
-    init();
   }
 
   @Override
@@ -102,11 +144,8 @@ public ByteBuffer getResourceBuffer(int locator) throws IOException
       blocker.setBlocked(true);
     }
 
-    try (InputStream is = new BifcInputStream(
-        new BufferedInputStream(
-            Files.newInputStream(getFile(), StandardOpenOption.READ)),
-        entry.offset, size)) {
-      StreamUtils.readBytes(is, buffer);
+    try {
+      readData(entry.offset, buffer.array(), buffer.position(), size);
     } finally {
       blocker.setBlocked(false);
     }
@@ -126,27 +165,68 @@ public InputStream getResourceAsStream(int locator) throws IOException
     if (entry.isTile) {
       ByteBuffer header = getTisHeader(entry.count, entry.size);
       InputStream is1 = new ByteBufferInputStream(header);
-      @SuppressWarnings("resource")
-      InputStream is2 = new BifcInputStream(
-          new BufferedInputStream(
-              Files.newInputStream(getFile(), StandardOpenOption.READ)),
-          entry.offset, entry.count*entry.size);
+      InputStream is2 = new BifcInputStream(entry.offset, entry.count*entry.size);
       InputStream is = new SequenceInputStream(is1, is2);
       return is;
     } else {
-      return new BifcInputStream(
-          new BufferedInputStream(
-              Files.newInputStream(getFile(), StandardOpenOption.READ)),
-          entry.offset, entry.size);
+      return new BifcInputStream(entry.offset, entry.size);
     }
   }
 
 
+  // Creates the index of compressed blocks
+  private void initBlocks() throws Exception
+  {
+    int capacity = 64;
+    int[] dataOffsets = new int[capacity];
+    int[] compSizes = new int[capacity];
+    int[] startOffsets = new int[capacity];
+    int[] uncSizes = new int[capacity];
+
+    int count = 0;
+    int fileOfs = 12;
+    int curOfs = 0;
+    long limit = channel.size();
+    ByteBuffer blockHeader = StreamUtils.getByteBuffer(8);
+    while (curOfs < uncSize && fileOfs + 8 <= limit) {
+      blockHeader.clear();
+      readFully(channel, blockHeader, fileOfs);
+      int blockUncSize = blockHeader.getInt(0);
+      int blockCompSize = blockHeader.getInt(4);
+      if (blockUncSize < 0 || blockCompSize < 0 || (long)fileOfs + 8 + blockCompSize > limit) {
+        throw new Exception("Invalid BIFF block at offset " + fileOfs);
+      }
+      if (count == capacity) {
+        capacity *= 2;
+        dataOffsets = Arrays.copyOf(dataOffsets, capacity);
+        compSizes = Arrays.copyOf(compSizes, capacity);
+        startOffsets = Arrays.copyOf(startOffsets, capacity);
+        uncSizes = Arrays.copyOf(uncSizes, capacity);
+      }
+      dataOffsets[count] = fileOfs + 8;
+      compSizes[count] = blockCompSize;
+      startOffsets[count] = curOfs;
+      uncSizes[count] = blockUncSize;
+      count++;
+      curOfs += blockUncSize;
+      fileOfs += 8 + blockCompSize;
+    }
+
+    if (curOfs < uncSize) {
+      throw new Exception("Unexpected end of BIFF archive");
+    }
+
+    this.numBlocks = count;
+    this.blockDataOffsets = dataOffsets;
+    this.blockCompSizes = compSizes;
+    this.blockStartOffsets = startOffsets;
+    this.blockUncSizes = uncSizes;
+    blockCache.clear();
+  }
+
   private void init() throws Exception
   {
-    try (InputStream is = new BifcInputStream(
-        new BufferedInputStream(
-            Files.newInputStream(getFile(), StandardOpenOption.READ)), 0, -1)) {
+    try (InputStream is = new BifcInputStream(0, -1)) {
       int curOfs = 0;
       String sigver = StreamUtils.readString(is, 8);
       if (!"BIFFV1  ".equals(sigver)) {
@@ -188,39 +268,165 @@ private void init() throws Exception
     }
   }
 
+  /**
+   * Copies decompressed data into the specified array.
+   * @param offset Start offset in decompressed data.
+   * @param buf The destination array.
+   * @param bufOfs Start offset in the destination array.
+   * @param len Number of bytes to copy.
+   */
+  private void readData(int offset, byte[] buf, int bufOfs, int len) throws IOException
+  {
+    if (offset < 0 || len < 0 || (long)offset + len > uncSize) {
+      throw new IOException("Resource data out of bounds");
+    }
+
+    int index = findBlock(offset);
+    while (len > 0) {
+      byte[] block = getBlock(index);
+      int blockOfs = offset - blockStartOffsets[index];
+      int n = Math.min(len, blockUncSizes[index] - blockOfs);
+      System.arraycopy(block, blockOfs, buf, bufOfs, n);
+      offset += n;
+      bufOfs += n;
+      len -= n;
+      index++;
+    }
+  }
+
+  // Returns the index of the block containing the specified offset in decompressed data
+  private int findBlock(int offset)
+  {
+    int index = Arrays.binarySearch(blockStartOffsets, 0, numBlocks, offset);
+    if (index < 0) {
+      index = ~index - 1;
+    }
+    // skipping empty blocks
+    while (index < numBlocks - 1 && offset >= blockStartOffsets[index] + blockUncSizes[index]) {
+      index++;
+    }
+    return Math.max(0, index);
+  }
+
+  // Returns the decompressed data of the specified block
+  private byte[] getBlock(int index) throws IOException
+  {
+    byte[] retVal = blockCache.get(index);
+    if (retVal == null) {
+      FileChannel ch;
+      synchronized (this) {
+        if (channel == null) {
+          try {
+            open();
+          } catch (Exception e) {
+            throw new IOException("Error opening " + getFile(), e);
+          }
+        }
+        ch = channel;
+      }
+
+      byte[] inBuffer = readBytes(ch, blockDataOffsets[index], blockCompSizes[index]).array();
+
+      retVal = new byte[blockUncSizes[index]];
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(inBuffer);
+        if (inflater.inflate(retVal) != retVal.length) {
+          throw new IOException("Unexpected end of decompressed data");
+        }
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      } finally {
+        inflater.end();
+      }
+      blockCache.put(index, retVal);
+    }
+    return retVal;
+  }
+
+  // Reads the specified number of bytes from the given file position
+  private static ByteBuffer readBytes(FileChannel ch, long position, int size) throws IOException
+  {
+    ByteBuffer buffer = StreamUtils.getByteBuffer(size);
+    readFully(ch, buffer, position);
+    return buffer;
+  }
+
+  // Fills the remaining space of the buffer with data from the given file position
+  private static void readFully(FileChannel ch, ByteBuffer buffer, long position) throws IOException
+  {
+    int start = buffer.position();
+    while (buffer.hasRemaining()) {
+      int n = ch.read(buffer, position + buffer.position() - start);
+      if (n < 0) {
+        throw new IOException("Unexpected end of BIFF archive");
+      }
+    }
+    buffer.flip();
+  }
+
 
 //-------------------------- INNER CLASSES --------------------------
 
-  private static class BifcInputStream extends InputStream
+  // A thread-safe LRU cache for decompressed blocks, limited by the total amount of data
+  private static class BlockCache
   {
-    private final Inflater inflater;
+    private final LinkedHashMap<Integer, byte[]> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxSize;
 
-    private InputStream input;  // BIFC archive as input stream
-    private int endOffset;      // the end-of-stream offset for this InputStream in decompressed data
-    private int position;       // current absolute position in decompressed data
-    private byte[] inBuffer;    // buffer for compressed data of current block
-    private byte[] outBuffer;   // buffer for decompressed data of current block
-    private int bufOfs;         // contains relative offset in current outBuffer
-    private int bufLen;         // contains actual number of bytes of data in current outBuffer
+    private int curSize;
+
+    public BlockCache(int maxSize)
+    {
+      this.maxSize = maxSize;
+      this.curSize = 0;
+    }
+
+    public synchronized byte[] get(int index)
+    {
+      return map.get(Integer.valueOf(index));
+    }
+
+    public synchronized void put(int index, byte[] data)
+    {
+      byte[] old = map.put(Integer.valueOf(index), data);
+      if (old != null) {
+        curSize -= old.length;
+      }
+      curSize += data.length;
+
+      // removing least recently used blocks
+      Iterator<Map.Entry<Integer, byte[]>> iter = map.entrySet().iterator();
+      while (curSize > maxSize && map.size() > 1 && iter.hasNext()) {
+        Map.Entry<Integer, byte[]> e = iter.next();
+        curSize -= e.getValue().length;
+        iter.remove();
+      }
+    }
+
+    public synchronized void clear()
+    {
+      map.clear();
+      curSize = 0;
+    }
+  }
+
+  // Provides sequential access to a section of decompressed BIFF data
+  private class BifcInputStream extends InputStream
+  {
+    private final int endOffset;  // the end-of-stream offset for this InputStream in decompressed data
+
+    private int position;         // current absolute position in decompressed data
+    private boolean closed;
 
     /**
-     * Constructs an InputStream over a specific section of a BIFC archive.
-     * @param is The BIFC archive as input stream.
+     * Constructs an InputStream over a specific section of the BIFC archive.
      * @param offset Start offset in decompressed BIFF data.
      * @param size Size of decompressed BIFF data to map.
      *             Specify -1 to map until the end of decompressed data.
      */
-    public BifcInputStream(InputStream is, int offset, int size) throws IOException
+    public BifcInputStream(int offset, int size) throws IOException
     {
-      if (is == null) {
-        throw new NullPointerException();
-      }
-      this.input = is;
-      String sigver = StreamUtils.readString(this.input, 8);
-      if (!"BIFCV1.0".equals(sigver)) {
-        throw new IOException("Unsupported source BIFF signature");
-      }
-      int uncSize = StreamUtils.readInt(this.input);
       if (offset < 0 || offset > uncSize) {
         throw new IOException("Start offset is out of bounds");
       }
@@ -231,11 +437,8 @@ public BifcInputStream(InputStream is, int offset, int size) throws IOException
         throw new IOException("Size is out of bounds");
       }
       this.endOffset = offset + size;
-      this.position = 0;
-      this.inflater = new Inflater();
-      this.bufOfs = 0;
-      this.bufLen = 0;
-      skip(offset);
+      this.position = offset;
+      this.closed = false;
     }
 
     @Override
@@ -243,7 +446,7 @@ public int read() throws IOException
     {
       if (available() > 0) {
         final byte[] b = {0};
-        if (getData(b, 0, 1) == 1) {
+        if (read(b, 0, 1) == 1) {
           return b[0] & 0xff;
         }
       }
@@ -251,134 +454,44 @@ public int read() throws IOException
     }
 
     @Override
-    public int read(byte b[], int off, int len) throws IOException
+    public synchronized int read(byte b[], int off, int len) throws IOException
     {
-      if (available() > 0) {
-        return getData(b, off, len);
+      if (closed) {
+        throw new IOException("Stream not open");
       }
-      return -1;
+      if (off < 0 || len < 0 || off + len > b.length) {
+        throw new IndexOutOfBoundsException();
+      }
+      if (len == 0) {
+        return 0;
+      }
+      len = Math.min(len, endOffset - position);
+      if (len <= 0) {
+        return -1;
+      }
+      readData(position, b, off, len);
+      position += len;
+      return len;
     }
 
     @Override
-    public long skip(long n) throws IOException
+    public synchronized long skip(long n) throws IOException
     {
-      return Math.max(0, skipData((int)n));
+      int len = (int)Math.max(0L, Math.min(n, endOffset - position));
+      position += len;
+      return len;
     }
 
     @Override
-    public int available() throws IOException
+    public synchronized int available() throws IOException
     {
-      return endOffset - position;
+      return closed ? 0 : endOffset - position;
     }
 
     @Override
-    public void close() throws IOException
-    {
-      if (isOpen()) {
-        try {
-          input.close();
-        } finally {
-          synchronized (this) {
-            input = null;
-          }
-        }
-      }
-    }
-
-    private boolean isOpen()
+    public synchronized void close() throws IOException
     {
-      return (input != null);
-    }
-
-    // Writes decompressed data into "buf". Returns actual number of decompressed bytes.
-    // Updates internal data position. Returns -1 on error or end-of-stream.
-    private synchronized int getData(byte[] buf, int ofs, int len) throws IOException
-    {
-      ofs = Math.max(0, ofs);
-      len = Math.max(0, Math.min(len, endOffset - position));
-      if (!isOpen() || position >= endOffset ||
-          buf == null || ofs > buf.length || ofs+len > buf.length) {
-        return -1;
-      }
-
-      int retVal = 0;
-      while (len > 0) {
-        try {
-          updateBuffer(false, -1);
-        } catch (Exception e) {
-          throw new IOException(e.getMessage());
-        }
-
-        // copy data into output buffer
-        int n = Math.min(bufLen - bufOfs, len);
-        System.arraycopy(outBuffer, bufOfs, buf, ofs, n);
-        retVal += n;
-        bufOfs += n;
-        ofs += n;
-        len -= n;
-      }
-      position += retVal;
-      return retVal;
-    }
-
-    // Skips the specified number of decompressed bytes. Returns -1 on error or end-of-stream.
-    private synchronized int skipData(int len) throws IOException
-    {
-      len = Math.max(0, Math.min(len, endOffset - position));
-      if (!isOpen() || position >= endOffset) {
-        return -1;
-      }
-
-      int retVal = 0;
-      while (len > 0) {
-        try {
-          updateBuffer(true, len);
-        } catch (Exception e) {
-          throw new IOException(e);
-        }
-
-        int n = Math.min(len, bufLen - bufOfs);
-        retVal += n;
-        bufOfs += n;
-        len -= n;
-      }
-      position += retVal;
-      return retVal;
-    }
-
-    // Decompress next block of data.
-    // if skipOnly == true, then the next compressed block is skipped if
-    //   (condition < 0) || (condition >= uncompressed block size)
-    private boolean updateBuffer(boolean skipOnly, int condition) throws Exception
-    {
-      if (bufLen == 0 || bufOfs >= bufLen) {
-        int uncSize = StreamUtils.readInt(input);
-        int compSize = StreamUtils.readInt(input);
-        if (skipOnly && (condition < 0 || condition >= uncSize)) {
-          int remaining = compSize;
-          while (remaining > 0) {
-            long n = input.skip(remaining);
-            remaining -= n;
-          }
-        } else {
-          if (inBuffer == null || inBuffer.length < compSize) {
-            inBuffer = new byte[compSize];
-          }
-          if (outBuffer == null || outBuffer.length < uncSize) {
-            outBuffer = new byte[uncSize];
-          }
-          input.read(inBuffer, 0, compSize);
-          inflater.reset();
-          inflater.setInput(inBuffer, 0, compSize);
-          if (inflater.inflate(outBuffer, 0, uncSize) != uncSize) {
-            throw new Exception("Unexpected end of decompressed data");
-          }
-        }
-        bufLen = uncSize;
-        bufOfs = 0;
-        return true;
-      }
-      return false;
+      closed = true;
     }
   }
 }
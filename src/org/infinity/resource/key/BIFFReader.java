@@ -8,6 +8,7 @@
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
@@ -21,11 +22,14 @@
 
 /**
  * Provides read operations for uncompressed BIFF V1 archives.
+ * The archive is memory-mapped once and kept open until {@link #close()} is called.
  */
 public class BIFFReader extends AbstractBIFFReader
 {
   private final WindowBlocker blocker;
 
+  private FileChannel channel;
+  private MappedByteBuffer mappedBuffer;
   private int numFiles, numTilesets;
 
   protected BIFFReader(Path file) throws Exception
@@ -38,19 +42,47 @@ protected BIFFReader(Path file) throws Exception
   @Override
   public synchronized void open() throws Exception
   {
-    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
-      String sigver = StreamUtils.readString(channel, 8);
+    if (mappedBuffer != null) {
+      return;
+    }
+
+    FileChannel ch = FileChannel.open(getFile(), StandardOpenOption.READ);
+    try {
+      MappedByteBuffer mb = ch.map(MapMode.READ_ONLY, 0L, ch.size());
+      mb.order(ByteOrder.LITTLE_ENDIAN);
+      if (mb.limit() < 20) {
+        throw new Exception("Invalid BIFF header");
+      }
+      String sigver = StreamUtils.readString(mb, 0, 8);
       if (!"BIFFV1  ".equals(sigver)) {
         throw new Exception("Invalid BIFF header");
       }
-      this.numFiles = StreamUtils.readInt(channel);
-      this.numTilesets = StreamUtils.readInt(channel);
-      int ofsFiles = StreamUtils.readInt(channel);
-      ByteBuffer bb = StreamUtils.getByteBuffer(this.numFiles*0x10 + this.numTilesets*0x14);
-      channel.position(ofsFiles);
-      channel.read(bb);
-      bb.position(0);
+      int numFiles = mb.getInt(8);
+      int numTilesets = mb.getInt(12);
+      int ofsFiles = mb.getInt(16);
+      ByteBuffer bb = getSlice(mb, ofsFiles, numFiles*0x10 + numTilesets*0x14);
+      resetEntries();
       init(bb, numFiles, numTilesets);
+      this.numFiles = numFiles;
+      this.numTilesets = numTilesets;
+      this.channel = ch;
+      this.mappedBuffer = mb;
+    } catch (Exception e) {
+      ch.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException
+  {
+    mappedBuffer = null;
+    if (channel != null) {
+      try {
+        channel.close();
+      } finally {
+        channel = null;
+      }
     }
   }
 
@@ -82,6 +114,10 @@ public int getBIFFSize()
     return -1;
   }
 
+  /**
+   * Returns the requested resource. Regular resources are returned as read-only views into the
+   * mapped BIFF archive. Tileset resources are copied into a new buffer to include the TIS header.
+   */
   @Override
   public ByteBuffer getResourceBuffer(int locator) throws IOException
   {
@@ -90,30 +126,24 @@ public ByteBuffer getResourceBuffer(int locator) throws IOException
       throw new IOException("Resource not found");
     }
 
-    ByteBuffer buffer;
-    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
-      channel.position(entry.offset);
-      if (entry.isTile) {
-        ByteBuffer header = getTisHeader(entry.count, entry.size);
-        int remaining = entry.count*entry.size + header.limit();
-        if (remaining > 1000000) {
-          blocker.setBlocked(true);
-        }
-        try {
-          buffer = StreamUtils.getByteBuffer(remaining);
-          StreamUtils.copyBytes(header, buffer, header.limit());
-          remaining -= header.limit();
-          while (channel.read(buffer) > 0);
-        } finally {
-          blocker.setBlocked(false);
-        }
-      } else {
-        buffer = StreamUtils.getByteBuffer(entry.size);
-        while (channel.read(buffer) > 0);
+    ByteBuffer mb = getMappedBuffer();
+    if (entry.isTile) {
+      ByteBuffer header = getTisHeader(entry.count, entry.size);
+      int size = entry.count*entry.size;
+      if (size + header.limit() > 1000000) {
+        blocker.setBlocked(true);
       }
-
-      buffer.position(0);
-      return buffer;
+      try {
+        ByteBuffer buffer = StreamUtils.getByteBuffer(size + header.limit());
+        StreamUtils.copyBytes(header, buffer, header.limit());
+        buffer.put(getSlice(mb, entry.offset, size));
+        buffer.position(0);
+        return buffer;
+      } finally {
+        blocker.setBlocked(false);
+      }
+    } else {
+      return getSlice(mb, entry.offset, entry.size);
     }
   }
 
@@ -125,18 +155,39 @@ public InputStream getResourceAsStream(int locator) throws IOException
       throw new IOException("Resource not found");
     }
 
-    try (FileChannel channel = FileChannel.open(getFile(), StandardOpenOption.READ)) {
-      int size = entry.isTile ? entry.count*entry.size : entry.size;
-      ByteBuffer buffer = channel.map(MapMode.READ_ONLY, entry.offset, size).order(ByteOrder.LITTLE_ENDIAN);
-      InputStream is;
-      if (entry.isTile) {
-        ByteBuffer header = getTisHeader(entry.count, entry.size);
-        is = new ByteBufferInputStream(header, buffer);
-      } else {
-        is = new ByteBufferInputStream(buffer);
+    int size = entry.isTile ? entry.count*entry.size : entry.size;
+    ByteBuffer buffer = getSlice(getMappedBuffer(), entry.offset, size);
+    if (entry.isTile) {
+      ByteBuffer header = getTisHeader(entry.count, entry.size);
+      return new ByteBufferInputStream(header, buffer);
+    } else {
+      return new ByteBufferInputStream(buffer);
+    }
+  }
+
+  // Returns the mapped BIFF archive, reopens it if needed
+  private synchronized ByteBuffer getMappedBuffer() throws IOException
+  {
+    if (mappedBuffer == null) {
+      try {
+        open();
+      } catch (Exception e) {
+        throw new IOException("Error opening " + getFile(), e);
       }
-      return is;
     }
+    return mappedBuffer;
+  }
+
+  // Returns a little-endian view of the specified region of the source buffer
+  private static ByteBuffer getSlice(ByteBuffer buffer, int offset, int size) throws IOException
+  {
+    if (offset < 0 || size < 0 || (long)offset + size > buffer.limit()) {
+      throw new IOException("Resource data out of bounds");
+    }
+    ByteBuffer bb = buffer.duplicate();
+    bb.position(offset);
+    bb.limit(offset + size);
+    return bb.slice().order(ByteOrder.LITTLE_ENDIAN);
   }
 
   private void init(ByteBuffer buffer, int numFiles, int numTilesets) throws IOException
@@ -58,14 +58,30 @@ public BIFFResourceEntry(Path keyFile, ByteBuffer buffer, int offset, int string
     this.keyFile = keyFile;
     this.resourceName = StreamUtils.readString(buffer, offset, stringLength);
     this.type = buffer.getShort() & 0xffff;
+    this.extension = getExtension(type);
+    this.locator = buffer.getInt();
+  }
 
+  BIFFResourceEntry(Path keyFile, String resourceName, int type, int locator)
+  {
+    if (keyFile == null || resourceName == null) {
+      throw new NullPointerException();
+    }
+    this.keyFile = keyFile;
+    this.resourceName = resourceName;
+    this.type = type;
+    this.extension = getExtension(type);
+    this.locator = locator;
+  }
+
+  // Returns the extension string for the specified resource type
+  private static String getExtension(int type)
+  {
     String ext = ResourceFactory.getKeyfile().getExtension(type);
     if (ext == null) {
       ext = "Unknown (" + Integer.toHexString(type) + "h)";
     }
-    this.extension = ext;
-
-    this.locator = buffer.getInt();
+    return ext;
   }
 
 // --------------------- Begin Interface Writeable ---------------------
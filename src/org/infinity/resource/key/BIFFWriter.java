@@ -31,6 +31,8 @@
   private final Map<ResourceEntry, Boolean> tileResources = new HashMap<ResourceEntry, Boolean>();
   private final int format;
 
+  private boolean replacementPending;
+
   private static byte[] compress(byte data[])
   {
     Deflater deflater = new Deflater();
@@ -119,8 +121,19 @@ public void addResource(ResourceEntry resourceEntry, boolean ignoreoverride)
     }
   }
 
+  /**
+   * Returns whether the last {@link #write()} could not replace the BIFF file because it was still
+   * in use. The new BIFF file is used by Near Infinity right away, but it is swapped in only the next
+   * time the game is opened.
+   */
+  public boolean isReplacementPending()
+  {
+    return replacementPending;
+  }
+
   public void write() throws Exception
   {
+    replacementPending = false;
     Path biffPath = FileManager.query(Profile.getGameRoot(), "data");
     if (biffPath == null || !Files.isDirectory(biffPath)) {
       throw new Exception("No BIFF folder found.");
@@ -137,10 +150,7 @@ public void write() throws Exception
         if (realFile == null) {
           realFile = FileManager.query(Profile.getGameRoot(), bifEntry.toString());
         }
-        if (Files.isRegularFile(realFile)) {
-          Files.delete(realFile);
-        }
-        Files.move(dummyFile, realFile);
+        replacementPending = !AbstractBIFFReader.replace(dummyFile, realFile);
       } else if (format == BIFFEditor.BIF) {
         compressedFile = Files.createTempFile(biffPath, "_dummy", ".cbf");
         compressBIF(dummyFile, compressedFile, bifEntry.toString());
@@ -150,10 +160,7 @@ public void write() throws Exception
         if (realFile == null) {
           realFile = FileManager.query(Profile.getGameRoot(), bifEntry.toString());
         }
-        if (Files.isRegularFile(realFile)) {
-          Files.delete(realFile);
-        }
-        Files.move(compressedFile, realFile);
+        replacementPending = !AbstractBIFFReader.replace(compressedFile, realFile);
       } else if (format == BIFFEditor.BIFC) {
         compressedFile = Files.createTempFile(biffPath, "_dummy", ".bif");
         compressBIFC(dummyFile, compressedFile);
@@ -163,10 +170,7 @@ public void write() throws Exception
         if (realFile == null) {
           realFile = FileManager.query(Profile.getRootFolders(), bifEntry.toString());
         }
-        if (Files.isRegularFile(realFile)) {
-          Files.delete(realFile);
-        }
-        Files.move(compressedFile, realFile);
+        replacementPending = !AbstractBIFFReader.replace(compressedFile, realFile);
       }
     } finally {
       if (dummyFile != null && Files.isRegularFile(dummyFile)) {
@@ -63,6 +63,12 @@ public synchronized void open() throws Exception
     init();
   }
 
+  @Override
+  public synchronized void close() throws IOException
+  {
+    mappedBuffer = null;
+  }
+
   @Override
   public Type getType()
   {
@@ -175,8 +181,15 @@ private void init() throws Exception
   }
 
   // Returns an inflater input stream
-  private InflaterInputStream getInflaterInputStream() throws IOException
+  private synchronized InflaterInputStream getInflaterInputStream() throws IOException
   {
+    if (mappedBuffer == null) {
+      try {
+        open();
+      } catch (Exception e) {
+        throw new IOException("Error opening " + getFile(), e);
+      }
+    }
     return new InflaterInputStream(new ByteBufferInputStream(mappedBuffer.duplicate()));
   }
 }
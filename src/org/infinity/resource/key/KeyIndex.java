@@ -0,0 +1,260 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.infinity.util.Misc;
+
+/**
+ * A compact index of the resource entries defined in one or more KEY files.
+ * Resource names, types and locators are stored in parallel primitive arrays and can be looked
+ * up by a hash over the packed 8-byte resource name and type. {@link BIFFResourceEntry} objects
+ * are created on first request only.
+ */
+final class KeyIndex
+{
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final List<Path> keyFiles = new ArrayList<>();
+
+  private long[] resrefs;   // resource names as packed 8-byte values (original case)
+  private short[] types;    // resource types
+  private int[] locators;   // resource locators
+  private byte[] keys;      // index into keyFiles list
+  private BIFFResourceEntry[] entries;  // lazily created resource entries
+  private int[] table;      // open addressing hash table: stores index + 1, 0 = empty slot
+  private int size;
+
+  public KeyIndex()
+  {
+    clear();
+  }
+
+  /** Removes all entries from the index. */
+  public void clear()
+  {
+    keyFiles.clear();
+    resrefs = new long[INITIAL_CAPACITY];
+    types = new short[INITIAL_CAPACITY];
+    locators = new int[INITIAL_CAPACITY];
+    keys = new byte[INITIAL_CAPACITY];
+    entries = new BIFFResourceEntry[INITIAL_CAPACITY];
+    table = new int[INITIAL_CAPACITY * 2];
+    size = 0;
+  }
+
+  /** Returns the number of unique resources in the index. */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Adds all resource entries defined in the specified KEY file data.
+   * Existing entries of same name and type are replaced.
+   * @param keyFile Path of the KEY file.
+   * @param buffer KEY file data.
+   * @param offset Start offset of the resource entry table.
+   * @param count Number of resource entries.
+   */
+  public void addEntries(Path keyFile, ByteBuffer buffer, int offset, int count)
+  {
+    int keyIndex = keyFiles.indexOf(keyFile);
+    if (keyIndex < 0) {
+      keyFiles.add(keyFile);
+      keyIndex = keyFiles.size() - 1;
+    }
+
+    ensureCapacity(size + count);
+    for (int i = 0, ofs = offset; i < count; i++, ofs += 14) {
+      long resref = buffer.getLong(ofs);
+      short type = buffer.getShort(ofs + 8);
+      int locator = buffer.getInt(ofs + 10);
+      put(normalize(resref), type, locator, (byte)keyIndex);
+    }
+  }
+
+  /**
+   * Returns the resource entry of the specified name and type.
+   * Returns {@code null} if the resource does not exist.
+   */
+  public BIFFResourceEntry get(String name, int type)
+  {
+    if (name != null && type >= 0) {
+      long resref = toResRef(name);
+      if (resref != -1L) {
+        int index = indexOf(resref, (short)type);
+        if (index >= 0) {
+          return getEntry(index);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns all resource entries in the index, roughly sorted by resource name.
+   * Creates missing {@link BIFFResourceEntry} instances as needed.
+   */
+  public List<BIFFResourceEntry> getEntries()
+  {
+    // sorting indices by resource name
+    long[] order = new long[size];
+    for (int i = 0; i < size; i++) {
+      // upper 32 bits: first 4 characters of name in lexicographic order
+      order[i] = ((Long.reverseBytes(upper(resrefs[i])) >>> 32) << 32) | i;
+    }
+    Arrays.sort(order);
+
+    List<BIFFResourceEntry> list = new ArrayList<>(size);
+    for (final long value: order) {
+      list.add(getEntry((int)(value & 0xffffffffL)));
+    }
+    return list;
+  }
+
+  // Returns the resource entry at the specified index
+  private synchronized BIFFResourceEntry getEntry(int index)
+  {
+    BIFFResourceEntry entry = entries[index];
+    if (entry == null) {
+      entry = new BIFFResourceEntry(keyFiles.get(keys[index] & 0xff), toName(resrefs[index]),
+                                    types[index] & 0xffff, locators[index]);
+      entries[index] = entry;
+    }
+    return entry;
+  }
+
+  private void put(long resref, short type, int locator, byte keyIndex)
+  {
+    int slot = findSlot(resref, type);
+    int index = table[slot] - 1;
+    if (index < 0) {
+      index = size++;
+      table[slot] = index + 1;
+    }
+    resrefs[index] = resref;
+    types[index] = type;
+    locators[index] = locator;
+    keys[index] = keyIndex;
+    entries[index] = null;
+  }
+
+  private int indexOf(long resref, short type)
+  {
+    return table[findSlot(resref, type)] - 1;
+  }
+
+  // Returns the slot of the matching or first free table entry
+  private int findSlot(long resref, short type)
+  {
+    long upper = upper(resref);
+    int mask = table.length - 1;
+    int slot = hash(upper, type) & mask;
+    while (table[slot] != 0) {
+      int index = table[slot] - 1;
+      if (types[index] == type && upper(resrefs[index]) == upper) {
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void ensureCapacity(int capacity)
+  {
+    if (capacity > resrefs.length) {
+      int newCapacity = Math.max(capacity, resrefs.length * 2);
+      resrefs = Arrays.copyOf(resrefs, newCapacity);
+      types = Arrays.copyOf(types, newCapacity);
+      locators = Arrays.copyOf(locators, newCapacity);
+      keys = Arrays.copyOf(keys, newCapacity);
+      entries = Arrays.copyOf(entries, newCapacity);
+    }
+
+    // hash table load factor is kept at or below 0.5
+    if (capacity * 2 > table.length) {
+      int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+      table = new int[tableSize];
+      int mask = tableSize - 1;
+      for (int i = 0; i < size; i++) {
+        int slot = hash(upper(resrefs[i]), types[i]) & mask;
+        while (table[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = i + 1;
+      }
+    }
+  }
+
+  private static int hash(long upper, short type)
+  {
+    long h = (upper ^ (upper >>> 29) ^ type) * 0x9e3779b97f4a7c15L;
+    return (int)(h ^ (h >>> 32));
+  }
+
+  // Clears all bytes following the first null byte of a packed little-endian resource name
+  private static long normalize(long resref)
+  {
+    for (int i = 0; i < 8; i++) {
+      if (((resref >>> (i * 8)) & 0xff) == 0) {
+        return (i == 0) ? 0L : resref & (-1L >>> (64 - i * 8));
+      }
+    }
+    return resref;
+  }
+
+  // Converts all lower case ASCII letters of the packed resource name to upper case
+  private static long upper(long resref)
+  {
+    long retVal = resref;
+    for (int i = 0; i < 8; i++) {
+      int shift = i * 8;
+      int ch = (int)(resref >>> shift) & 0xff;
+      if (ch >= 'a' && ch <= 'z') {
+        retVal &= ~(0x20L << shift);
+      }
+    }
+    return retVal;
+  }
+
+  // Converts a resource name (without extension) into a packed 8-byte value.
+  // Returns -1 if the name cannot be represented as resref.
+  private static long toResRef(String name)
+  {
+    byte[] buf = name.getBytes(Misc.CHARSET_DEFAULT);
+    if (buf.length > 8) {
+      return -1L;
+    }
+    long retVal = 0L;
+    for (int i = 0; i < buf.length; i++) {
+      if (buf[i] == 0) {
+        return -1L;
+      }
+      retVal |= (buf[i] & 0xffL) << (i * 8);
+    }
+    return retVal;
+  }
+
+  // Converts a packed 8-byte resource name into a string
+  private static String toName(long resref)
+  {
+    byte[] buf = new byte[8];
+    int len = 0;
+    while (len < 8) {
+      byte b = (byte)(resref >>> (len * 8));
+      if (b == 0) {
+        break;
+      }
+      buf[len++] = b;
+    }
+    return new String(buf, 0, len, Misc.CHARSET_DEFAULT);
+  }
+}
@@ -17,7 +17,6 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TreeMap;
 
 import javax.swing.ImageIcon;
 import javax.swing.SwingUtilities;
@@ -25,7 +24,6 @@
 import org.infinity.icon.Icons;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.util.IntegerHashMap;
-import org.infinity.util.Misc;
 import org.infinity.util.io.StreamUtils;
 
 public class Keyfile
@@ -100,8 +98,8 @@
   // Map of key file path => list of associated key files
   private final Map<Path, List<BIFFEntry>> biffEntries = new HashMap<>();
 
-  // Sorted map of effective BIFFResourceEntry objects
-  private final TreeMap<String, BIFFResourceEntry> resourceEntries = new TreeMap<>(Misc.getIgnoreCaseComparator());
+  // Compact index of effective resource entries
+  private final KeyIndex resourceIndex = new KeyIndex();
 
 
   public Keyfile(Path keyFile) throws IOException
@@ -265,7 +263,12 @@ public void populateResourceTree(ResourceTreeModel treeModel) throws Exception
     if (treeModel != null) {
       init();
 
-      resourceEntries.values().forEach((entry) -> treeModel.addResourceEntry(entry, entry.getExtension(), true));
+      // entries are grouped by type and added to the tree in a single step per folder
+      Map<String, List<ResourceEntry>> buckets = new HashMap<>();
+      resourceIndex.getEntries().forEach((entry) -> {
+        buckets.computeIfAbsent(entry.getExtension(), (ext) -> new ArrayList<>()).add(entry);
+      });
+      buckets.forEach((ext, list) -> treeModel.addResourceEntries(list, ext, true));
 
       cacheBIFFs();
     }
@@ -304,6 +307,7 @@ public ImageIcon getIcon(String extension)
     return icon;
   }
 
+  /** Closes all opened BIFF archives and releases the associated file handles. */
   public void closeBIFFFiles()
   {
     AbstractBIFFReader.resetCache();
@@ -398,7 +402,11 @@ public BIFFResourceEntry getResourceEntry(String resourceName)
   {
     BIFFResourceEntry retVal = null;
     if (resourceName != null) {
-      retVal = resourceEntries.get(resourceName);
+      int p = resourceName.lastIndexOf('.');
+      if (p > 0) {
+        retVal = resourceIndex.get(resourceName.substring(0, p),
+                                   getExtensionType(resourceName.substring(p + 1)));
+      }
     }
     return retVal;
   }
@@ -515,7 +523,7 @@ private void init() throws IOException
     }
 
     closeBIFFFiles();
-    resourceEntries.clear();
+    resourceIndex.clear();
     biffEntries.clear();
 
     List<Path> keyFiles = new ArrayList<>(1 + keyList.size());
@@ -555,9 +563,7 @@ private void init() throws IOException
         biffEntries.put(file, biffList);
 
         // processing resource entries
-        for (int i = 0, ofs = ofsRes; i < numRes; i++, ofs += 14) {
-          addResourceEntry(new BIFFResourceEntry(file, buffer, ofs, 8));
-        }
+        resourceIndex.addEntries(file, buffer, ofsRes, numRes);
       }
     }
   }
@@ -575,17 +581,6 @@ private List<BIFFEntry> getBIFFList(Path keyFile, boolean remove)
     return null;
   }
 
-  // Adds the specified resource entry to the list, overwrites existing entries of same name.
-  private BIFFResourceEntry addResourceEntry(BIFFResourceEntry entry)
-  {
-    BIFFResourceEntry retVal = null;
-    if (entry != null) {
-      String key = entry.toString();
-      retVal = resourceEntries.put(key, entry);
-    }
-    return retVal;
-  }
-
   // Removes the specified BIFF entry and associated resource entries from cache and resource tree
 //  private void removeBIFFEntry(Path keyFile, BIFFEntry entry)
 //  {
@@ -0,0 +1,264 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A global read-through cache for resource data returned by {@link ResourceEntry#getResourceBuffer()}.
+ * Cached data is associated with the resource name, the actual file path and its modification
+ * stamp. The cache is limited by the total amount of cached data and discards least recently
+ * used entries first.
+ */
+public final class ResourceBufferCache
+{
+  /** Default max. amount of cached resource data (in bytes). */
+  public static final long DEFAULT_CACHE_SIZE = 64L * 1024L * 1024L;
+
+  private static final LinkedHashMap<Key, Item> map = new LinkedHashMap<>(256, 0.75f, true);
+
+  private static long maxSize = DEFAULT_CACHE_SIZE;
+  private static long curSize = 0L;
+  private static long hits = 0L;
+  private static long misses = 0L;
+
+  /**
+   * Returns the data of the specified resource as read-only {@link ByteBuffer}.
+   * Data is taken from the cache if available and up to date.
+   * @param entry The resource entry.
+   * @param ignoreOverride Whether to ignore the resource in the override folder.
+   * @return Read-only {@link ByteBuffer} with resource data in little endian byte order.
+   */
+  public static ByteBuffer get(ResourceEntry entry, boolean ignoreOverride) throws Exception
+  {
+    if (entry == null) {
+      throw new NullPointerException();
+    }
+
+    Path path = entry.getActualPath(ignoreOverride);
+    long stamp = getStamp(path);
+    if (path == null || stamp == 0L || maxSize <= 0L) {
+      return entry.getResourceBuffer(ignoreOverride);
+    }
+
+    Key key = new Key(entry.getResourceName(), path, ignoreOverride);
+    synchronized (map) {
+      Item item = map.get(key);
+      if (item != null) {
+        if (item.stamp == stamp) {
+          hits++;
+          return getView(item.data);
+        }
+        removeItem(key);
+      }
+      misses++;
+    }
+
+    ByteBuffer bb = entry.getResourceBuffer(ignoreOverride);
+    // Data of memory-mapped archives is already available without additional costs
+    if (bb != null && !bb.isDirect() && bb.limit() <= maxSize / 8) {
+      synchronized (map) {
+        Item old = map.put(key, new Item(bb, stamp));
+        if (old != null) {
+          curSize -= old.data.limit();
+        }
+        curSize += bb.limit();
+        trimToSize();
+      }
+      return getView(bb);
+    }
+    return bb;
+  }
+
+  /** Removes all cached data associated with the specified file path. */
+  public static void invalidate(Path path)
+  {
+    if (path != null) {
+      synchronized (map) {
+        Iterator<Map.Entry<Key, Item>> iter = map.entrySet().iterator();
+        while (iter.hasNext()) {
+          Map.Entry<Key, Item> e = iter.next();
+          if (path.equals(e.getKey().path)) {
+            curSize -= e.getValue().data.limit();
+            iter.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /** Removes all cached data associated with the specified resource. */
+  public static void invalidate(ResourceEntry entry)
+  {
+    if (entry != null) {
+      String name = entry.getResourceName().toUpperCase(Locale.ENGLISH);
+      synchronized (map) {
+        Iterator<Map.Entry<Key, Item>> iter = map.entrySet().iterator();
+        while (iter.hasNext()) {
+          Map.Entry<Key, Item> e = iter.next();
+          if (name.equals(e.getKey().name)) {
+            curSize -= e.getValue().data.limit();
+            iter.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /** Removes all cached data and resets statistics. */
+  public static void clearCache()
+  {
+    synchronized (map) {
+      map.clear();
+      curSize = 0L;
+      hits = misses = 0L;
+    }
+  }
+
+  /** Returns the max. amount of resource data to cache (in bytes). */
+  public static long getMaxSize()
+  {
+    synchronized (map) {
+      return maxSize;
+    }
+  }
+
+  /**
+   * Sets the max. amount of resource data to cache (in bytes).
+   * Specify {@code 0} to disable caching.
+   */
+  public static void setMaxSize(long size)
+  {
+    synchronized (map) {
+      maxSize = Math.max(0L, size);
+      trimToSize();
+    }
+  }
+
+  /** Returns the amount of currently cached resource data (in bytes). */
+  public static long getSize()
+  {
+    synchronized (map) {
+      return curSize;
+    }
+  }
+
+  /** Returns the number of resource requests served from the cache. */
+  public static long getHitCount()
+  {
+    synchronized (map) {
+      return hits;
+    }
+  }
+
+  /** Returns the number of resource requests which had to be loaded from the source. */
+  public static long getMissCount()
+  {
+    synchronized (map) {
+      return misses;
+    }
+  }
+
+  /** Returns a modification stamp of the specified file, or {@code 0} if not available. */
+  public static long getStamp(Path path)
+  {
+    if (path != null) {
+      try {
+        return Files.getLastModifiedTime(path).toMillis() ^ (Files.size(path) << 32);
+      } catch (IOException e) {
+      }
+    }
+    return 0L;
+  }
+
+  // Returns an independent read-only view of the specified buffer
+  private static ByteBuffer getView(ByteBuffer buffer)
+  {
+    ByteBuffer bb = buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    bb.position(0);
+    return bb;
+  }
+
+  private static void removeItem(Key key)
+  {
+    Item item = map.remove(key);
+    if (item != null) {
+      curSize -= item.data.limit();
+    }
+  }
+
+  // Removes least recently used entries until cache size is within limits
+  private static void trimToSize()
+  {
+    Iterator<Map.Entry<Key, Item>> iter = map.entrySet().iterator();
+    while (curSize > maxSize && iter.hasNext()) {
+      Map.Entry<Key, Item> e = iter.next();
+      curSize -= e.getValue().data.limit();
+      iter.remove();
+    }
+  }
+
+  private ResourceBufferCache() {}
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  private static class Key
+  {
+    private final String name;
+    private final Path path;
+    private final boolean ignoreOverride;
+
+    public Key(String name, Path path, boolean ignoreOverride)
+    {
+      this.name = name.toUpperCase(Locale.ENGLISH);
+      this.path = path;
+      this.ignoreOverride = ignoreOverride;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      int hash = 7;
+      hash = 31 * hash + name.hashCode();
+      hash = 31 * hash + path.hashCode();
+      hash = 31 * hash + (ignoreOverride ? 1 : 0);
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (o == this) {
+        return true;
+      } else if (o instanceof Key) {
+        Key other = (Key)o;
+        return name.equals(other.name) && path.equals(other.path) &&
+               ignoreOverride == other.ignoreOverride;
+      }
+      return false;
+    }
+  }
+
+  private static class Item
+  {
+    private final ByteBuffer data;
+    private final long stamp;
+
+    public Item(ByteBuffer data, long stamp)
+    {
+      this.data = data;
+      this.stamp = stamp;
+    }
+  }
+}
@@ -4,13 +4,9 @@
 
 package org.infinity.resource.key;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.channels.SeekableByteChannel;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.HashSet;
 import java.util.Locale;
 
@@ -30,7 +26,6 @@
 import org.infinity.resource.spl.SplResource;
 import org.infinity.resource.sto.StoResource;
 import org.infinity.search.SearchOptions;
-import org.infinity.util.io.StreamUtils;
 
 public abstract class ResourceEntry implements Comparable<ResourceEntry>
 {
@@ -46,51 +41,7 @@ public abstract class ResourceEntry implements Comparable<ResourceEntry>
 
   static int[] getLocalFileInfo(Path file)
   {
-    if (file != null && Files.isRegularFile(file)) {
-      try (SeekableByteChannel ch = Files.newByteChannel(file, StandardOpenOption.READ)) {
-        ByteBuffer bb = StreamUtils.getByteBuffer((int)ch.size());
-        if (ch.read(bb) < ch.size()) {
-          throw new IOException();
-        }
-        bb.position(0);
-
-        String sig, ver;
-        if (bb.remaining() >= 8) {
-          byte[] buf = new byte[4];
-          bb.get(buf);
-          sig = new String(buf);
-          bb.get(buf);
-          ver = new String(buf);
-        } else {
-          sig = ver = "";
-        }
-        if ("TIS ".equals(sig) && "V1  ".equals(ver)) {
-          if (bb.limit() > 16) {
-            int v1 = bb.getInt(8);
-            int v2 = bb.getInt(12);
-            return new int[]{ v1, v2 };
-          } else {
-            throw new IOException("Unexpected end of file");
-          }
-        } else if (file.getFileName().toString().toUpperCase(Locale.ENGLISH).endsWith(".TIS")) {
-          int tileSize = 0;
-          if (bb.remaining() > 16) {
-            tileSize = bb.getInt(12);
-          }
-          if (tileSize > 0) {
-            int tileCount = bb.limit() / tileSize;
-            return new int[]{ tileCount, tileSize };
-          } else {
-            throw new Exception("Invalid TIS tile size");
-          }
-        } else {
-          return new int[]{ (int)ch.size() };
-        }
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-    }
-    return null;
+    return ResourceInfoCache.get(file);
   }
 
   @Override
@@ -157,10 +108,14 @@ public long getResourceSize()
                            BrowserMenuBar.getInstance().ignoreOverrides());
   }
 
+  /**
+   * Returns the resource data as read-only {@link ByteBuffer}. Data is served from the
+   * {@link ResourceBufferCache} if available.
+   */
   public ByteBuffer getResourceBuffer() throws Exception
   {
-    return getResourceBuffer((NearInfinity.getInstance() != null) &&
-                             BrowserMenuBar.getInstance().ignoreOverrides());
+    return ResourceBufferCache.get(this, (NearInfinity.getInstance() != null) &&
+                                         BrowserMenuBar.getInstance().ignoreOverrides());
   }
 
   public InputStream getResourceDataAsStream() throws Exception
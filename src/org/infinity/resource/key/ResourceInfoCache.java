@@ -0,0 +1,150 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Determines and caches the resource information of files in the file system,
+ * as returned by {@link ResourceEntry#getResourceInfo()}.
+ * Only the file attributes and, for TIS resources, the first 16 bytes of the file are read.
+ * Cached information is associated with the file path and its modification stamp.
+ */
+public final class ResourceInfoCache
+{
+  // Number of header bytes needed to determine the resource information
+  private static final int HEADER_SIZE = 16;
+
+  private static final HashMap<Path, Item> map = new HashMap<>();
+
+  /**
+   * Returns the resource information of the specified file.
+   * @param file The file to probe.
+   * @return An array containing the number of tiles and the tile size for TIS resources, or
+   *         an array containing the file size for all other resources. Returns {@code null}
+   *         if the information could not be determined.
+   */
+  public static int[] get(Path file)
+  {
+    if (file == null) {
+      return null;
+    }
+
+    BasicFileAttributes attr;
+    try {
+      attr = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException e) {
+      return null;
+    }
+    if (!attr.isRegularFile()) {
+      return null;
+    }
+
+    long stamp = attr.lastModifiedTime().toMillis() ^ (attr.size() << 32);
+    synchronized (map) {
+      Item item = map.get(file);
+      if (item != null && item.stamp == stamp) {
+        return item.info.clone();
+      }
+    }
+
+    try {
+      int[] info = probe(file, attr.size());
+      synchronized (map) {
+        map.put(file, new Item(info, stamp));
+      }
+      return info.clone();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /** Removes the cached information of the specified file. */
+  public static void invalidate(Path file)
+  {
+    if (file != null) {
+      synchronized (map) {
+        map.remove(file);
+      }
+    }
+  }
+
+  /** Removes all cached information. */
+  public static void clearCache()
+  {
+    synchronized (map) {
+      map.clear();
+    }
+  }
+
+  // Determines resource information from file size and header data
+  private static int[] probe(Path file, long size) throws Exception
+  {
+    boolean isTis = file.getFileName().toString().toUpperCase(Locale.ENGLISH).endsWith(".TIS");
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if (isTis || size >= 8) {
+      try (SeekableByteChannel ch = Files.newByteChannel(file, StandardOpenOption.READ)) {
+        while (header.hasRemaining() && ch.read(header) > 0) {}
+      }
+    }
+
+    String sig = "", ver = "";
+    if (header.position() >= 8) {
+      byte[] buf = new byte[4];
+      header.position(0);
+      header.get(buf);
+      sig = new String(buf);
+      header.get(buf);
+      ver = new String(buf);
+    }
+
+    if ("TIS ".equals(sig) && "V1  ".equals(ver)) {
+      if (size > HEADER_SIZE) {
+        return new int[]{ header.getInt(8), header.getInt(12) };
+      } else {
+        throw new IOException("Unexpected end of file");
+      }
+    } else if (isTis) {
+      int tileSize = 0;
+      if (size > HEADER_SIZE + 8) {
+        tileSize = header.getInt(12);
+      }
+      if (tileSize > 0) {
+        return new int[]{ (int)(size / tileSize), tileSize };
+      } else {
+        throw new Exception("Invalid TIS tile size");
+      }
+    } else {
+      return new int[]{ (int)size };
+    }
+  }
+
+  private ResourceInfoCache() {}
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  private static class Item
+  {
+    private final int[] info;
+    private final long stamp;
+
+    public Item(int[] info, long stamp)
+    {
+      this.info = info;
+      this.stamp = stamp;
+    }
+  }
+}
@@ -8,8 +8,10 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.Spliterator;
 
@@ -52,6 +54,35 @@ public List<ResourceEntry> getResourceEntries()
     return Collections.unmodifiableList(new ArrayList<>(resourceEntries));
   }
 
+  /**
+   * Returns the resource entry of the specified name (case-insensitive) in this folder.
+   * Returns {@code null} if not available.
+   */
+  public ResourceEntry getResourceEntry(String name)
+  {
+    synchronized (resourceEntries) {
+      int lo = 0, hi = resourceEntries.size() - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        int cmp = resourceEntries.get(mid).getResourceName().compareToIgnoreCase(name);
+        if (cmp < 0) {
+          lo = mid + 1;
+        } else if (cmp > 0) {
+          hi = mid - 1;
+        } else {
+          return resourceEntries.get(mid);
+        }
+      }
+    }
+    // list order may be outdated by renamed entries
+    for (final ResourceEntry entry: getResourceEntries()) {
+      if (entry.getResourceName().equalsIgnoreCase(name)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
   public List<ResourceEntry> getResourceEntries(String type)
   {
     List<ResourceEntry> list = new ArrayList<ResourceEntry>();
@@ -79,6 +110,22 @@ public void addResourceEntry(ResourceEntry entry, boolean overwrite)
     }
   }
 
+  /**
+   * Adds all specified resource entries in a single step.
+   * Behaves like calling {@link #addResourceEntry(ResourceEntry, boolean)} for each entry
+   * in list order.
+   */
+  public void addResourceEntries(Collection<? extends ResourceEntry> entries, boolean overwrite)
+  {
+    List<ResourceEntry> list = new ArrayList<>(entries.size());
+    for (final ResourceEntry entry: entries) {
+      if (entry.isVisible()) {
+        list.add(entry);
+      }
+    }
+    resourceEntries.merge(list, overwrite);
+  }
+
   public Object getChild(int index)
   {
     if (index >= 0) {
@@ -131,6 +178,14 @@ public void removeResourceEntry(ResourceEntry entry)
     resourceEntries.remove(entry);
   }
 
+  /** Removes all specified resource entry instances in a single step. */
+  public void removeResourceEntries(Collection<? extends ResourceEntry> entries)
+  {
+    Set<ResourceEntry> set = Collections.newSetFromMap(new IdentityHashMap<>());
+    set.addAll(entries);
+    resourceEntries.removeInstances(set);
+  }
+
   public void sortChildren(boolean recursive)
   {
     Collections.sort(folders);
@@ -161,6 +216,57 @@ public synchronized boolean add(T item)
       return true;
     }
 
+    /**
+     * Merges the specified elements into the set. The list is sorted in place.
+     * Elements in the list replace equal elements in the set if {@code overwrite} is
+     * {@code true}. Of several equal elements in the list the last one is used if
+     * {@code overwrite} is {@code true}, the first one otherwise.
+     */
+    public synchronized void merge(List<T> list, boolean overwrite)
+    {
+      if (list.isEmpty()) {
+        return;
+      }
+      // stable sort preserves list order of equal elements
+      Collections.sort(list);
+
+      List<T> merged = new ArrayList<>(size() + list.size());
+      int i = 0, j = 0;
+      while (i < size() || j < list.size()) {
+        if (j == list.size()) {
+          merged.add(get(i++));
+          continue;
+        }
+
+        // determine effective element from a run of equal list elements
+        T item = list.get(j++);
+        while (j < list.size() && list.get(j).compareTo(item) == 0) {
+          if (overwrite) {
+            item = list.get(j);
+          }
+          j++;
+        }
+
+        while (i < size() && get(i).compareTo(item) < 0) {
+          merged.add(get(i++));
+        }
+        if (i < size() && get(i).compareTo(item) == 0) {
+          merged.add(overwrite ? item : get(i));
+          i++;
+        } else {
+          merged.add(item);
+        }
+      }
+      super.clear();
+      super.addAll(merged);
+    }
+
+    /** Removes all elements contained in the specified set by identity. */
+    public synchronized void removeInstances(Set<? super T> set)
+    {
+      super.removeIf(set::contains);
+    }
+
     @Override
     public void add(int index, T element)
     {
@@ -17,6 +17,7 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
@@ -27,11 +28,18 @@
 
 public final class ResourceTreeModel implements TreeModel
 {
+  // Source of model versions, unique across all model instances
+  private static final AtomicLong VERSION_COUNTER = new AtomicLong();
+
   private final List<TreeModelListener> treeModelListeners = new ArrayList<>();
   private final Map<String, ResourceEntry> entries = new HashMap<>(25000);
   private final Map<String, ResourceTreeFolder> folders = new TreeMap<>(Misc.getIgnoreCaseComparator());
+  // Secondary index: upper case resource name => folders containing a resource of this name
+  private final Map<String, List<ResourceTreeFolder>> folderIndex = new HashMap<>(25000);
   private final ResourceTreeFolder root = new ResourceTreeFolder(null, "");
 
+  private volatile long version = VERSION_COUNTER.incrementAndGet();
+
   public ResourceTreeModel()
   {
   }
@@ -99,6 +107,7 @@ public void removeTreeModelListener(TreeModelListener l)
 
   public void addDirectory(ResourceTreeFolder parentFolder, Path directory, boolean overwrite)
   {
+    changed();
     try (DirectoryStream<Path> dstream = Files.newDirectoryStream(directory)) {
       Iterator<Path> iter = dstream.iterator();
       if (iter.hasNext()) {
@@ -107,7 +116,9 @@ public void addDirectory(ResourceTreeFolder parentFolder, Path directory, boolea
           if (Files.isDirectory(path)) {
             addDirectory(folder, path, overwrite);
           } else {
-            folder.addResourceEntry(new FileResourceEntry(path), overwrite);
+            ResourceEntry entry = new FileResourceEntry(path);
+            folder.addResourceEntry(entry, overwrite);
+            addToIndex(folder, entry);
           }
         });
         parentFolder.sortChildren(true);
@@ -118,18 +129,90 @@ public void addDirectory(ResourceTreeFolder parentFolder, Path directory, boolea
     }
   }
 
+  /**
+   * Adds the content of the specified directory as described by a {@link ResourceTreeSnapshot}
+   * folder listing. Behaves like {@link #addDirectory(ResourceTreeFolder, Path, boolean)} without
+   * accessing the file system.
+   */
+  public void addDirectory(ResourceTreeFolder parentFolder, Path directory,
+                           ResourceTreeSnapshot.Folder listing, boolean overwrite)
+  {
+    changed();
+    if (!listing.getFolders().isEmpty() || !listing.getFiles().isEmpty()) {
+      final ResourceTreeFolder folder = addFolder(parentFolder, directory.getFileName().toString());
+      for (final ResourceTreeSnapshot.Folder subListing: listing.getFolders()) {
+        addDirectory(folder, directory.resolve(subListing.getName()), subListing, overwrite);
+      }
+      List<ResourceEntry> list = new ArrayList<>(listing.getFiles().size());
+      for (final String fileName: listing.getFiles()) {
+        list.add(new FileResourceEntry(directory.resolve(fileName)));
+      }
+      folder.addResourceEntries(list, overwrite);
+      list.forEach((entry) -> addToIndex(folder, entry));
+      parentFolder.sortChildren(true);
+    }
+  }
+
   public ResourceTreeFolder addResourceEntry(ResourceEntry entry, String folderName, boolean overwrite)
   {
     if (entry.isVisible()) {
+      changed();
       ResourceTreeFolder folder = addFolder(folderName);
       folder.addResourceEntry(entry, overwrite);
       entries.put(entry.getResourceName().toUpperCase(Locale.ENGLISH), entry);
+      addToIndex(folder, entry);
       folder.sortChildren(false);
       return folder;
     }
     return getFolder(folderName);
   }
 
+  /**
+   * Adds all specified resource entries to the folder of the given name in a single step.
+   * Listeners are not notified.
+   */
+  public ResourceTreeFolder addResourceEntries(Collection<? extends ResourceEntry> entries,
+                                               String folderName, boolean overwrite)
+  {
+    List<ResourceEntry> list = new ArrayList<>(entries.size());
+    for (final ResourceEntry entry: entries) {
+      if (entry.isVisible()) {
+        list.add(entry);
+        this.entries.put(entry.getResourceName().toUpperCase(Locale.ENGLISH), entry);
+      }
+    }
+    if (list.isEmpty()) {
+      return getFolder(folderName);
+    }
+    changed();
+    ResourceTreeFolder folder = addFolder(folderName);
+    folder.addResourceEntries(list, overwrite);
+    list.forEach((entry) -> addToIndex(folder, entry));
+    return folder;
+  }
+
+  /**
+   * Removes all specified resource entries from the folder of the given name in a single step.
+   * Listeners are not notified.
+   */
+  public void removeResourceEntries(Collection<? extends ResourceEntry> entries, String folderName)
+  {
+    ResourceTreeFolder parent = folders.get(folderName);
+    if (parent == null) {
+      return;
+    }
+    changed();
+    parent.removeResourceEntries(entries);
+    for (final ResourceEntry entry: entries) {
+      this.entries.remove(entry.toString().toUpperCase(Locale.ENGLISH));
+      removeFromIndex(parent, entry);
+    }
+    if (parent.getChildCount() == 0) {
+      root.removeFolder(parent);
+      folders.remove(parent.folderName());
+    }
+  }
+
   public List<BIFFResourceEntry> getBIFFResourceEntries()
   {
     return getBIFFResourceEntries(null);
@@ -253,14 +336,7 @@ public ResourceEntry getResourceEntry(String entryname, boolean includeExtraFold
       if (entry != null) {
         retVal = entry;
       } else if (includeExtraFolders) {
-        for (final ResourceTreeFolder folder: folders.values()) {
-          List<ResourceEntry> entries = folder.getResourceEntries();
-          for (final ResourceEntry curEntry: entries) {
-            if (curEntry.getResourceName().equalsIgnoreCase(entryname)) {
-              return curEntry;
-            }
-          }
-        }
+        retVal = getIndexedEntry(entryname);
       }
     }
 
@@ -277,9 +353,11 @@ public List<ResourceEntry> removeDirectory(ResourceTreeFolder parentFolder, Stri
 
       ResourceTreeFolder folder = getFolder(parentFolder, folderName);
       if (folder != null) {
+        changed();
         List<ResourceEntry> entries = folder.getResourceEntries();
         for (final ResourceEntry entry: entries) {
           folder.removeResourceEntry(entry);
+          removeFromIndex(folder, entry);
         }
         parentFolder.removeFolder(folder);
         folders.remove(folder.folderName());
@@ -300,11 +378,13 @@ public void removeResourceEntry(ResourceEntry entry, String folder)
     if (parent == null) {
       return;
     }
+    changed();
     TreePath path = getPathToNode(entry).getParentPath();
     TreeModelEvent event = new TreeModelEvent(this, path, new int[]{getIndexOfChild(parent, entry)},
                                               new Object[]{entry});
     parent.removeResourceEntry(entry);
     entries.remove(entry.toString().toUpperCase(Locale.ENGLISH));
+    removeFromIndex(parent, entry);
     if (parent.getChildCount() == 0) {
       root.removeFolder(parent);
       folders.remove(parent.folderName());
@@ -316,8 +396,11 @@ public void removeResourceEntry(ResourceEntry entry, String folder)
 
   public void resourceEntryChanged(FileResourceEntry entry)
   {
+    changed();
     TreePath parentPath = getPathToNode(entry).getParentPath();
     ResourceTreeFolder parentFolder = (ResourceTreeFolder)parentPath.getLastPathComponent();
+    // index entry of the previous name is discarded on next lookup
+    addToIndex(parentFolder, entry);
     TreeModelEvent event = new TreeModelEvent(this, parentPath,
         new int[]{getIndexOfChild(parentFolder, entry)}, new Object[]{entry});
     for (int i = 0; i < treeModelListeners.size(); i++) {
@@ -325,6 +408,15 @@ public void resourceEntryChanged(FileResourceEntry entry)
     }
   }
 
+  /**
+   * Returns the current version of the model. The version changes whenever resource entries
+   * are added, removed or renamed. Versions are unique across all model instances.
+   */
+  public long getVersion()
+  {
+    return version;
+  }
+
   public int size()
   {
     int size = 0;
@@ -347,6 +439,68 @@ public void updateFolders(ResourceTreeFolder... folders)
     }
   }
 
+  // Registers the folder as container of a resource with the name of the specified entry
+  private void addToIndex(ResourceTreeFolder folder, ResourceEntry entry)
+  {
+    String key = entry.getResourceName().toUpperCase(Locale.ENGLISH);
+    synchronized (folderIndex) {
+      List<ResourceTreeFolder> list = folderIndex.get(key);
+      if (list == null) {
+        list = new ArrayList<>(1);
+        folderIndex.put(key, list);
+      }
+      if (!list.contains(folder)) {
+        list.add(folder);
+      }
+    }
+  }
+
+  private void removeFromIndex(ResourceTreeFolder folder, ResourceEntry entry)
+  {
+    String key = entry.getResourceName().toUpperCase(Locale.ENGLISH);
+    synchronized (folderIndex) {
+      List<ResourceTreeFolder> list = folderIndex.get(key);
+      if (list != null && list.remove(folder) && list.isEmpty()) {
+        folderIndex.remove(key);
+      }
+    }
+  }
+
+  // Returns the resource of the specified name from the first matching folder in folder name order
+  private ResourceEntry getIndexedEntry(String key)
+  {
+    synchronized (folderIndex) {
+      List<ResourceTreeFolder> list = folderIndex.get(key);
+      if (list == null) {
+        return null;
+      }
+
+      ResourceEntry retVal = null;
+      ResourceTreeFolder retFolder = null;
+      Iterator<ResourceTreeFolder> iter = list.iterator();
+      while (iter.hasNext()) {
+        ResourceTreeFolder folder = iter.next();
+        ResourceEntry entry = folder.getResourceEntry(key);
+        if (entry == null || folders.get(folder.folderName()) != folder) {
+          // discard stale index entries
+          iter.remove();
+        } else if (retFolder == null || folder.compareTo(retFolder) < 0) {
+          retVal = entry;
+          retFolder = folder;
+        }
+      }
+      if (list.isEmpty()) {
+        folderIndex.remove(key);
+      }
+      return retVal;
+    }
+  }
+
+  private void changed()
+  {
+    version = VERSION_COUNTER.incrementAndGet();
+  }
+
   private void fireTreeStructureChanged(TreePath changed)
   {
     TreeModelEvent event = new TreeModelEvent(this, changed);
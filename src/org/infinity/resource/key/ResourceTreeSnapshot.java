@@ -0,0 +1,462 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.key;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.infinity.util.Misc;
+
+/**
+ * Stores the file listings of the extra and override folders of a game, which are needed to
+ * populate the resource tree. A snapshot can be written to disk and restored on the next launch,
+ * as long as the KEY files and all listed directories have not been modified in the meantime.
+ */
+public final class ResourceTreeSnapshot
+{
+  /** Default file name of the snapshot file. */
+  public static final String SNAPSHOT_FILE_NAME = "nearinfinity.snapshot";
+
+  private static final String SIGNATURE = "NIRT";
+  private static final int VERSION = 1;
+  // Min. age of folder modification times for the snapshot to be considered stable (in ms)
+  private static final long STABLE_THRESHOLD = 2000L;
+
+  private final String gameRoot;
+  private final List<FileStamp> keyFiles;
+  private final List<Folder> extraFolders;
+  private final List<Folder> overrideFolders;
+  private final boolean complete;
+
+  /**
+   * Creates a new snapshot from the current content of the specified folders.
+   * @param gameRoot The game's root folder.
+   * @param keyFiles List of KEY files the snapshot depends on.
+   * @param extraPaths List of extra folders. Subfolders are included.
+   * @param overridePaths List of override folders. Subfolders are ignored.
+   */
+  public static ResourceTreeSnapshot create(Path gameRoot, List<Path> keyFiles,
+                                            List<Path> extraPaths, List<Path> overridePaths)
+  {
+    List<FileStamp> keyStamps = new ArrayList<>(keyFiles.size());
+    for (final Path path: keyFiles) {
+      keyStamps.add(new FileStamp(path));
+    }
+
+    // folders are listed concurrently
+    ThreadPoolExecutor executor = Misc.createThreadPool();
+    List<Future<Folder>> extraResults = new ArrayList<>(extraPaths.size());
+    for (final Path path: extraPaths) {
+      Misc.isQueueReady(executor, true, -1);
+      extraResults.add(executor.submit(() -> Folder.scan(path, true)));
+    }
+    List<Future<Folder>> overrideResults = new ArrayList<>(overridePaths.size());
+    for (final Path path: overridePaths) {
+      Misc.isQueueReady(executor, true, -1);
+      overrideResults.add(executor.submit(() -> Folder.scan(path, false)));
+    }
+    executor.shutdown();
+
+    boolean[] complete = { true };
+    List<Folder> extraFolders = getResults(extraResults, complete);
+    List<Folder> overrideFolders = getResults(overrideResults, complete);
+
+    return new ResourceTreeSnapshot(gameRoot.toString(), keyStamps, extraFolders, overrideFolders,
+                                    complete[0]);
+  }
+
+  /**
+   * Restores a snapshot from the specified file. Returns {@code null} if the snapshot file
+   * is not available, cannot be read or is outdated.
+   * @param file The snapshot file.
+   * @param gameRoot The game's root folder.
+   * @param keyFiles List of KEY files the snapshot depends on.
+   * @param extraPaths List of extra folders.
+   * @param overridePaths List of override folders.
+   */
+  public static ResourceTreeSnapshot load(Path file, Path gameRoot, List<Path> keyFiles,
+                                          List<Path> extraPaths, List<Path> overridePaths)
+  {
+    if (file == null || !Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      byte[] sig = new byte[SIGNATURE.length()];
+      dis.readFully(sig);
+      if (!SIGNATURE.equals(new String(sig, "US-ASCII")) || dis.readInt() != VERSION) {
+        return null;
+      }
+      if (!gameRoot.toString().equals(dis.readUTF())) {
+        return null;
+      }
+
+      List<FileStamp> keyStamps = new ArrayList<>(keyFiles.size());
+      if (dis.readInt() != keyFiles.size()) {
+        return null;
+      }
+      for (final Path path: keyFiles) {
+        FileStamp stamp = FileStamp.read(dis);
+        if (!stamp.isValid(path)) {
+          return null;
+        }
+        keyStamps.add(stamp);
+      }
+
+      List<Folder> extraFolders = readFolders(dis, extraPaths);
+      if (extraFolders == null) {
+        return null;
+      }
+
+      List<Folder> overrideFolders = readFolders(dis, overridePaths);
+      if (overrideFolders == null) {
+        return null;
+      }
+
+      return new ResourceTreeSnapshot(gameRoot.toString(), keyStamps, extraFolders, overrideFolders, true);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private ResourceTreeSnapshot(String gameRoot, List<FileStamp> keyFiles,
+                               List<Folder> extraFolders, List<Folder> overrideFolders, boolean complete)
+  {
+    this.gameRoot = gameRoot;
+    this.keyFiles = keyFiles;
+    this.extraFolders = extraFolders;
+    this.overrideFolders = overrideFolders;
+    this.complete = complete;
+  }
+
+  /**
+   * Writes the snapshot to the specified file.
+   * @throws IOException if the file could not be written or if the snapshot is incomplete.
+   */
+  public void save(Path file) throws IOException
+  {
+    if (!isComplete()) {
+      throw new IOException("Incomplete folder listings cannot be stored");
+    }
+
+    try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      dos.write(SIGNATURE.getBytes("US-ASCII"));
+      dos.writeInt(VERSION);
+      dos.writeUTF(gameRoot);
+
+      dos.writeInt(keyFiles.size());
+      for (final FileStamp stamp: keyFiles) {
+        stamp.write(dos);
+      }
+
+      writeFolders(dos, extraFolders);
+      writeFolders(dos, overrideFolders);
+    }
+  }
+
+  /**
+   * Returns whether all folders and KEY files could be read successfully. Incomplete snapshots
+   * can be used for the current session, but must not be stored.
+   */
+  public boolean isComplete()
+  {
+    if (!complete) {
+      return false;
+    }
+    for (final FileStamp stamp: keyFiles) {
+      if (stamp.lastModified == -1L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the snapshot can be safely reused. Folders modified within the timestamp
+   * resolution of common file systems might be changed again without updating their
+   * modification time.
+   */
+  public boolean isStable()
+  {
+    long threshold = System.currentTimeMillis() - STABLE_THRESHOLD;
+    for (final Folder folder: extraFolders) {
+      if (folder != null && !folder.isOlderThan(threshold)) {
+        return false;
+      }
+    }
+    for (final Folder folder: overrideFolders) {
+      if (folder != null && !folder.isOlderThan(threshold)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the listing of the extra folder at the specified list index.
+   * Returns {@code null} if the folder did not exist.
+   */
+  public Folder getExtraFolder(int index)
+  {
+    return extraFolders.get(index);
+  }
+
+  /**
+   * Returns the listing of the override folder at the specified list index.
+   * Returns {@code null} if the folder did not exist.
+   */
+  public Folder getOverrideFolder(int index)
+  {
+    return overrideFolders.get(index);
+  }
+
+  // Collects the folder listings. Clears complete[0] if any listing failed or is incomplete.
+  private static List<Folder> getResults(List<Future<Folder>> futures, boolean[] complete)
+  {
+    List<Folder> list = new ArrayList<>(futures.size());
+    for (final Future<Folder> future: futures) {
+      try {
+        Folder folder = future.get();
+        if (folder != null && !folder.complete) {
+          complete[0] = false;
+        }
+        list.add(folder);
+      } catch (InterruptedException | ExecutionException e) {
+        e.printStackTrace();
+        complete[0] = false;
+        list.add(null);
+      }
+    }
+    return list;
+  }
+
+  private static List<Folder> readFolders(DataInputStream dis, List<Path> paths) throws IOException
+  {
+    if (dis.readInt() != paths.size()) {
+      return null;
+    }
+    List<Folder> list = new ArrayList<>(paths.size());
+    for (final Path path: paths) {
+      Folder folder = dis.readBoolean() ? Folder.read(dis) : null;
+      if ((folder != null) ? !folder.isValid(path) : Files.isDirectory(path)) {
+        return null;
+      }
+      list.add(folder);
+    }
+    return list;
+  }
+
+  private static void writeFolders(DataOutputStream dos, List<Folder> folders) throws IOException
+  {
+    dos.writeInt(folders.size());
+    for (final Folder folder: folders) {
+      dos.writeBoolean(folder != null);
+      if (folder != null) {
+        folder.write(dos);
+      }
+    }
+  }
+
+  // Returns the modification time of the specified file, or -1 if not available
+  private static long getLastModified(Path path)
+  {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return -1L;
+    }
+  }
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Content of a single folder. */
+  public static final class Folder
+  {
+    private final String name;
+    private final long lastModified;
+    private final List<Folder> folders;
+    private final List<String> files;
+    // whether the folder and all subfolders have been listed without errors (not stored)
+    private final boolean complete;
+
+    // Returns the content of the specified folder, or null if the folder does not exist
+    private static Folder scan(Path dir, boolean recursive)
+    {
+      if (!Files.isDirectory(dir)) {
+        return null;
+      }
+
+      // modification time is retrieved first to detect changes made while scanning
+      long lastModified = getLastModified(dir);
+      boolean complete = (lastModified != -1L);
+      List<Folder> folders = new ArrayList<>();
+      List<String> files = new ArrayList<>();
+      try (DirectoryStream<Path> dstream = Files.newDirectoryStream(dir)) {
+        for (final Path path: dstream) {
+          if (Files.isDirectory(path)) {
+            if (recursive) {
+              Folder folder = scan(path, recursive);
+              if (folder != null) {
+                complete &= folder.complete;
+                folders.add(folder);
+              }
+            }
+          } else if (recursive || Files.isRegularFile(path)) {
+            files.add(path.getFileName().toString());
+          }
+        }
+      } catch (IOException | DirectoryIteratorException e) {
+        // partial listing is usable for the current session only
+        e.printStackTrace();
+        complete = false;
+      }
+
+      return new Folder(dir.getFileName().toString(), lastModified, folders, files, complete);
+    }
+
+    private static Folder read(DataInputStream dis) throws IOException
+    {
+      String name = dis.readUTF();
+      long lastModified = dis.readLong();
+      int numFolders = dis.readInt();
+      List<Folder> folders = new ArrayList<>(numFolders);
+      for (int i = 0; i < numFolders; i++) {
+        folders.add(read(dis));
+      }
+      int numFiles = dis.readInt();
+      List<String> files = new ArrayList<>(numFiles);
+      for (int i = 0; i < numFiles; i++) {
+        files.add(dis.readUTF());
+      }
+      return new Folder(name, lastModified, folders, files, true);
+    }
+
+    private Folder(String name, long lastModified, List<Folder> folders, List<String> files,
+                   boolean complete)
+    {
+      this.name = name;
+      this.lastModified = lastModified;
+      this.folders = Collections.unmodifiableList(folders);
+      this.files = Collections.unmodifiableList(files);
+      this.complete = complete;
+    }
+
+    /** Returns the folder name. */
+    public String getName()
+    {
+      return name;
+    }
+
+    /** Returns the list of subfolders. Empty for override folders. */
+    public List<Folder> getFolders()
+    {
+      return folders;
+    }
+
+    /** Returns the names of all files in the folder. */
+    public List<String> getFiles()
+    {
+      return files;
+    }
+
+    // Returns whether this folder and all subfolders were modified before the specified time
+    private boolean isOlderThan(long time)
+    {
+      if (lastModified >= time) {
+        return false;
+      }
+      for (final Folder folder: folders) {
+        if (!folder.isOlderThan(time)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // Returns whether this folder and all subfolders are unchanged on disk
+    private boolean isValid(Path dir)
+    {
+      if (!name.equals(dir.getFileName().toString()) || !Files.isDirectory(dir) ||
+          getLastModified(dir) != lastModified) {
+        return false;
+      }
+      for (final Folder folder: folders) {
+        if (!folder.isValid(dir.resolve(folder.name))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void write(DataOutputStream dos) throws IOException
+    {
+      dos.writeUTF(name);
+      dos.writeLong(lastModified);
+      dos.writeInt(folders.size());
+      for (final Folder folder: folders) {
+        folder.write(dos);
+      }
+      dos.writeInt(files.size());
+      for (final String file: files) {
+        dos.writeUTF(file);
+      }
+    }
+  }
+
+  // Modification time and size of a single file
+  private static final class FileStamp
+  {
+    private final long lastModified;
+    private final long size;
+
+    public FileStamp(Path file)
+    {
+      long size = -1L;
+      try {
+        size = Files.size(file);
+      } catch (IOException e) {
+      }
+      this.lastModified = getLastModified(file);
+      this.size = size;
+    }
+
+    private static FileStamp read(DataInputStream dis) throws IOException
+    {
+      return new FileStamp(dis.readLong(), dis.readLong());
+    }
+
+    private FileStamp(long lastModified, long size)
+    {
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+
+    public boolean isValid(Path file)
+    {
+      FileStamp stamp = new FileStamp(file);
+      return lastModified != -1L && stamp.lastModified == lastModified && stamp.size == size;
+    }
+
+    public void write(DataOutputStream dos) throws IOException
+    {
+      dos.writeLong(lastModified);
+      dos.writeLong(size);
+    }
+  }
+}
@@ -7,6 +7,7 @@
 import java.nio.ByteBuffer;
 
 import org.infinity.datatype.Bitmap;
+import org.infinity.datatype.Datatype;
 import org.infinity.datatype.DecNumber;
 import org.infinity.datatype.HexNumber;
 import org.infinity.datatype.ResourceRef;
@@ -82,7 +83,7 @@ public int read(ByteBuffer buffer, int offset) throws Exception
     // readLookuptable
     offset = offset_tilelookup.getValue();
     for (int i = 0; i < lookuptablesize; i++) {
-      addField(new DecNumber(buffer, offset + i * 2, 2, WED_OVERLAY_TILEMAP_INDEX + " " + i));
+      addField(new DecNumber(buffer, offset + i * 2, 2, Datatype.getIndexedName(WED_OVERLAY_TILEMAP_INDEX, i)));
     }
     return retoff;
   }
@@ -14,6 +14,7 @@
 
 import javax.swing.JComponent;
 
+import org.infinity.datatype.Datatype;
 import org.infinity.datatype.DecNumber;
 import org.infinity.datatype.HexNumber;
 import org.infinity.datatype.RemovableDecNumber;
@@ -90,6 +91,12 @@ public void write(OutputStream os) throws IOException
 
 // --------------------- End Interface Writeable ---------------------
 
+  @Override
+  protected boolean isPartialWriteSupported()
+  {
+    return true;
+  }
+
 //--------------------- Begin Interface HasViewerTabs ---------------------
 
   @Override
@@ -282,7 +289,7 @@ public int compare(HexNumber s1, HexNumber s2)
 
     offset = offsetPolytable.getValue();
     for (int i = 0; i < countPolytable; i++) {
-      addField(new DecNumber(buffer, offset + i * 2, 2, WED_WALL_POLYGON_INDEX + " " + i));
+      addField(new DecNumber(buffer, offset + i * 2, 2, Datatype.getIndexedName(WED_WALL_POLYGON_INDEX, i)));
     }
 
     int endoffset = offset;
@@ -101,6 +101,12 @@ public void write(OutputStream os) throws IOException
 
 // --------------------- End Interface Writeable ---------------------
 
+  @Override
+  protected boolean isPartialWriteSupported()
+  {
+    return true;
+  }
+
   @Override
   public int read(ByteBuffer buffer, int offset) throws Exception
   {
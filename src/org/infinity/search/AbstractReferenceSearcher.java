@@ -30,6 +30,7 @@
 import org.infinity.gui.ChildFrame;
 import org.infinity.gui.ViewerUtil;
 import org.infinity.icon.Icons;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
@@ -80,7 +81,7 @@ abstract class AbstractReferenceSearcher implements Runnable, ActionListener
         resName = resName.substring(0, resName.lastIndexOf('.'));
       }
       try {
-        CreResource cre = new CreResource(targetEntry);
+        CreResource cre = new CreResource(targetEntry, true);
         StructEntry nameEntry = cre.getAttribute(CreResource.CRE_SCRIPT_NAME);
         if (nameEntry instanceof TextString) {
           targetEntryName = ((TextString)nameEntry).toString();
@@ -100,7 +101,7 @@ abstract class AbstractReferenceSearcher implements Runnable, ActionListener
     hitFrame = new ReferenceHitFrame(targetEntry, parent);
     if (filetypes.length == 1) {
       files = new ArrayList<ResourceEntry>();
-      files.addAll(ResourceFactory.getResources(filetypes[0]));
+      files.addAll(ResourceFactory.getResourcesView(filetypes[0]));
       if (files.size() > 0)
         new Thread(this).start();
     }
@@ -188,7 +189,7 @@ public void actionPerformed(ActionEvent event)
       }
       for (int i = 0; i < filetypes.length; i++) {
         if (boxes[i].isSelected()) {
-          files.addAll(ResourceFactory.getResources(filetypes[i]));
+          files.addAll(ResourceFactory.getResourcesView(filetypes[i]));
         }
         selection[i] = Boolean.valueOf(boxes[i].isSelected());
       }
@@ -240,14 +241,16 @@ public void run()
       boolean isCancelled = false;
       ThreadPoolExecutor executor = Misc.createThreadPool();
       String type = "";
+      Debugging.timerReset();
+      // resources which can't contain any references according to the index are skipped
+      List<ResourceEntry> candidates = ReferenceIndex.getCandidates(files, getIndexQuery());
       progressIndex = 0;
       progress = new ProgressMonitor(parent, "Searching...",
                                      String.format(FMT_PROGRESS, "WWWW"),
-                                     0, files.size());
+                                     0, candidates.size());
       progress.setMillisToDecideToPopup(100);
-      Debugging.timerReset();
-      for (int i = 0; i < files.size(); i++) {
-        ResourceEntry entry = files.get(i);
+      for (int i = 0; i < candidates.size(); i++) {
+        ResourceEntry entry = candidates.get(i);
         if (i % 10 == 0) {
           String ext = entry.getExtension();
           if (ext != null && !type.equalsIgnoreCase(ext)) {
@@ -300,6 +303,15 @@ synchronized void addHit(ResourceEntry entry, String name, StructEntry ref)
 
   abstract void search(ResourceEntry entry, Resource resource);
 
+  /**
+   * Returns the query which is used to determine the resources to search by the
+   * {@link ReferenceIndex}. Returns {@code null} to search all selected resources.
+   */
+  ReferenceIndex.Query getIndexQuery()
+  {
+    return null;
+  }
+
   ResourceEntry getTargetEntry()
   {
     return targetEntry;
@@ -430,7 +442,7 @@ public Worker(ResourceEntry entry)
     public void run()
     {
       if (entry != null) {
-        Resource resource = ResourceFactory.getResource(entry);
+        Resource resource = ParsedResourceCache.get(entry);
         if (resource != null) {
           search(entry, resource);
         }
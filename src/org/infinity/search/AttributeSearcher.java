@@ -34,6 +34,7 @@
 import org.infinity.gui.ChildFrame;
 import org.infinity.icon.Icons;
 import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.ParsedResourceCache;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
@@ -323,7 +324,7 @@ public Worker(ResourceEntry entry)
     public void run()
     {
       if (entry != null) {
-        AbstractStruct resource = (AbstractStruct)ResourceFactory.getResource(entry);
+        AbstractStruct resource = (AbstractStruct)ParsedResourceCache.get(entry);
         if (resource != null) {
           List<StructEntry> flatList = resource.getFlatList();
           for (int j = 0; j < flatList.size(); j++) {
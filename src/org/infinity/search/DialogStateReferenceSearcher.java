@@ -22,6 +22,14 @@ public DialogStateReferenceSearcher(ResourceEntry targetEntry, int stateNr, Comp
     targetStateNr = stateNr;
   }
 
+  @Override
+  ReferenceIndex.Query getIndexQuery()
+  {
+    String name = targetEntry.getResourceName();
+    int idx = name.lastIndexOf('.');
+    return new ReferenceIndex.Query().addWord((idx > 0) ? name.substring(0, idx) : name);
+  }
+
   @Override
   void search(ResourceEntry entry, Resource resource)
   {
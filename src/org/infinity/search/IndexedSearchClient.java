@@ -0,0 +1,19 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.search;
+
+/**
+ * A {@link SearchClient} which is able to narrow down the entries to search in advance.
+ */
+public interface IndexedSearchClient extends SearchClient
+{
+  /**
+   * Returns the indices of all entries which may match the specified search term in ascending order.
+   * @param term The search term as entered by the user.
+   * @param regex Whether the search term is a regular expression.
+   * @return Array of entry indices, or {@code null} if all entries have to be searched.
+   */
+  int[] getCandidates(String term, boolean regex);
+}
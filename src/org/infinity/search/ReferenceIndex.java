@@ -0,0 +1,717 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.infinity.datatype.ProRef;
+import org.infinity.datatype.ResourceRef;
+import org.infinity.datatype.Song2daBitmap;
+import org.infinity.datatype.StringRef;
+import org.infinity.datatype.TextString;
+import org.infinity.resource.AbstractStruct;
+import org.infinity.resource.Profile;
+import org.infinity.resource.Resource;
+import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.StructEntry;
+import org.infinity.resource.bcs.BcsResource;
+import org.infinity.resource.bcs.Compiler;
+import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.ScriptType;
+import org.infinity.resource.dlg.AbstractCode;
+import org.infinity.resource.dlg.Action;
+import org.infinity.resource.key.ResourceBufferCache;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.resource.text.PlainTextResource;
+import org.infinity.util.Misc;
+import org.infinity.util.io.FileWatcher;
+
+/**
+ * A cross-reference index of the game resources. Each indexed resource is associated with the
+ * terms it may refer to: resource names, strrefs, music list entries and the words of resrefs,
+ * text fields, scripts and text resources.
+ * <p>
+ * Reference searchers use the index to skip resources which can't contain a match. The terms of
+ * a resource are a superset of what the searchers can find in it, so the remaining resources
+ * still have to be searched to determine the actual hits. Resources which are not indexed (yet)
+ * are always searched.
+ * <p>
+ * The index is built in a background thread after a game has been loaded and is stored in the
+ * game's home folder. Stored entries are reused as long as the underlying files have not been
+ * modified. Files reported as changed by the {@link FileWatcher} or saved by Near Infinity are
+ * indexed again.
+ */
+public final class ReferenceIndex
+{
+  /** Default file name of the index file. */
+  public static final String INDEX_FILE_NAME = "nearinfinity.refindex";
+
+  private static final String SIGNATURE = "NIRI";
+  private static final int VERSION = 1;
+
+  /** Resource types covered by the index. */
+  private static final String[] TYPES = {"2DA", "ARE", "BCS", "BS", "CHR", "CHU", "CRE", "DLG",
+                                         "EFF", "GAM", "INI", "ITM", "PRO", "SPL", "SRC", "STO",
+                                         "TOH", "VEF", "VVC", "WED", "WMP"};
+  // Words exceeding this length are not indexed
+  private static final int MAX_WORD_LENGTH = 64;
+
+  // Prefixes of the different kinds of index terms
+  private static final String TERM_RESOURCE = "R:";
+  private static final String TERM_STRREF = "S:";
+  private static final String TERM_MUSIC = "M:";
+  private static final String TERM_WORD = "W:";
+
+  private static final HashMap<String, Item> ITEMS = new HashMap<>();
+  // Names of resources which have been invalidated while the index is being built
+  private static final HashSet<String> DIRTY = new HashSet<>();
+  // Shared instances of index terms
+  private static final HashMap<String, String> TERMS = new HashMap<>();
+
+  private static Thread builder;
+  private static boolean rebuild;   // whether the builder has to process further changes
+  private static boolean loaded;    // whether the stored index has been restored
+  private static int generation;    // incremented whenever the index is discarded
+
+  /**
+   * Builds, restores or updates the index in a background thread. Only resources without
+   * up-to-date index entries are processed.
+   */
+  public static void update()
+  {
+    synchronized (ITEMS) {
+      if (builder != null) {
+        rebuild = true;
+        return;
+      }
+      final int curGeneration = generation;
+      builder = new Thread(() -> {
+        boolean again = true;
+        while (again) {
+          synchronized (ITEMS) {
+            rebuild = false;
+          }
+          updateIndex(curGeneration);
+          synchronized (ITEMS) {
+            again = rebuild && curGeneration == generation;
+            if (!again && builder == Thread.currentThread()) {
+              builder = null;
+            }
+          }
+        }
+      }, "ReferenceIndex");
+      builder.setDaemon(true);
+      builder.setPriority(Thread.MIN_PRIORITY);
+      builder.start();
+    }
+  }
+
+  /** Discards the index. Call this after opening a new game. */
+  public static void clearCache()
+  {
+    synchronized (ITEMS) {
+      ITEMS.clear();
+      DIRTY.clear();
+      TERMS.clear();
+      builder = null;
+      rebuild = loaded = false;
+      generation++;
+    }
+  }
+
+  /** Indexes the specified resource again. */
+  public static void invalidate(ResourceEntry entry)
+  {
+    if (entry != null) {
+      invalidate(getKey(entry.getResourceName()));
+    }
+  }
+
+  /** Indexes the resource of the specified file again. */
+  public static void invalidate(Path path)
+  {
+    if (path != null && path.getFileName() != null) {
+      invalidate(getKey(path.getFileName().toString()));
+    }
+  }
+
+  /**
+   * Returns the resources of {@code entries} which may contain matches of the specified query.
+   * Returns {@code entries} unchanged if the query can't be answered by the index.
+   */
+  static List<ResourceEntry> getCandidates(List<ResourceEntry> entries, Query query)
+  {
+    if (query == null || query.isUnrestricted()) {
+      return entries;
+    }
+
+    String[] terms = query.getTerms().toArray(new String[0]);
+    // external modifications are only reported while the file watcher is active
+    boolean verify = !FileWatcher.getInstance().isRunning();
+    List<ResourceEntry> retVal = new ArrayList<>();
+    List<ResourceEntry> outdated = new ArrayList<>();
+    for (final ResourceEntry entry: entries) {
+      Item item;
+      synchronized (ITEMS) {
+        item = ITEMS.get(getKey(entry.getResourceName()));
+      }
+      if (item != null && verify && item.stamp != ResourceBufferCache.getStamp(entry.getActualPath())) {
+        outdated.add(entry);
+        item = null;
+      }
+      if (item == null || item.containsAny(terms)) {
+        retVal.add(entry);
+      }
+    }
+
+    for (final ResourceEntry entry: outdated) {
+      invalidate(entry);
+    }
+    return retVal;
+  }
+
+  /**
+   * Adds the index terms of the specified text to {@code terms}. Terms consist of all words and
+   * all numbers as strrefs.
+   */
+  static void addTextTerms(Collection<String> terms, String text)
+  {
+    for (int i = 0, len = text.length(); i < len; ) {
+      if (isWordChar(text.charAt(i))) {
+        int start = i;
+        while (i < len && isWordChar(text.charAt(i))) {
+          i++;
+        }
+        addWord(terms, text.substring(start, i));
+      } else {
+        i++;
+      }
+    }
+
+    // numbers may also be part of words
+    for (int i = 0, len = text.length(); i < len; ) {
+      if (isDigit(text.charAt(i))) {
+        int start = i;
+        while (i < len && isDigit(text.charAt(i))) {
+          i++;
+        }
+        try {
+          terms.add(TERM_STRREF + Long.parseLong(text.substring(start, i)));
+        } catch (NumberFormatException e) {
+        }
+      } else {
+        i++;
+      }
+    }
+  }
+
+  private static void invalidate(String key)
+  {
+    if (!isIndexedType(key)) {
+      return;
+    }
+    synchronized (ITEMS) {
+      if (!loaded && builder == null) {
+        // index is not in use
+        return;
+      }
+      ITEMS.remove(key);
+      DIRTY.add(key);
+    }
+    update();
+  }
+
+  // Builds, restores or updates the index
+  private static void updateIndex(int curGeneration)
+  {
+    try {
+      // 1. collecting resources to index (resources of the same name can't be distinguished)
+      HashMap<String, ResourceEntry> entries = new HashMap<>();
+      HashSet<String> duplicates = new HashSet<>();
+      for (final String type: TYPES) {
+        for (final ResourceEntry entry: ResourceFactory.getResources(type)) {
+          String key = getKey(entry.getResourceName());
+          if (entries.put(key, entry) != null) {
+            duplicates.add(key);
+          }
+        }
+      }
+      entries.keySet().removeAll(duplicates);
+
+      // 2. restoring stored index
+      Path file = getIndexFile();
+      boolean modified = false;
+      boolean isLoaded;
+      synchronized (ITEMS) {
+        isLoaded = loaded;
+      }
+      if (!isLoaded) {
+        Map<String, Item> stored = load(file);
+        modified = true;
+        if (stored != null) {
+          modified = stored.values().removeIf(item -> !item.isValid(entries.get(item.name)));
+        }
+        synchronized (ITEMS) {
+          if (curGeneration != generation) {
+            return;
+          }
+          if (stored != null) {
+            for (final Item item: stored.values()) {
+              if (!DIRTY.contains(item.name)) {
+                ITEMS.putIfAbsent(item.name, item);
+              }
+            }
+          }
+          loaded = true;
+        }
+      }
+
+      // 3. determining resources to index
+      List<ResourceEntry> pending = new ArrayList<>();
+      synchronized (ITEMS) {
+        if (curGeneration != generation) {
+          return;
+        }
+        DIRTY.clear();
+        modified |= ITEMS.keySet().retainAll(entries.keySet());
+        for (final ResourceEntry entry: entries.values()) {
+          if (!ITEMS.containsKey(getKey(entry.getResourceName()))) {
+            pending.add(entry);
+          }
+        }
+      }
+
+      // 4. indexing resources in parallel
+      if (!pending.isEmpty()) {
+        int numThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolExecutor executor = Misc.createThreadPool(numThreads, numThreads * 2);
+        try {
+          List<Future<Item>> results = new ArrayList<>(pending.size());
+          for (final ResourceEntry entry: pending) {
+            Misc.isQueueReady(executor, true, -1);
+            results.add(executor.submit(() -> Item.create(entry)));
+            synchronized (ITEMS) {
+              if (curGeneration != generation) {
+                return;
+              }
+            }
+          }
+          for (final Future<Item> result: results) {
+            Item item = null;
+            try {
+              item = result.get();
+            } catch (ExecutionException e) {
+              e.printStackTrace();
+            }
+            synchronized (ITEMS) {
+              if (curGeneration != generation) {
+                return;
+              }
+              // invalidated resources will be indexed again in the next pass
+              if (item != null && !DIRTY.contains(item.name)) {
+                ITEMS.put(item.name, item);
+                modified = true;
+              }
+            }
+          }
+        } finally {
+          executor.shutdownNow();
+        }
+      }
+
+      // 5. storing index
+      if (modified && file != null) {
+        List<Item> items;
+        synchronized (ITEMS) {
+          if (curGeneration != generation) {
+            return;
+          }
+          items = new ArrayList<>(ITEMS.values());
+        }
+        try {
+          save(file, items);
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  // Restores the index entries from the specified file. Returns null if not available.
+  private static Map<String, Item> load(Path file)
+  {
+    if (file == null || !Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      byte[] sig = new byte[SIGNATURE.length()];
+      dis.readFully(sig);
+      if (!SIGNATURE.equals(new String(sig, "US-ASCII")) || dis.readInt() != VERSION) {
+        return null;
+      }
+      if (!Profile.getGameRoot().toString().equals(dis.readUTF())) {
+        return null;
+      }
+
+      String[] terms = new String[dis.readInt()];
+      for (int i = 0; i < terms.length; i++) {
+        terms[i] = getTerm(dis.readUTF());
+      }
+
+      int numItems = dis.readInt();
+      HashMap<String, Item> retVal = new HashMap<>(numItems * 2);
+      for (int i = 0; i < numItems; i++) {
+        String name = dis.readUTF();
+        long stamp = dis.readLong();
+        String[] list = new String[dis.readInt()];
+        for (int j = 0; j < list.length; j++) {
+          list[j] = terms[dis.readInt()];
+        }
+        retVal.put(name, new Item(name, stamp, list));
+      }
+      return retVal;
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  // Writes the specified index entries to disk
+  private static void save(Path file, List<Item> items) throws IOException
+  {
+    HashMap<String, Integer> termIds = new HashMap<>();
+    List<String> terms = new ArrayList<>();
+    for (final Item item: items) {
+      for (final String term: item.terms) {
+        if (!termIds.containsKey(term)) {
+          termIds.put(term, Integer.valueOf(terms.size()));
+          terms.add(term);
+        }
+      }
+    }
+
+    try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      dos.write(SIGNATURE.getBytes("US-ASCII"));
+      dos.writeInt(VERSION);
+      dos.writeUTF(Profile.getGameRoot().toString());
+      dos.writeInt(terms.size());
+      for (final String term: terms) {
+        dos.writeUTF(term);
+      }
+      dos.writeInt(items.size());
+      for (final Item item: items) {
+        dos.writeUTF(item.name);
+        dos.writeLong(item.stamp);
+        dos.writeInt(item.terms.length);
+        for (final String term: item.terms) {
+          dos.writeInt(termIds.get(term).intValue());
+        }
+      }
+    }
+  }
+
+  // Returns the path of the index file for the current game, or null if not available
+  private static Path getIndexFile()
+  {
+    Path homeRoot = Profile.getHomeRoot();
+    if (homeRoot != null && Files.isDirectory(homeRoot) &&
+        homeRoot.getFileSystem().equals(FileSystems.getDefault())) {
+      return homeRoot.resolve(INDEX_FILE_NAME);
+    }
+    return null;
+  }
+
+  // Returns the index terms of the specified resource in ascending order
+  private static String[] getTerms(Resource resource)
+  {
+    HashSet<String> terms = new HashSet<>();
+    if (resource instanceof BcsResource) {
+      addScriptTerms(terms, ((BcsResource)resource).getCode(), null);
+    } else if (resource instanceof PlainTextResource) {
+      addTextTerms(terms, ((PlainTextResource)resource).getText());
+    } else if (resource instanceof AbstractStruct) {
+      addStructTerms(terms, (AbstractStruct)resource);
+    }
+
+    String[] retVal = terms.toArray(new String[terms.size()]);
+    Arrays.sort(retVal);
+    for (int i = 0; i < retVal.length; i++) {
+      retVal[i] = getTerm(retVal[i]);
+    }
+    return retVal;
+  }
+
+  private static void addStructTerms(Collection<String> terms, AbstractStruct struct)
+  {
+    for (int i = 0; i < struct.getFieldCount(); i++) {
+      StructEntry e = struct.getField(i);
+      if (e instanceof ResourceRef) {
+        if (!((ResourceRef)e).isEmpty()) {
+          addWord(terms, ((ResourceRef)e).getText());
+        }
+      } else if (e instanceof ProRef) {
+        ResourceEntry entry = ((ProRef)e).getSelectedEntry();
+        if (entry != null) {
+          terms.add(TERM_RESOURCE + entry.getResourceName().toUpperCase(Locale.ENGLISH));
+        }
+      } else if (e instanceof Song2daBitmap) {
+        terms.add(TERM_MUSIC + ((Song2daBitmap)e).getValue());
+      } else if (e instanceof StringRef) {
+        terms.add(TERM_STRREF + ((StringRef)e).getValue());
+      } else if (e instanceof TextString) {
+        addWord(terms, e.toString());
+      } else if (e instanceof AbstractCode) {
+        AbstractCode code = (AbstractCode)e;
+        addTextTerms(terms, code.getText());
+        try {
+          ScriptType type = (code instanceof Action) ? ScriptType.ACTION : ScriptType.TRIGGER;
+          Compiler compiler = new Compiler(code.getText(), type);
+          String compiled = compiler.getCode();
+          if (compiler.getErrors().size() == 0) {
+            addTextTerms(terms, compiled);
+            addScriptTerms(terms, compiled, type);
+          }
+        } catch (Exception ex) {
+        }
+      } else if (e instanceof AbstractStruct) {
+        addStructTerms(terms, (AbstractStruct)e);
+      }
+    }
+  }
+
+  // Adds resources, strrefs and words used by the specified compiled script code
+  private static void addScriptTerms(Collection<String> terms, String code, ScriptType type)
+  {
+    Decompiler decompiler = new Decompiler(code, true);
+    decompiler.setGenerateComments(false);
+    decompiler.setGenerateResourcesUsed(true);
+    if (type != null) {
+      decompiler.setScriptType(type);
+    }
+    try {
+      String text = decompiler.decompile();
+      addTextTerms(terms, text);
+      for (final ResourceEntry entry: decompiler.getResourcesUsed()) {
+        terms.add(TERM_RESOURCE + entry.getResourceName().toUpperCase(Locale.ENGLISH));
+      }
+      for (final Integer strref: decompiler.getStringRefsUsed()) {
+        terms.add(TERM_STRREF + strref);
+      }
+    } catch (Exception e) {
+    }
+  }
+
+  private static void addWord(Collection<String> terms, String word)
+  {
+    if (word != null && !word.isEmpty() && word.length() <= MAX_WORD_LENGTH) {
+      terms.add(TERM_WORD + word.toUpperCase(Locale.ENGLISH));
+    }
+  }
+
+  // Returns a shared instance of the specified term
+  private static String getTerm(String term)
+  {
+    synchronized (TERMS) {
+      String retVal = TERMS.putIfAbsent(term, term);
+      return (retVal != null) ? retVal : term;
+    }
+  }
+
+  private static String getKey(String resourceName)
+  {
+    return resourceName.toUpperCase(Locale.ENGLISH);
+  }
+
+  private static boolean isIndexedType(String key)
+  {
+    int idx = key.lastIndexOf('.');
+    if (idx >= 0) {
+      String ext = key.substring(idx + 1);
+      for (final String type: TYPES) {
+        if (type.equals(ext)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Word characters as considered by regular expression word boundaries
+  private static boolean isWordChar(char ch)
+  {
+    return Character.isLetterOrDigit(ch) || ch == '_';
+  }
+
+  private static boolean isDigit(char ch)
+  {
+    return ch >= '0' && ch <= '9';
+  }
+
+  private ReferenceIndex() {}
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /**
+   * Describes the references to search for. A resource is considered a candidate if it contains
+   * any of the added terms.
+   */
+  static final class Query
+  {
+    private final LinkedHashSet<String> terms = new LinkedHashSet<>();
+    private boolean unrestricted;
+
+    /** Matches resources referring to the specified resource by resolved name (including extension). */
+    public Query addResource(String resourceName)
+    {
+      terms.add(TERM_RESOURCE + resourceName.toUpperCase(Locale.ENGLISH));
+      return this;
+    }
+
+    /** Matches resources containing the specified strref. */
+    public Query addStrref(long strref)
+    {
+      terms.add(TERM_STRREF + strref);
+      return this;
+    }
+
+    /** Matches resources containing the specified music list entry. */
+    public Query addMusic(long value)
+    {
+      terms.add(TERM_MUSIC + value);
+      return this;
+    }
+
+    /** Matches resources containing the specified word, resref or text field value. */
+    public Query addWord(String word)
+    {
+      if (word.length() > MAX_WORD_LENGTH) {
+        unrestricted = true;
+      } else {
+        ReferenceIndex.addWord(terms, word);
+      }
+      return this;
+    }
+
+    /**
+     * Matches resources whose text may contain a match of the regular expression
+     * {@code \b(prefix)?literal\b}, where prefix is one of the specified prefixes.
+     */
+    public Query addWordMatch(String literal, String... prefixes)
+    {
+      // regular expressions can't be mapped to index terms
+      for (int i = 0; i < literal.length(); i++) {
+        if ("\\^$.|?*+()[]{}".indexOf(literal.charAt(i)) >= 0) {
+          unrestricted = true;
+          return this;
+        }
+      }
+
+      // words of the literal are whole words in the matching text, except for the
+      // first word which may be joined with a prefix
+      int firstEnd = -1, bestStart = -1, bestEnd = -1;
+      for (int i = 0, len = literal.length(); i < len; ) {
+        if (isWordChar(literal.charAt(i))) {
+          int start = i;
+          while (i < len && isWordChar(literal.charAt(i))) {
+            i++;
+          }
+          if (start == 0) {
+            firstEnd = i;
+          } else if (i - start > bestEnd - bestStart) {
+            bestStart = start;
+            bestEnd = i;
+          }
+        } else {
+          i++;
+        }
+      }
+
+      if (bestStart >= 0) {
+        addWord(literal.substring(bestStart, bestEnd));
+      } else if (firstEnd >= 0) {
+        String word = literal.substring(0, firstEnd);
+        addWord(word);
+        for (final String prefix: prefixes) {
+          addWord(prefix + word);
+        }
+      } else {
+        unrestricted = true;
+      }
+      return this;
+    }
+
+    /** Returns whether the query can't be answered by the index. */
+    public boolean isUnrestricted()
+    {
+      return unrestricted;
+    }
+
+    Collection<String> getTerms()
+    {
+      return terms;
+    }
+  }
+
+  // Index entry of a single resource
+  private static class Item
+  {
+    private final String name;
+    private final long stamp;
+    private final String[] terms;   // in ascending order
+
+    public static Item create(ResourceEntry entry)
+    {
+      long stamp = ResourceBufferCache.getStamp(entry.getActualPath());
+      Resource resource = ResourceFactory.getResource(entry);
+      return new Item(getKey(entry.getResourceName()), stamp, getTerms(resource));
+    }
+
+    public Item(String name, long stamp, String[] terms)
+    {
+      this.name = name;
+      this.stamp = stamp;
+      this.terms = terms;
+    }
+
+    // Returns whether the entry still describes the current content of the specified resource
+    public boolean isValid(ResourceEntry entry)
+    {
+      return entry != null && stamp != 0L && stamp == ResourceBufferCache.getStamp(entry.getActualPath());
+    }
+
+    public boolean containsAny(String[] list)
+    {
+      for (final String term: list) {
+        if (Arrays.binarySearch(terms, term) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -71,6 +71,20 @@ protected void search(ResourceEntry entry, Resource resource)
     }
   }
 
+  @Override
+  ReferenceIndex.Query getIndexQuery()
+  {
+    String name = targetEntry.getResourceName();
+    int idx = name.lastIndexOf('.');
+    String keyword = (idx > 0) ? name.substring(0, idx) : name;
+    ReferenceIndex.Query query = new ReferenceIndex.Query();
+    query.addResource(name).addWord(keyword).addWordMatch(keyword, "AP_", "GA_");
+    if (targetEntryName != null) {
+      query.addWordMatch(targetEntryName);
+    }
+    return query;
+  }
+
   private void searchDialog(ResourceEntry entry, AbstractStruct dialog)
   {
     boolean hit = false;
@@ -291,7 +291,7 @@ else if (rbspl.isSelected())
     else if (rbsto.isSelected())
       selectedtype = "STO";
 
-    List<ResourceEntry> resources = ResourceFactory.getResources(selectedtype);
+    List<ResourceEntry> resources = ResourceFactory.getResourcesView(selectedtype);
     String expr = tfield.getText().toLowerCase(Locale.ENGLISH);
     List<String> found = new ArrayList<String>();
     cards.show(bpanel, "Progress");
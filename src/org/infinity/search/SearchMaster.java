@@ -13,6 +13,7 @@
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -182,6 +183,14 @@ public void run()
   {
     index = 0;
     String term = tfinput.getText();
+    // indexed clients provide the entries which may contain the search term
+    int[] candidates = null;
+    if (slave instanceof IndexedSearchClient) {
+      candidates = ((IndexedSearchClient)slave).getCandidates(term, cbregex.isSelected());
+      if (candidates != null && Arrays.binarySearch(candidates, index) < 0) {
+        index = getNextIndex(candidates, index, rbdown.isSelected());
+      }
+    }
     if (!cbregex.isSelected()) {
       term = term.replaceAll("(\\W)", "\\\\$1");
     }
@@ -207,7 +216,7 @@ public void run()
     cbcase.setEnabled(false);
     tfinput.setEnabled(false);
     while (true) {
-      String s = slave.getText(index);
+      String s = (index >= 0) ? slave.getText(index) : null;
       if (s == null)
         break;
       if (regPattern.matcher(s).matches()) {
@@ -228,10 +237,7 @@ public void run()
           break;
         }
       }
-      if (rbdown.isSelected())
-        index++;
-      else
-        index--;
+      index = getNextIndex(candidates, index, rbdown.isSelected());
     }
     blocker.setBlocked(false);
     bnext.setEnabled(true);
@@ -244,5 +250,21 @@ public void run()
   }
 
 // --------------------- End Interface Runnable ---------------------
+
+  // Returns the next entry index to check in the specified direction, or -1 if not available
+  private static int getNextIndex(int[] candidates, int index, boolean down)
+  {
+    if (candidates == null) {
+      return down ? index + 1 : index - 1;
+    }
+    int pos = Arrays.binarySearch(candidates, index);
+    if (down) {
+      pos = (pos >= 0) ? pos + 1 : -pos - 1;
+      return (pos < candidates.length) ? candidates[pos] : -1;
+    } else {
+      pos = (pos >= 0) ? pos - 1 : -pos - 2;
+      return (pos >= 0) ? candidates[pos] : -1;
+    }
+  }
 }
 
@@ -424,6 +424,23 @@ public Object getOption(String name)
     return null;
   }
 
+  /**
+   * Returns whether an option is defined for any of the specified names.
+   * @param names The names of the options to check.
+   * @return {@code true} if at least one of the options is available, {@code false} otherwise.
+   */
+  public boolean hasAnyOption(String... names)
+  {
+    if (names != null) {
+      for (final String name: names) {
+        if (getOption(name) != null) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   /**
    * Adds the specified name/value pair into the list. If {@code value} is {@code null}, an
    * existing entry of the specified name will be removed.
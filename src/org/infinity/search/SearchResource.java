@@ -231,7 +231,7 @@ public void run()
     String type = getCurrentResourceType();
     if (!type.isEmpty()) {
       // initializations
-      List<ResourceEntry> resources = ResourceFactory.getResources(type);
+      List<ResourceEntry> resources = ResourceFactory.getResourcesView(type);
       Vector<NamedResourceEntry> found = new Vector<NamedResourceEntry>();
       bSearch.setEnabled(false);
       pbProgress.setMinimum(0);
@@ -6430,7 +6430,7 @@ public static Vector<NamedResourceEntry> createNamedResourceList(String[] extens
       list.add(nre);
       if (extensions != null) {
         for (int i = 0; i < extensions.length; i++) {
-          List<ResourceEntry> entries = ResourceFactory.getResources(extensions[i]);
+          List<ResourceEntry> entries = ResourceFactory.getResourcesView(extensions[i]);
           if (entries != null) {
             for (int j = 0; j < entries.size(); j++) {
               list.add(new NamedResourceEntry(entries.get(j)));
@@ -56,6 +56,12 @@ protected void search(ResourceEntry entry, Resource resource)
     }
   }
 
+  @Override
+  ReferenceIndex.Query getIndexQuery()
+  {
+    return new ReferenceIndex.Query().addMusic(songId).addWord("StartMusic").addWord("SetMusic");
+  }
+
   private void searchBcs(ResourceEntry entry, BcsResource bcs)
   {
 //    Decompiler decompiler = new Decompiler(bcs.getCode(), true);
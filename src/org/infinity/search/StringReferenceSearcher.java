@@ -52,6 +52,12 @@ else if (resource instanceof PlainTextResource)
       searchStruct(entry, (AbstractStruct)resource);
   }
 
+  @Override
+  ReferenceIndex.Query getIndexQuery()
+  {
+    return new ReferenceIndex.Query().addStrref(searchvalue);
+  }
+
   private void searchDialog(ResourceEntry entry, AbstractStruct dialog)
   {
     for (int i = 0; i < dialog.getFieldCount(); i++) {
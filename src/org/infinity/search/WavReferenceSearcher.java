@@ -34,6 +34,25 @@ protected void search(ResourceEntry entry, Resource resource)
     }
   }
 
+  @Override
+  ReferenceIndex.Query getIndexQuery()
+  {
+    String name = targetEntry.getResourceName();
+    int idx = name.lastIndexOf('.');
+    String nameBase = (idx > 0) ? name.substring(0, idx) : name;
+    ReferenceIndex.Query query = new ReferenceIndex.Query().addWord(nameBase);
+    if (idx > 0) {
+      query.addWordMatch(nameBase);
+    }
+    // strings associated with the sound resource
+    for (int strref = 0, count = StringTable.getNumEntries(); strref < count; strref++) {
+      if (nameBase.equalsIgnoreCase(StringTable.getSoundResource(strref))) {
+        query.addStrref(strref);
+      }
+    }
+    return query;
+  }
+
   private void searchStruct(ResourceEntry entry, AbstractStruct struct)
   {
     for (int i = 0; i < struct.getFieldCount(); i++) {
@@ -25,6 +25,7 @@
 {
   private final TreeMap<Long, IdsMapEntry> idsMap = new TreeMap<>();
   private final HashMap<String, Long> symbolMap = new HashMap<>();
+  private final HashMap<Integer, LongIntegerHashMap<IdsMapEntry>> tables = new HashMap<>();
   private final ResourceEntry entry;
   private final boolean caseSensitive;
 
@@ -88,6 +89,40 @@ public SortedSet<Long> getKeys()
     return new TreeSet<Long>(idsMap.keySet());
   }
 
+  /**
+   * Returns a read-only table of IDS entries as used by IDS-based bitmap fields. Tables are created
+   * once per offset value and shared by all callers.
+   * @param idsStart Only IDS values greater than or equal to this offset are included. The value
+   *                 is subtracted from the key of each entry.
+   * @return Table of IDS entries, including an entry for value {@code 0}.
+   */
+  public synchronized LongIntegerHashMap<IdsMapEntry> getTable(int idsStart)
+  {
+    LongIntegerHashMap<IdsMapEntry> retVal = tables.get(Integer.valueOf(idsStart));
+    if (retVal == null) {
+      retVal = new LongIntegerHashMap<IdsMapEntry>();
+      for (final IdsMapEntry e: idsMap.values()) {
+        long id = e.getID();
+        if (id >= idsStart) {
+          id -= idsStart;
+          retVal.put(Long.valueOf(id), new IdsMapEntry(id, e.getSymbol()));
+        }
+      }
+
+      // Add a fitting symbol for "0" to IDS list if needed
+      if (!retVal.containsKey(0L)) {
+        if (entry.toString().equalsIgnoreCase("EA.IDS")) {
+          retVal.put(0L, new IdsMapEntry(0L, "ANYONE"));
+        } else {
+          retVal.put(0L, new IdsMapEntry(0L, "NONE"));
+        }
+      }
+      retVal.setReadOnly();
+      tables.put(Integer.valueOf(idsStart), retVal);
+    }
+    return retVal;
+  }
+
   /** Returns the entry structure defined by the specified IDS value, or {@code null} otherwise. */
   public IdsMapEntry get(long value)
   {
@@ -16,14 +16,14 @@
 {
   private static final Map<String, IdsMap> common = new HashMap<>();
 
-  public static void remove(ResourceEntry entry)
+  public static synchronized void remove(ResourceEntry entry)
   {
     if (entry != null) {
       common.remove(entry.toString().toUpperCase(Locale.ENGLISH));
     }
   }
 
-  public static void clearCache()
+  public static synchronized void clearCache()
   {
     common.clear();
   }
@@ -52,6 +52,21 @@ public static synchronized IdsMap get(String name)
     return retVal;
   }
 
+  /**
+   * Returns a shared read-only table of IDS entries for the specified IDS resource.
+   * Tables are discarded together with the associated IDS resource.
+   * @param name IDS resource name.
+   * @param idsStart Only IDS values greater than or equal to this offset are included. The value
+   *                 is subtracted from the key of each entry.
+   * @return Table of IDS entries, or {@code null} if the IDS resource is not available.
+   * @see IdsMap#getTable(int)
+   */
+  public static LongIntegerHashMap<IdsMapEntry> getTable(String name, int idsStart)
+  {
+    IdsMap map = get(name);
+    return (map != null) ? map.getTable(idsStart) : null;
+  }
+
   /**
    * A convenience function that returns the numeric value of the specified symbol. Returns a
    * specified default value if symbol could not be resolved (which can be {@code null}).
@@ -4,68 +4,402 @@
 
 package org.infinity.util;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
-public final class IntegerHashMap<V> extends HashMap<Integer, V>
+/**
+ * A map with primitive {@code int} keys. Entries are stored in parallel arrays using open
+ * addressing with linear probing, which avoids boxed keys and per-entry node objects.
+ * The map supports {@code null} values. Iteration order is unspecified.
+ */
+public final class IntegerHashMap<V> extends AbstractMap<Integer, V>
 {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+  private static final Object REMOVED = new Object();     // marks slots of removed entries
+  private static final Object NULL_VALUE = new Object();  // replaces null values
+
+  private final float loadFactor;
+  private int[] keys;
+  private Object[] values;    // null indicates a free slot
+  private int size;           // number of entries
+  private int used;           // number of entries and removed slots
+  private int threshold;
+  private int modCount;
+  private Set<Map.Entry<Integer, V>> entrySet;
+
   public IntegerHashMap()
   {
-    super();
+    this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
   }
 
   public IntegerHashMap(int initialCapacity)
   {
-    super(initialCapacity);
+    this(initialCapacity, DEFAULT_LOAD_FACTOR);
   }
 
   public IntegerHashMap(int initialCapacity, float loadFactor)
   {
-    super(initialCapacity, loadFactor);
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+    }
+    if (!(loadFactor > 0.0f)) {
+      throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+    }
+    this.loadFactor = Math.min(loadFactor, 0.9f);
+    allocate(tableSizeFor(initialCapacity, this.loadFactor));
   }
 
   public IntegerHashMap(Map<Integer, ? extends V> m)
   {
-    super(m);
+    this(m.size(), DEFAULT_LOAD_FACTOR);
+    putAll(m);
+  }
+
+  /** Returns whether the map contains the specified key. */
+  public boolean containsKey(int key)
+  {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key)
+  {
+    return (key instanceof Integer) && containsKey(((Integer)key).intValue());
+  }
+
+  /** Returns the value associated with the specified key, or {@code null} if not available. */
+  public V get(int key)
+  {
+    int idx = indexOf(key);
+    return (idx >= 0) ? valueAt(idx) : null;
+  }
+
+  @Override
+  public V get(Object key)
+  {
+    return (key instanceof Integer) ? get(((Integer)key).intValue()) : null;
+  }
+
+  /**
+   * Associates the value with the specified key.
+   * @return The previous value associated with the key, or {@code null} if not available.
+   */
+  public V put(int key, V value)
+  {
+    int mask = keys.length - 1;
+    int freeSlot = -1;
+    int idx = hash(key) & mask;
+    for (; values[idx] != null; idx = (idx + 1) & mask) {
+      if (values[idx] == REMOVED) {
+        if (freeSlot < 0) {
+          freeSlot = idx;
+        }
+      } else if (keys[idx] == key) {
+        V oldValue = valueAt(idx);
+        values[idx] = (value != null) ? value : NULL_VALUE;
+        return oldValue;
+      }
+    }
+
+    if (freeSlot >= 0) {
+      idx = freeSlot;
+    } else {
+      used++;
+    }
+    keys[idx] = key;
+    values[idx] = (value != null) ? value : NULL_VALUE;
+    size++;
+    modCount++;
+    if (used > threshold) {
+      rehash();
+    }
+    return null;
+  }
+
+  @Override
+  public V put(Integer key, V value)
+  {
+    return put(key.intValue(), value);
   }
 
+  /**
+   * Removes the entry of the specified key.
+   * @return The value associated with the key, or {@code null} if not available.
+   */
+  public V remove(int key)
+  {
+    int idx = indexOf(key);
+    if (idx >= 0) {
+      V oldValue = valueAt(idx);
+      removeAt(idx);
+      return oldValue;
+    }
+    return null;
+  }
+
+  @Override
+  public V remove(Object key)
+  {
+    return (key instanceof Integer) ? remove(((Integer)key).intValue()) : null;
+  }
+
+  @Override
+  public void clear()
+  {
+    if (used > 0) {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = null;
+      }
+      size = used = 0;
+      modCount++;
+    }
+  }
+
+  @Override
+  public int size()
+  {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /** Returns the keys of the map. */
   public int[] keys()
   {
-    Set<Integer> set = keySet();
-    int[] result = new int[set.size()];
-    Iterator<Integer> iter = set.iterator();
-    int i = 0;
-    while (iter.hasNext() && i < result.length) {
-      result[i++] = iter.next().intValue();
+    int[] result = new int[size];
+    for (int i = 0, j = 0; i < values.length; i++) {
+      if (isSlotUsed(i)) {
+        result[j++] = keys[i];
+      }
     }
     return result;
   }
 
   @Override
-  public String toString()
-  {
-    StringBuffer buf = new StringBuffer();
-    buf.append('{');
-    Set<Map.Entry<Integer, V>> set = entrySet();
-    Iterator<Map.Entry<Integer, V>> i = set.iterator();
-    boolean hasNext = i.hasNext();
-    while (hasNext) {
-      Map.Entry<Integer, V> e = i.next();
-      int key = e.getKey();
-      V value = e.getValue();
-      buf.append(key);
-      buf.append('=');
-      if (value == this)
-        buf.append("(this Map)");
-      else
-        buf.append(value);
-      hasNext = i.hasNext();
-      if (hasNext)
-        buf.append(", ");
-    }
-    buf.append('}');
-    return buf.toString();
+  public Set<Map.Entry<Integer, V>> entrySet()
+  {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  private static int hash(int key)
+  {
+    int h = key * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int tableSizeFor(int capacity, float loadFactor)
+  {
+    int n = DEFAULT_CAPACITY;
+    while (n * loadFactor < capacity && n < (1 << 30)) {
+      n <<= 1;
+    }
+    return n;
+  }
+
+  private void allocate(int capacity)
+  {
+    keys = new int[capacity];
+    values = new Object[capacity];
+    threshold = Math.min(capacity - 1, (int)(capacity * loadFactor));
+  }
+
+  // Grows the table if needed and discards removed slots
+  private void rehash()
+  {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    int capacity = oldKeys.length;
+    while (size >= (int)(capacity * loadFactor) && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      Object v = oldValues[i];
+      if (v != null && v != REMOVED) {
+        int idx = hash(oldKeys[i]) & mask;
+        while (values[idx] != null) {
+          idx = (idx + 1) & mask;
+        }
+        keys[idx] = oldKeys[i];
+        values[idx] = v;
+      }
+    }
+    used = size;
+  }
+
+  private int indexOf(int key)
+  {
+    int mask = keys.length - 1;
+    for (int idx = hash(key) & mask; values[idx] != null; idx = (idx + 1) & mask) {
+      if (keys[idx] == key && values[idx] != REMOVED) {
+        return idx;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isSlotUsed(int idx)
+  {
+    return values[idx] != null && values[idx] != REMOVED;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V valueAt(int idx)
+  {
+    Object v = values[idx];
+    return (v != NULL_VALUE) ? (V)v : null;
+  }
+
+  private void removeAt(int idx)
+  {
+    values[idx] = REMOVED;
+    size--;
+    modCount++;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  private class EntrySet extends AbstractSet<Map.Entry<Integer, V>>
+  {
+    @Override
+    public Iterator<Map.Entry<Integer, V>> iterator()
+    {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size()
+    {
+      return size;
+    }
+
+    @Override
+    public void clear()
+    {
+      IntegerHashMap.this.clear();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<Integer, V>>
+  {
+    private int expectedModCount = modCount;
+    private int next = -1;
+    private int current = -1;
+
+    public EntryIterator()
+    {
+      advance();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      return next < values.length;
+    }
+
+    @Override
+    public Map.Entry<Integer, V> next()
+    {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = next;
+      advance();
+      return new Entry(current);
+    }
+
+    @Override
+    public void remove()
+    {
+      if (current < 0) {
+        throw new IllegalStateException();
+      }
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      removeAt(current);
+      current = -1;
+      expectedModCount = modCount;
+    }
+
+    private void advance()
+    {
+      do {
+        next++;
+      } while (next < values.length && !isSlotUsed(next));
+    }
+  }
+
+  private class Entry implements Map.Entry<Integer, V>
+  {
+    private final int key;
+    private V value;
+
+    public Entry(int idx)
+    {
+      this.key = keys[idx];
+      this.value = valueAt(idx);
+    }
+
+    @Override
+    public Integer getKey()
+    {
+      return Integer.valueOf(key);
+    }
+
+    @Override
+    public V getValue()
+    {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value)
+    {
+      V oldValue = this.value;
+      this.value = value;
+      put(key, value);
+      return oldValue;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+      return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return key ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString()
+    {
+      return key + "=" + value;
+    }
   }
 }
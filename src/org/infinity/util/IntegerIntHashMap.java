@@ -0,0 +1,154 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.util.Arrays;
+
+/**
+ * A map with primitive {@code int} keys and {@code int} values. Entries are stored in parallel
+ * arrays using open addressing with linear probing. Intended for lookup tables which are filled
+ * and queried frequently, such as color-to-palette-index caches.
+ */
+public final class IntegerIntHashMap
+{
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private int[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+  private int threshold;
+
+  public IntegerIntHashMap()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public IntegerIntHashMap(int initialCapacity)
+  {
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+    }
+    int n = DEFAULT_CAPACITY;
+    while (n * LOAD_FACTOR < initialCapacity && n < (1 << 30)) {
+      n <<= 1;
+    }
+    allocate(n);
+  }
+
+  /** Returns whether the map contains the specified key. */
+  public boolean containsKey(int key)
+  {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * Returns the value associated with the specified key.
+   * @param key The key to look up.
+   * @param defValue Returned if the map does not contain the key.
+   */
+  public int get(int key, int defValue)
+  {
+    int idx = indexOf(key);
+    return (idx >= 0) ? values[idx] : defValue;
+  }
+
+  /** Associates the value with the specified key. */
+  public void put(int key, int value)
+  {
+    int mask = keys.length - 1;
+    int idx = hash(key) & mask;
+    while (used[idx]) {
+      if (keys[idx] == key) {
+        values[idx] = value;
+        return;
+      }
+      idx = (idx + 1) & mask;
+    }
+    used[idx] = true;
+    keys[idx] = key;
+    values[idx] = value;
+    if (++size > threshold) {
+      grow();
+    }
+  }
+
+  /** Removes all entries from the map. */
+  public void clear()
+  {
+    if (size > 0) {
+      Arrays.fill(used, false);
+      size = 0;
+    }
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /** Returns the keys of the map. */
+  public int[] keys()
+  {
+    int[] result = new int[size];
+    for (int i = 0, j = 0; i < used.length; i++) {
+      if (used[i]) {
+        result[j++] = keys[i];
+      }
+    }
+    return result;
+  }
+
+  private static int hash(int key)
+  {
+    int h = key * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+
+  private void allocate(int capacity)
+  {
+    keys = new int[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+    threshold = (int)(capacity * LOAD_FACTOR);
+  }
+
+  private void grow()
+  {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+    allocate(oldKeys.length << 1);
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldUsed.length; i++) {
+      if (oldUsed[i]) {
+        int idx = hash(oldKeys[i]) & mask;
+        while (used[idx]) {
+          idx = (idx + 1) & mask;
+        }
+        used[idx] = true;
+        keys[idx] = oldKeys[i];
+        values[idx] = oldValues[i];
+      }
+    }
+  }
+
+  private int indexOf(int key)
+  {
+    int mask = keys.length - 1;
+    for (int idx = hash(key) & mask; used[idx]; idx = (idx + 1) & mask) {
+      if (keys[idx] == key) {
+        return idx;
+      }
+    }
+    return -1;
+  }
+}
@@ -4,58 +4,425 @@
 
 package org.infinity.util;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeMap;
 
-public final class LongIntegerHashMap<V> extends TreeMap<Long, V>
+/**
+ * A map with primitive {@code long} keys. Entries are stored in parallel arrays using open
+ * addressing with linear probing, which avoids boxed keys and per-entry node objects.
+ * The map supports {@code null} values. Keys are iterated in ascending order.
+ */
+public final class LongIntegerHashMap<V> extends AbstractMap<Long, V>
 {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+  private static final Object REMOVED = new Object();     // marks slots of removed entries
+  private static final Object NULL_VALUE = new Object();  // replaces null values
+
+  private long[] keys;
+  private Object[] values;    // null indicates a free slot
+  private int size;           // number of entries
+  private int used;           // number of entries and removed slots
+  private int threshold;
+  private int modCount;
+  private long[] sortedKeys;  // cached list of keys in ascending order
+  private boolean readOnly;
+  private Set<Map.Entry<Long, V>> entrySet;
+
   public LongIntegerHashMap()
   {
-    super();
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongIntegerHashMap(int initialCapacity)
+  {
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+    }
+    allocate(tableSizeFor(initialCapacity));
   }
 
   public LongIntegerHashMap(Map<Long, ? extends V> m)
   {
-    super(m);
+    this(m.size());
+    putAll(m);
+  }
+
+  /**
+   * Prevents further modifications of the map. Tables which are shared by several objects
+   * should be marked as read-only.
+   * @return This map.
+   */
+  public LongIntegerHashMap<V> setReadOnly()
+  {
+    getSortedKeys();  // shared maps must not be modified by readers
+    readOnly = true;
+    return this;
+  }
+
+  /** Returns whether modifications of the map are prohibited. */
+  public boolean isReadOnly()
+  {
+    return readOnly;
+  }
+
+  /** Returns whether the map contains the specified key. */
+  public boolean containsKey(long key)
+  {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key)
+  {
+    return (key instanceof Long) && containsKey(((Long)key).longValue());
+  }
+
+  /** Returns the value associated with the specified key, or {@code null} if not available. */
+  public V get(long key)
+  {
+    int idx = indexOf(key);
+    return (idx >= 0) ? valueAt(idx) : null;
+  }
+
+  @Override
+  public V get(Object key)
+  {
+    return (key instanceof Long) ? get(((Long)key).longValue()) : null;
+  }
+
+  /**
+   * Associates the value with the specified key.
+   * @return The previous value associated with the key, or {@code null} if not available.
+   */
+  public V put(long key, V value)
+  {
+    checkModifiable();
+    int mask = keys.length - 1;
+    int freeSlot = -1;
+    int idx = hash(key) & mask;
+    for (; values[idx] != null; idx = (idx + 1) & mask) {
+      if (values[idx] == REMOVED) {
+        if (freeSlot < 0) {
+          freeSlot = idx;
+        }
+      } else if (keys[idx] == key) {
+        V oldValue = valueAt(idx);
+        values[idx] = (value != null) ? value : NULL_VALUE;
+        return oldValue;
+      }
+    }
+
+    if (freeSlot >= 0) {
+      idx = freeSlot;
+    } else {
+      used++;
+    }
+    keys[idx] = key;
+    values[idx] = (value != null) ? value : NULL_VALUE;
+    size++;
+    modCount++;
+    sortedKeys = null;
+    if (used > threshold) {
+      rehash();
+    }
+    return null;
   }
 
+  @Override
+  public V put(Long key, V value)
+  {
+    return put(key.longValue(), value);
+  }
+
+  @Override
+  public void putAll(Map<? extends Long, ? extends V> map)
+  {
+    checkModifiable();
+    super.putAll(map);
+  }
+
+  /**
+   * Removes the entry of the specified key.
+   * @return The value associated with the key, or {@code null} if not available.
+   */
+  public V remove(long key)
+  {
+    checkModifiable();
+    int idx = indexOf(key);
+    if (idx >= 0) {
+      V oldValue = valueAt(idx);
+      removeAt(idx);
+      return oldValue;
+    }
+    return null;
+  }
+
+  @Override
+  public V remove(Object key)
+  {
+    checkModifiable();
+    return (key instanceof Long) ? remove(((Long)key).longValue()) : null;
+  }
+
+  @Override
+  public void clear()
+  {
+    checkModifiable();
+    if (used > 0) {
+      Arrays.fill(values, null);
+      size = used = 0;
+      modCount++;
+      sortedKeys = null;
+    }
+  }
+
+  @Override
+  public int size()
+  {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /** Returns the keys of the map in ascending order. */
   public long[] keys()
   {
-    Set<Long> set = keySet();
-    long[] result = new long[set.size()];
-    Iterator<Long> iter = set.iterator();
-    int i = 0;
-    while (iter.hasNext() && i < result.length) {
-      result[i++] = iter.next().longValue();
+    return getSortedKeys().clone();
+  }
+
+  @Override
+  public Set<Map.Entry<Long, V>> entrySet()
+  {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  private static int hash(long key)
+  {
+    long h = key * 0x9e3779b97f4a7c15L;
+    return (int)(h ^ (h >>> 32));
+  }
+
+  private static int tableSizeFor(int capacity)
+  {
+    int n = DEFAULT_CAPACITY;
+    while (n < capacity * 2 && n < (1 << 30)) {
+      n <<= 1;
+    }
+    return n;
+  }
+
+  private void allocate(int capacity)
+  {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    threshold = (int)(capacity * DEFAULT_LOAD_FACTOR);
+  }
+
+  // Grows the table if needed and discards removed slots
+  private void rehash()
+  {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    int capacity = oldKeys.length;
+    while (size >= (int)(capacity * DEFAULT_LOAD_FACTOR) && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      Object v = oldValues[i];
+      if (v != null && v != REMOVED) {
+        int idx = hash(oldKeys[i]) & mask;
+        while (values[idx] != null) {
+          idx = (idx + 1) & mask;
+        }
+        keys[idx] = oldKeys[i];
+        values[idx] = v;
+      }
+    }
+    used = size;
+  }
+
+  private int indexOf(long key)
+  {
+    int mask = keys.length - 1;
+    for (int idx = hash(key) & mask; values[idx] != null; idx = (idx + 1) & mask) {
+      if (keys[idx] == key && values[idx] != REMOVED) {
+        return idx;
+      }
+    }
+    return -1;
+  }
+
+  private long[] getSortedKeys()
+  {
+    long[] result = sortedKeys;
+    if (result == null) {
+      result = new long[size];
+      for (int i = 0, j = 0; i < values.length; i++) {
+        if (values[i] != null && values[i] != REMOVED) {
+          result[j++] = keys[i];
+        }
+      }
+      Arrays.sort(result);
+      sortedKeys = result;
     }
     return result;
   }
 
-  @Override
-  public String toString()
-  {
-    StringBuffer buf = new StringBuffer();
-    buf.append('{');
-    Set<Map.Entry<Long, V>> set = entrySet();
-    Iterator<Map.Entry<Long, V>> i = set.iterator();
-    boolean hasNext = i.hasNext();
-    while (hasNext) {
-      Map.Entry<Long, V> e = i.next();
-      long key = e.getKey();
-      V value = e.getValue();
-      buf.append(key);
-      buf.append('=');
-      if (value == this)
-        buf.append("(this Map)");
-      else
-        buf.append(value);
-      hasNext = i.hasNext();
-      if (hasNext)
-        buf.append(", ");
-    }
-    buf.append('}');
-    return buf.toString();
+  @SuppressWarnings("unchecked")
+  private V valueAt(int idx)
+  {
+    Object v = values[idx];
+    return (v != NULL_VALUE) ? (V)v : null;
+  }
+
+  private void removeAt(int idx)
+  {
+    values[idx] = REMOVED;
+    size--;
+    modCount++;
+    sortedKeys = null;
+  }
+
+  private void checkModifiable()
+  {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Map is read-only");
+    }
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  private class EntrySet extends AbstractSet<Map.Entry<Long, V>>
+  {
+    @Override
+    public Iterator<Map.Entry<Long, V>> iterator()
+    {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size()
+    {
+      return size;
+    }
+
+    @Override
+    public void clear()
+    {
+      LongIntegerHashMap.this.clear();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<Long, V>>
+  {
+    private final long[] order = getSortedKeys();
+    private int expectedModCount = modCount;
+    private int next;
+    private Entry current;
+
+    @Override
+    public boolean hasNext()
+    {
+      return next < order.length;
+    }
+
+    @Override
+    public Map.Entry<Long, V> next()
+    {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = new Entry(order[next++]);
+      return current;
+    }
+
+    @Override
+    public void remove()
+    {
+      if (current == null) {
+        throw new IllegalStateException();
+      }
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      LongIntegerHashMap.this.remove(current.key);
+      current = null;
+      expectedModCount = modCount;
+    }
+  }
+
+  private class Entry implements Map.Entry<Long, V>
+  {
+    private final long key;
+    private V value;
+
+    public Entry(long key)
+    {
+      this.key = key;
+      this.value = get(key);
+    }
+
+    @Override
+    public Long getKey()
+    {
+      return Long.valueOf(key);
+    }
+
+    @Override
+    public V getValue()
+    {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value)
+    {
+      V oldValue = this.value;
+      this.value = value;
+      put(key, value);
+      return oldValue;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+      return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Long.hashCode(key) ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString()
+    {
+      return key + "=" + value;
+    }
   }
 }
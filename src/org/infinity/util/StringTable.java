@@ -7,14 +7,25 @@
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.infinity.NearInfinity;
 import org.infinity.datatype.DecNumber;
@@ -152,6 +163,7 @@ public static void resetAll()
     synchronized (TLK_TABLE) {
       TLK_TABLE.clear();
     }
+    _deleteStaleFiles();
     charset = null;
     hasFemaleTable = null;
   }
@@ -307,6 +319,39 @@ public static String getStringRef(Type type, int index, Format fmt) throws Index
     return instance(type)._getStringRef(index, fmt);
   }
 
+  /**
+   * Returns the male strings of the given indices using default formatting.
+   * Strings of non-existing indices are returned as "No such index".
+   */
+  public static String[] getStringRefs(int[] indices)
+  {
+    return getStringRefs(Type.MALE, indices, getDisplayFormat());
+  }
+
+  /**
+   * Returns the male strings of the given indices using specified formatting.
+   * Strings of non-existing indices are returned as "No such index".
+   */
+  public static String[] getStringRefs(int[] indices, Format fmt)
+  {
+    return getStringRefs(Type.MALE, indices, fmt);
+  }
+
+  /**
+   * Returns the strings of the given indices and type using specified formatting.
+   * All strings are resolved from the same state of the string table, which is cheaper
+   * than resolving them individually.
+   * Strings of non-existing indices are returned as "No such index".
+   * (Defaults to {@code Type.MALE} if specified type is not available.)
+   */
+  public static String[] getStringRefs(Type type, int[] indices, Format fmt)
+  {
+    if (indices == null) {
+      throw new NullPointerException();
+    }
+    return instance(type)._getStringRefs(indices, fmt);
+  }
+
   /**
    * Sets the specified text to the male string entry.
    * @throws IndexOutOfBoundsException if index is outside of range.
@@ -499,6 +544,7 @@ public static void setPitch(Type type, int index, int value) throws IndexOutOfBo
 
   /**
    * Returns the StringEntry instance that is used internally to store string information.
+   * The instance is created on first access and should only be requested for editing purposes.
    * (Defaults to {@code Type.MALE} if specified type is not available.)
    * @throws IndexOutOfBoundsException if index is outside of range.
    */
@@ -530,16 +576,17 @@ public static boolean isModified(Type type)
   }
 
   /**
-   * Ensures that all available entries of the specified string table are fully loaded into memory.
+   * Ensures that the specified string table is available. String data is mapped into memory
+   * and decoded on demand, so entries don't have to be loaded individually.
    * @param type The string table
    */
   public static void ensureFullyLoaded(Type type)
   {
-    instance(type)._ensureFullyLoaded();
+    instance(type)._init();
   }
 
   /**
-   * Ensures that all available entries of all available string table are fully loaded into memory.
+   * Ensures that all available string tables are available.
    */
   public static void ensureFullyLoaded()
   {
@@ -740,6 +787,7 @@ public static boolean write(Type type, ProgressCallback callback)
       instance(type)._write(callback);
       retVal = true;
     } catch (IOException e) {
+      e.printStackTrace();
     }
 
     return retVal;
@@ -760,6 +808,7 @@ public static boolean write(Type type, Path tlkFile, ProgressCallback callback)
       instance(type)._write(tlkFile, callback);
       retVal = true;
     } catch (IOException e) {
+      e.printStackTrace();
     }
 
     return retVal;
@@ -828,11 +877,7 @@ public static boolean exportTra(Path outFile, ProgressCallback callback)
     }
 
     StringTable tableMale = instance(Type.MALE);
-    tableMale._ensureFullyLoaded();
     StringTable tableFemale = hasFemaleTable() ? instance(Type.FEMALE) : null;
-    if (tableFemale != null) {
-      tableFemale._ensureFullyLoaded();
-    }
 
     if (callback != null) { callback.init(tableMale._getNumEntries()); }
     boolean retVal = true;
@@ -949,19 +994,28 @@ private static String getFormatString(Format format)
   }
 
 
-  private final ArrayList<StringEntry> entries = new ArrayList<>();
+  private static final int HEADER_SIZE = 18;  // size of the TLK header
+  private static final int ENTRY_SIZE = 26;   // size of a single string entry record
+  private static final int WRITE_CHUNK_SIZE = 4096;  // number of string entries processed per task
+
+  // Replaced string table files which are still mapped and will be deleted later
+  private static final List<Path> STALE_FILES = new ArrayList<>();
+
+  // Empty content of uninitialized string tables
+  private static final State EMPTY_STATE = new State(null, 0, 0, new AtomicReferenceArray<StringEntry>(0));
+
+  // Guards all operations which modify the string table structure or promote string entries
+  private final Object lock = new Object();
   private final Path tlkPath;
   private final StringTable.Type tlkType;
 
-  // cached TLK header data
-  private int numEntries, ofsStrings;
-  private ByteBuffer headerData;
-  private int entriesPending;
-//  private boolean fullyLoaded;
+  // Current content of the string table, replaced as a whole by structural changes
+  private volatile State state = EMPTY_STATE;
+  private volatile int entriesPending;
 
   private short langId;
-  private boolean initialized;
-  private boolean modified;
+  private volatile boolean initialized;
+  private volatile boolean modified;
 
   private StringTable(Type tlkType, Path tlkPath)
   {
@@ -970,7 +1024,6 @@ private StringTable(Type tlkType, Path tlkPath)
     }
     this.tlkType = tlkType;
     this.tlkPath = tlkPath;
-    this.numEntries = 0;
     _init();
   }
 
@@ -991,13 +1044,38 @@ private short _getLanguageId()
 
   private int _getNumEntries()
   {
-    return entries.size();
+    return state.entries.length();
   }
 
   private String _getStringRef(int index, Format fmt) throws IndexOutOfBoundsException
   {
-    StringEntry entry = _getEntry(index);
-    return String.format(getFormatString(fmt), entry.getText(), index);
+    State st = state;
+    StringEntry entry = _getLoadedEntry(st, index);
+    String text = (entry != null) ? entry.getText() : _readText(st, st.data.duplicate(), index);
+    return String.format(getFormatString(fmt), text, index);
+  }
+
+  private String[] _getStringRefs(int[] indices, Format fmt)
+  {
+    String[] retVal = new String[indices.length];
+    State st = state;
+    String formatString = getFormatString(fmt);
+    ByteBuffer bb = null;
+    for (int i = 0; i < indices.length; i++) {
+      int index = indices[i];
+      StringEntry entry = _getLoadedEntry(st, index);
+      String text;
+      if (entry != null) {
+        text = entry.getText();
+      } else {
+        if (bb == null) {
+          bb = st.data.duplicate();
+        }
+        text = _readText(st, bb, index);
+      }
+      retVal[i] = String.format(formatString, text, index);
+    }
+    return retVal;
   }
 
   private void _setStringRef(int index, String text) throws IndexOutOfBoundsException
@@ -1007,7 +1085,9 @@ private void _setStringRef(int index, String text) throws IndexOutOfBoundsExcept
 
   private String _getSoundResource(int index) throws IndexOutOfBoundsException
   {
-    return _getEntry(index).getSoundRef();
+    State st = state;
+    StringEntry entry = _getLoadedEntry(st, index);
+    return (entry != null) ? entry.getSoundRef() : _readSoundRef(st, index);
   }
 
   private void _setSoundResource(int index, String resRef) throws IndexOutOfBoundsException
@@ -1017,7 +1097,9 @@ private void _setSoundResource(int index, String resRef) throws IndexOutOfBounds
 
   private short _getFlags(int index) throws IndexOutOfBoundsException
   {
-    return _getEntry(index).getFlags();
+    State st = state;
+    StringEntry entry = _getLoadedEntry(st, index);
+    return (entry != null) ? entry.getFlags() : st.data.getShort(_getRecordOffset(index));
   }
 
   private void _setFlags(int index, short value) throws IndexOutOfBoundsException
@@ -1027,7 +1109,9 @@ private void _setFlags(int index, short value) throws IndexOutOfBoundsException
 
   private int _getVolume(int index) throws IndexOutOfBoundsException
   {
-    return _getEntry(index).getVolume();
+    State st = state;
+    StringEntry entry = _getLoadedEntry(st, index);
+    return (entry != null) ? entry.getVolume() : st.data.getInt(_getRecordOffset(index) + 10);
   }
 
   private void _setVolume(int index, int value) throws IndexOutOfBoundsException
@@ -1037,7 +1121,9 @@ private void _setVolume(int index, int value) throws IndexOutOfBoundsException
 
   private int _getPitch(int index) throws IndexOutOfBoundsException
   {
-    return _getEntry(index).getPitch();
+    State st = state;
+    StringEntry entry = _getLoadedEntry(st, index);
+    return (entry != null) ? entry.getPitch() : st.data.getInt(_getRecordOffset(index) + 14);
   }
 
   private void _setPitch(int index, int value) throws IndexOutOfBoundsException
@@ -1049,43 +1135,81 @@ private void _setPitch(int index, int value) throws IndexOutOfBoundsException
   private StringEntry _getEntry(int index) throws IndexOutOfBoundsException
   {
     _ensureIndexIsLoaded(index);
-    StringEntry entry;
-    if (index >= 0 && index < entries.size()) {
-      entry = entries.get(index);
-    } else {
-      entry = StringEntry.getInvalidEntry();
+    State st = state;
+    StringEntry entry = null;
+    if (index >= 0 && index < st.entries.length()) {
+      entry = st.entries.get(index);
     }
-    return entry;
+    return (entry != null) ? entry : StringEntry.getInvalidEntry();
+  }
+
+  // Returns the StringEntry instance if available, or null if data has to be read from the TLK file
+  private static StringEntry _getLoadedEntry(State st, int index)
+  {
+    if (index >= 0 && index < st.entries.length()) {
+      StringEntry entry = st.entries.get(index);
+      if (entry != null || index < st.numMapped) {
+        return entry;
+      }
+    }
+    return StringEntry.getInvalidEntry();
+  }
+
+  // Returns the start offset of the specified string entry record in the TLK file
+  private static int _getRecordOffset(int index)
+  {
+    return HEADER_SIZE + index * ENTRY_SIZE;
+  }
+
+  // Reads the sound reference of the specified string entry record
+  private static String _readSoundRef(State st, int index)
+  {
+    return StreamUtils.readString(st.data.duplicate(), _getRecordOffset(index) + 2, 8);
+  }
+
+  // Decodes the text of the specified string entry record, using "bb" as a private view of the TLK data
+  private static String _readText(State st, ByteBuffer bb, int index)
+  {
+    int ofs = _getRecordOffset(index);
+    long ofsString = st.ofsStrings + (long)st.data.getInt(ofs + 18);
+    int lenString = st.data.getInt(ofs + 22);
+    if (lenString <= 0) {
+      return "";
+    }
+    if (ofsString < 0L || ofsString + lenString > st.data.limit()) {
+      System.err.println("Error: Illegal offset " + ofsString + " for string entry " + index);
+      return "";
+    }
+    byte[] buf = new byte[lenString];
+    bb.position((int)ofsString);
+    bb.get(buf);
+    return new String(buf, getCharset());
   }
 
   private void _init()
   {
     if (!_initialized()) {
-      synchronized (entries) {
-        try (FileChannel ch = _open()) {
+      synchronized (lock) {
+        if (_initialized()) {
+          return;
+        }
+        try {
           // parsing header
-          String sig = StreamUtils.readString(ch, 8);
+          ByteBuffer data = _map();
+          String sig = StreamUtils.readString(data, 0, 8);
           if (!"TLK V1  ".equals(sig)) {
             throw new Exception("Invalid TLK signature");
           }
 
-          langId = StreamUtils.readShort(ch);
-          numEntries = StreamUtils.readInt(ch);
-          ofsStrings = StreamUtils.readInt(ch);
-
-          int bufferSize = 26 * numEntries;
-          headerData = StreamUtils.getByteBuffer(bufferSize);
-          if (ch.read(headerData) < bufferSize) {
+          langId = data.getShort(8);
+          int numEntries = data.getInt(10);
+          int ofsStrings = data.getInt(14);
+          if (numEntries < 0 || HEADER_SIZE + (long)numEntries * ENTRY_SIZE > data.limit()) {
             throw new Exception("Not enough data");
           }
-          headerData.position(0);
-
-          // fill cache with placeholder string entries
-          entries.ensureCapacity(numEntries + 10);
-          while (entries.size() < numEntries) {
-            entries.add(null);
-          }
 
+          // string entries are created on demand
+          state = new State(data, ofsStrings, numEntries, new AtomicReferenceArray<StringEntry>(numEntries));
           entriesPending = numEntries;
           initialized = true;
         } catch (Exception e) {
@@ -1102,54 +1226,36 @@ private boolean _initialized()
 
   private void _reset()
   {
-    synchronized (entries) {
-      entries.clear();
-      headerData = null;
-      ofsStrings = numEntries = entriesPending = -1;
+    synchronized (lock) {
+      state = EMPTY_STATE;
+      entriesPending = -1;
       initialized = false;
       _resetModified();
     }
     _init();
   }
 
-  private FileChannel _open() throws IOException
+  // Maps the whole string table file into memory
+  private ByteBuffer _map() throws IOException
   {
-    return FileChannel.open(_getPath(), StandardOpenOption.READ);
+    try (FileChannel ch = FileChannel.open(_getPath(), StandardOpenOption.READ)) {
+      return ch.map(MapMode.READ_ONLY, 0L, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+    }
   }
 
-  private StringEntry _loadEntry(FileChannel ch, int index) throws IOException, IndexOutOfBoundsException,
-                                                            IllegalArgumentException
+  // Creates a StringEntry instance from the specified string entry record
+  private StringEntry _loadEntry(State st, int index) throws IndexOutOfBoundsException
   {
-    if (index < 0 || index >= _getNumEntries()) {
+    if (index < 0 || index >= st.numMapped) {
       throw new IndexOutOfBoundsException();
     }
 
-    StringEntry entry = null;
-    if (ch != null) {
-      int ofs = index * 26; // rel. offset entry
-      headerData.position(ofs);
-      short flags = headerData.getShort();
-      String soundRef = StreamUtils.readString(headerData, 8);
-      int volume = headerData.getInt();
-      int pitch = headerData.getInt();
-      int ofsString = ofsStrings + headerData.getInt();
-      int lenString = headerData.getInt();
-      headerData.position(0);
-      String text = null;
-      if (lenString > 0) {
-        try {
-          ch.position(ofsString);
-          text = StreamUtils.readString(ch, lenString, getCharset());
-        } catch (IllegalArgumentException e) {
-          System.err.println("Error: Illegal offset " + ofsString + " for string entry " + index);
-          text = "";
-        }
-      } else {
-        text = "";
-      }
-      entry = new StringEntry(this, flags, soundRef, volume, pitch, text);
-    }
-    return entry;
+    int ofs = _getRecordOffset(index);
+    short flags = st.data.getShort(ofs);
+    int volume = st.data.getInt(ofs + 10);
+    int pitch = st.data.getInt(ofs + 14);
+    return new StringEntry(this, flags, _readSoundRef(st, index), volume, pitch,
+                           _readText(st, st.data.duplicate(), index));
   }
 
   private int _insertEntry(int index) throws IndexOutOfBoundsException
@@ -1159,19 +1265,30 @@ private int _insertEntry(int index) throws IndexOutOfBoundsException
 
   private int _insertEntry(int index, StringEntry newEntry) throws IndexOutOfBoundsException
   {
-    if (index < 0 || index > _getNumEntries()) {
-      throw new IndexOutOfBoundsException();
-    }
     if (newEntry == null) {
       newEntry = new StringEntry(this);
     } else {
       newEntry.parent = this;
     }
 
-    _ensureFullyLoaded();
-    newEntry.setModified();
-    synchronized (entries) {
-      entries.add(index, newEntry);
+    synchronized (lock) {
+      State st = state;
+      if (index < 0 || index > st.entries.length()) {
+        throw new IndexOutOfBoundsException();
+      }
+
+      _ensureFullyLoaded();
+      newEntry.setModified();
+      int numEntries = st.entries.length();
+      AtomicReferenceArray<StringEntry> list = new AtomicReferenceArray<>(numEntries + 1);
+      for (int idx = 0; idx < index; idx++) {
+        list.set(idx, st.entries.get(idx));
+      }
+      list.set(index, newEntry);
+      for (int idx = index; idx < numEntries; idx++) {
+        list.set(idx + 1, st.entries.get(idx));
+      }
+      state = new State(st.data, st.ofsStrings, st.numMapped, list);
     }
 
     return index;
@@ -1179,30 +1296,35 @@ private int _insertEntry(int index, StringEntry newEntry) throws IndexOutOfBound
 
   private void _removeEntry(int index) throws IndexOutOfBoundsException
   {
-    if (index < 0 || index >= _getNumEntries()) {
-      throw new IndexOutOfBoundsException();
-    }
+    synchronized (lock) {
+      State st = state;
+      if (index < 0 || index >= st.entries.length()) {
+        throw new IndexOutOfBoundsException();
+      }
 
-    _ensureFullyLoaded();
-    synchronized (entries) {
-      entries.remove(index);
+      _ensureFullyLoaded();
+      int numEntries = st.entries.length();
+      AtomicReferenceArray<StringEntry> list = new AtomicReferenceArray<>(numEntries - 1);
+      for (int idx = 0; idx < index; idx++) {
+        list.set(idx, st.entries.get(idx));
+      }
+      for (int idx = index + 1; idx < numEntries; idx++) {
+        list.set(idx - 1, st.entries.get(idx));
+      }
+      state = new State(st.data, st.ofsStrings, st.numMapped, list);
     }
   }
 
-  // Loads all remaining string entries from file
+  // Creates StringEntry instances for all remaining string entries, e.g. before entries are moved
   private void _ensureFullyLoaded()
   {
     if (entriesPending > 0) {
-      synchronized (entries) {
-        try (FileChannel ch = _open()) {
-          for (int idx = 0, num = _getNumEntries(); idx < num; idx++) {
-            if (entries.get(idx) == null) {
-              StringEntry entry = _loadEntry(ch, idx);
-              if (entry != null) {
-                entries.set(idx, entry);
-              } else {
-                throw new Exception();
-              }
+      synchronized (lock) {
+        try {
+          State st = state;
+          for (int idx = 0, num = st.entries.length(); idx < num; idx++) {
+            if (st.entries.get(idx) == null) {
+              st.entries.set(idx, _loadEntry(st, idx));
             }
           }
           entriesPending = 0;
@@ -1213,18 +1335,17 @@ private void _ensureFullyLoaded()
     }
   }
 
-  // Makes sure the specified string entry is loaded into memory
+  // Makes sure a StringEntry instance is available for the specified string entry
   private void _ensureIndexIsLoaded(int index)
   {
-    if (entriesPending > 0 && index >= 0 && index < _getNumEntries() && entries.get(index) == null) {
-      synchronized (entries) {
-        try (FileChannel ch = _open()) {
-          StringEntry entry = _loadEntry(ch, index);
-          if (entry != null) {
-            entries.set(index, entry);
+    State st = state;
+    if (entriesPending > 0 && index >= 0 && index < st.entries.length() && st.entries.get(index) == null) {
+      synchronized (lock) {
+        try {
+          st = state;
+          if (index < st.entries.length() && st.entries.get(index) == null) {
+            st.entries.set(index, _loadEntry(st, index));
             entriesPending--;
-          } else {
-            throw new Exception();
           }
         } catch (Exception e) {
           e.printStackTrace();
@@ -1236,10 +1357,12 @@ private void _ensureIndexIsLoaded(int index)
   private void _resetEntries()
   {
     if (_isModified()) {
-      synchronized (entries) {
-        for (int idx = 0, cnt = entries.size(); idx < cnt; idx++) {
-          if (entries.get(idx) != null && entries.get(idx).isModified()) {
-            entries.set(idx, null);
+      synchronized (lock) {
+        State st = state;
+        for (int idx = 0, cnt = Math.min(st.entries.length(), st.numMapped); idx < cnt; idx++) {
+          StringEntry entry = st.entries.get(idx);
+          if (entry != null && entry.isModified()) {
+            st.entries.set(idx, null);
             entriesPending++;
           }
         }
@@ -1277,101 +1400,74 @@ private void _write(ProgressCallback callback) throws IOException
     _write(_getPath(), callback);
   }
 
-  // Writes currently loaded data to disk under specified filename regardless of its modified state
+  // Writes currently loaded data to disk under specified filename regardless of its modified state.
+  // Data is written into a temporary file which replaces the target file when completed. The current
+  // string table file is never modified, since it is mapped into memory and may be in use by readers.
   private void _write(Path tlkPath, ProgressCallback callback) throws IOException
   {
     if (tlkPath == null) {
       throw new NullPointerException();
     }
 
-    _ensureFullyLoaded();
-    synchronized (entries) {
+    synchronized (lock) {
       boolean success = false;
 
-      // 1. backing up current string table file if needed
-      Path pathBackup = null;
-      if (Files.isRegularFile(tlkPath)) {
-        String name = tlkPath.getFileName().toString();
-        for (int i = 0; i < 999; i++) {
-          Path path = tlkPath.getParent().resolve(name + "-" + i);
-          if (!Files.exists(path)) {
-            pathBackup = path;
-            break;
-          }
-        }
-        if (pathBackup != null) {
-          Files.move(tlkPath, pathBackup);
-        }
+      // string data of unmodified entries is copied over from the current file if available
+      Path pathSource = _getPath();
+      if (state.data == null || !Files.isRegularFile(pathSource)) {
+        _ensureFullyLoaded();
+        pathSource = null;
       }
 
-      // 2. writing changes to disk
-      if (callback != null) { callback.init(_getNumEntries()); }
-      try (FileChannel ch = FileChannel.open(tlkPath, StandardOpenOption.CREATE,
-                                                      StandardOpenOption.WRITE,
-                                                      StandardOpenOption.TRUNCATE_EXISTING)) {
-        int headerSize = 18;
-        int entrySize = 26;
-        int numEntries = _getNumEntries();
-        int ofsStrings = headerSize + (numEntries * entrySize);
-
-        // write global header
-        ByteBuffer buffer = StreamUtils.getByteBuffer(headerSize);
-        buffer.position(0);
-        buffer.put("TLK V1  ".getBytes(Misc.CHARSET_DEFAULT));
-        buffer.putShort(_getLanguageId());
-        buffer.putInt(numEntries);
-        buffer.putInt(ofsStrings);
-        buffer.position(0);
-        ch.write(buffer);
-
-        // write entry headers
-        ArrayList<byte[]> stringList = new ArrayList<>(numEntries);
-        buffer = StreamUtils.getByteBuffer(entrySize);
-        int curStringOfs = 0;
-        for (final StringEntry entry: entries) {
-          byte[] data = entry.getTextBytes();
-          byte[] soundRef = entry.getSoundRefBytes();
-          buffer.position(0);
-          buffer.putShort(entry.getFlags());
-          buffer.put(soundRef);
-          buffer.putInt(entry.getVolume());
-          buffer.putInt(entry.getPitch());
-          buffer.putInt(curStringOfs);
-          buffer.putInt(data.length);
-          buffer.position(0);
-          ch.write(buffer);
-          stringList.add(data);
-          curStringOfs += data.length;
-        }
-
-        // write strings
-        int index = 0;
-        for (final byte[] data: stringList) {
-          if (callback != null) {
-            success = callback.progress(index++);
-            if (!success) {
-              throw new Exception("Operation cancelled");
-            }
+      // 1. writing changes into a temporary file
+      State st = state;
+      int numEntries = st.entries.length();
+      Path pathTemp = Files.createTempFile(tlkPath.toAbsolutePath().getParent(),
+                                           tlkPath.getFileName().toString() + "-", ".tmp");
+      _copyPermissions(Files.exists(tlkPath) ? tlkPath : _getPath(), pathTemp);
+      ThreadPoolExecutor executor = Misc.createThreadPool();
+      if (callback != null) { callback.init(numEntries); }
+      try {
+        try (FileChannel ch = FileChannel.open(pathTemp, StandardOpenOption.WRITE);
+             FileChannel src = (pathSource != null) ? FileChannel.open(pathSource, StandardOpenOption.READ) : null) {
+          // first pass: string sizes determine the layout of the whole file
+          int[] lengths = _getStringLengths(st, executor);
+          long size = HEADER_SIZE + (long)numEntries * ENTRY_SIZE;
+          for (final int len: lengths) {
+            size += len;
           }
-          buffer = StreamUtils.getByteBuffer(data);
-          buffer.position(0);
-          buffer.put(data);
-          buffer.position(0);
-          ch.write(buffer);
+          if (size > Integer.MAX_VALUE) {
+            throw new IOException("String table too large");
+          }
+          _writeEntries(ch, st, lengths);
+
+          // second pass: string data
+          _writeStrings(ch, src, st, lengths, executor, callback);
         }
 
+        // 2. replacing the target file
+        _replaceFile(pathTemp, tlkPath, st);
         _resetModified();
         success = true;
       } catch (IOException | UnsupportedOperationException e) {
         throw e;
+      } catch (ExecutionException e) {
+        // failed chunk task
+        Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+        if (cause instanceof IOException) {
+          throw (IOException)cause;
+        }
+        throw new IOException("Error writing " + tlkPath, cause);
       } catch (Exception e) {
+        // cancelled by user or interrupted
+        throw new IOException("Error writing " + tlkPath + ": " + e.getMessage(), e);
       } finally {
-        // 3. removing or restoring backup
-        if (pathBackup != null) {
-          if (success) {
-            Files.delete(pathBackup);
-          } else {
-            Files.move(pathBackup, _getPath(), StandardCopyOption.REPLACE_EXISTING);
+        executor.shutdownNow();
+        if (!success) {
+          try {
+            Files.deleteIfExists(pathTemp);
+          } catch (IOException e) {
+            e.printStackTrace();
           }
         }
 
@@ -1380,6 +1476,263 @@ private void _write(Path tlkPath, ProgressCallback callback) throws IOException
     }
   }
 
+  // Moves the completed temporary file to the target location. If the target is the current string
+  // table file, string data of unloaded entries is taken from the new file from now on.
+  private void _replaceFile(Path pathTemp, Path tlkPath, State st) throws IOException
+  {
+    if (!tlkPath.equals(_getPath())) {
+      Files.move(pathTemp, tlkPath, StandardCopyOption.REPLACE_EXISTING);
+      return;
+    }
+
+    Path pathOld = null;
+    try {
+      Files.move(pathTemp, tlkPath, StandardCopyOption.REPLACE_EXISTING);
+    } catch (FileSystemException e) {
+      // mapped files cannot be replaced on some platforms (e.g. Windows), but they can be renamed
+      pathOld = Files.createTempFile(tlkPath.toAbsolutePath().getParent(),
+                                     tlkPath.getFileName().toString() + "-", ".old");
+      Files.move(tlkPath, pathOld, StandardCopyOption.REPLACE_EXISTING);
+      try {
+        Files.move(pathTemp, tlkPath);
+      } catch (IOException e2) {
+        Files.move(pathOld, tlkPath);
+        throw e2;
+      }
+    }
+
+    // readers switch over to the new file atomically
+    int numEntries = st.entries.length();
+    state = new State(_map(), HEADER_SIZE + (numEntries * ENTRY_SIZE), numEntries, st.entries);
+
+    if (pathOld != null) {
+      synchronized (STALE_FILES) {
+        STALE_FILES.add(pathOld);
+      }
+      // the previous mapping is released when it is garbage collected
+      System.gc();
+      System.runFinalization();
+    }
+    _deleteStaleFiles();
+  }
+
+  // Applies the access permissions of the source file to the target file. Temporary files are created
+  // accessible by the owner only, which would otherwise be retained by the replaced string table file.
+  private static void _copyPermissions(Path source, Path target)
+  {
+    if (source == null || target == null || !Files.exists(source)) {
+      return;
+    }
+
+    try {
+      PosixFileAttributeView srcView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+      PosixFileAttributeView dstView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+      if (srcView != null && dstView != null) {
+        dstView.setPermissions(srcView.readAttributes().permissions());
+      }
+    } catch (IOException | UnsupportedOperationException e) {
+      // keep default permissions
+      e.printStackTrace();
+    }
+  }
+
+  // Removes replaced string table files which could not be deleted before, because they were still mapped
+  private static void _deleteStaleFiles()
+  {
+    synchronized (STALE_FILES) {
+      for (Iterator<Path> iter = STALE_FILES.iterator(); iter.hasNext(); ) {
+        try {
+          Files.deleteIfExists(iter.next());
+          iter.remove();
+        } catch (IOException e) {
+          // still in use
+        }
+      }
+    }
+  }
+
+  // Returns the encoded string lengths of all entries, determined in parallel chunks
+  private static int[] _getStringLengths(State st, ThreadPoolExecutor executor) throws Exception
+  {
+    int numEntries = st.entries.length();
+    int[] lengths = new int[numEntries];
+    List<Future<?>> results = new ArrayList<>();
+    for (int start = 0; start < numEntries; start += WRITE_CHUNK_SIZE) {
+      final int from = start;
+      final int to = Math.min(numEntries, start + WRITE_CHUNK_SIZE);
+      Misc.isQueueReady(executor, true, -1);
+      results.add(executor.submit(() -> {
+        for (int idx = from; idx < to; idx++) {
+          StringEntry entry = st.entries.get(idx);
+          lengths[idx] = (entry != null) ? entry.getTextBytes().length : _getRawTextLength(st, idx);
+        }
+      }));
+    }
+    for (final Future<?> result: results) {
+      result.get();
+    }
+    return lengths;
+  }
+
+  // Writes global header and entry records
+  private void _writeEntries(FileChannel ch, State st, int[] lengths) throws IOException
+  {
+    int numEntries = lengths.length;
+    ByteBuffer buffer = StreamUtils.getByteBuffer(HEADER_SIZE);
+    buffer.put("TLK V1  ".getBytes(Misc.CHARSET_DEFAULT));
+    buffer.putShort(_getLanguageId());
+    buffer.putInt(numEntries);
+    buffer.putInt(HEADER_SIZE + (numEntries * ENTRY_SIZE));
+    buffer.flip();
+    _writeFully(ch, buffer);
+
+    ByteBuffer data = (st.data != null) ? st.data.duplicate() : null;
+    buffer = StreamUtils.getByteBuffer(WRITE_CHUNK_SIZE * ENTRY_SIZE);
+    int curStringOfs = 0;
+    for (int idx = 0; idx < numEntries; idx++) {
+      StringEntry entry = st.entries.get(idx);
+      if (entry != null) {
+        buffer.putShort(entry.getFlags());
+        buffer.put(entry.getSoundRefBytes());
+        buffer.putInt(entry.getVolume());
+        buffer.putInt(entry.getPitch());
+      } else {
+        // flags, sound reference, volume and pitch are taken over from the original record
+        int ofs = _getRecordOffset(idx);
+        data.limit(ofs + 18);
+        data.position(ofs);
+        buffer.put(data);
+      }
+      buffer.putInt(curStringOfs);
+      buffer.putInt(lengths[idx]);
+      curStringOfs += lengths[idx];
+      if (!buffer.hasRemaining()) {
+        buffer.flip();
+        _writeFully(ch, buffer);
+        buffer.clear();
+      }
+    }
+    buffer.flip();
+    _writeFully(ch, buffer);
+  }
+
+  // Writes string data of all entries. Strings are encoded in parallel chunks and written by gathering
+  // writes. String data of entries which have not been loaded is transferred from the source file.
+  private static void _writeStrings(FileChannel ch, FileChannel src, State st, int[] lengths,
+                                    ThreadPoolExecutor executor, ProgressCallback callback) throws Exception
+  {
+    int numEntries = lengths.length;
+    int maxPending = executor.getCorePoolSize() * 2;
+    ArrayDeque<Future<byte[][]>> pending = new ArrayDeque<>();
+    List<ByteBuffer> buffers = new ArrayList<>();
+    long rawStart = 0L, rawLength = 0L;
+    int nextChunk = 0;
+    for (int start = 0; start < numEntries; start += WRITE_CHUNK_SIZE) {
+      // only a limited number of chunks is encoded in advance
+      while (nextChunk < numEntries && pending.size() < maxPending) {
+        final int from = nextChunk;
+        final int to = Math.min(numEntries, nextChunk + WRITE_CHUNK_SIZE);
+        pending.add(executor.submit(() -> {
+          byte[][] retVal = new byte[to - from][];
+          for (int idx = from; idx < to; idx++) {
+            StringEntry entry = st.entries.get(idx);
+            if (entry != null) {
+              retVal[idx - from] = entry.getTextBytes();
+            }
+          }
+          return retVal;
+        }));
+        nextChunk = to;
+      }
+
+      byte[][] strings = pending.poll().get();
+      for (int i = 0; i < strings.length; i++) {
+        int idx = start + i;
+        if (callback != null && !callback.progress(idx)) {
+          throw new Exception("Operation cancelled");
+        }
+        if (lengths[idx] == 0) {
+          continue;
+        }
+
+        if (strings[i] != null) {
+          if (strings[i].length != lengths[idx]) {
+            throw new IOException("String entry " + idx + " has been modified while saving");
+          }
+          if (rawLength > 0L) {
+            _transferFully(src, rawStart, rawLength, ch);
+            rawLength = 0L;
+          }
+          buffers.add(ByteBuffer.wrap(strings[i]));
+        } else {
+          long ofs = _getRawTextOffset(st, idx);
+          if (!buffers.isEmpty()) {
+            _writeFully(ch, buffers.toArray(new ByteBuffer[buffers.size()]));
+            buffers.clear();
+          }
+          // adjacent string data is transferred at once
+          if (rawLength > 0L && rawStart + rawLength != ofs) {
+            _transferFully(src, rawStart, rawLength, ch);
+            rawLength = 0L;
+          }
+          if (rawLength == 0L) {
+            rawStart = ofs;
+          }
+          rawLength += lengths[idx];
+        }
+      }
+
+      if (!buffers.isEmpty()) {
+        _writeFully(ch, buffers.toArray(new ByteBuffer[buffers.size()]));
+        buffers.clear();
+      }
+    }
+
+    if (rawLength > 0L) {
+      _transferFully(src, rawStart, rawLength, ch);
+    }
+  }
+
+  // Returns the absolute offset of the string data of the specified entry record
+  private static long _getRawTextOffset(State st, int index)
+  {
+    return st.ofsStrings + (long)st.data.getInt(_getRecordOffset(index) + 18);
+  }
+
+  // Returns the length of the string data of the specified entry record, or 0 if data is not available
+  private static int _getRawTextLength(State st, int index)
+  {
+    long ofsString = _getRawTextOffset(st, index);
+    int lenString = st.data.getInt(_getRecordOffset(index) + 22);
+    if (lenString <= 0 || ofsString < 0L || ofsString + lenString > st.data.limit()) {
+      return 0;
+    }
+    return lenString;
+  }
+
+  private static void _writeFully(FileChannel ch, ByteBuffer... buffers) throws IOException
+  {
+    long remaining = 0L;
+    for (final ByteBuffer buffer: buffers) {
+      remaining += buffer.remaining();
+    }
+    while (remaining > 0L) {
+      remaining -= ch.write(buffers);
+    }
+  }
+
+  private static void _transferFully(FileChannel src, long position, long count, FileChannel dst) throws IOException
+  {
+    while (count > 0L) {
+      long n = src.transferTo(position, count, dst);
+      if (n <= 0L) {
+        throw new IOException("Unexpected end of string data");
+      }
+      position += n;
+      count -= n;
+    }
+  }
+
   // Export as list of human-readable text entries
   private void _exportText(Path outFile, ProgressCallback callback) throws IOException
   {
@@ -1387,8 +1740,7 @@ private void _exportText(Path outFile, ProgressCallback callback) throws IOExcep
       throw new IOException("Output file not specified");
     }
 
-    _ensureFullyLoaded();
-    synchronized (entries) {
+    synchronized (lock) {
       if (callback != null) { callback.init(_getNumEntries()); }
       boolean success = false;
       PrintWriter writer = null;
@@ -1402,9 +1754,8 @@ private void _exportText(Path outFile, ProgressCallback callback) throws IOExcep
               break;
             }
           }
-          StringEntry entry = entries.get(idx);
           writer.println(idx + ":");
-          writer.println(entry.getText().replaceAll("\r?\n", newline));
+          writer.println(_getStringRef(idx, Format.NONE).replaceAll("\r?\n", newline));
           writer.println();
         }
       } catch (Exception e) {
@@ -1640,4 +1991,22 @@ public void done(boolean success) {}
      */
     public abstract boolean progress(int index);
   }
+
+  // Immutable snapshot of the string table structure. Readers work on the snapshot without locking,
+  // structural changes publish a new snapshot. Entry slots are null until the entry is promoted.
+  private static class State
+  {
+    private final ByteBuffer data;  // memory-mapped TLK file
+    private final int ofsStrings;
+    private final int numMapped;    // number of entry records available in "data"
+    private final AtomicReferenceArray<StringEntry> entries;
+
+    public State(ByteBuffer data, int ofsStrings, int numMapped, AtomicReferenceArray<StringEntry> entries)
+    {
+      this.data = data;
+      this.ofsStrings = ofsStrings;
+      this.numMapped = numMapped;
+      this.entries = entries;
+    }
+  }
 }
@@ -0,0 +1,571 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.infinity.resource.Profile;
+
+/**
+ * An inverted index of the words contained in a string table. Each distinct word (in lower case)
+ * is mapped to the strrefs of all strings containing it, which allows text searches to narrow
+ * down the strings to check in advance.
+ * <p>
+ * Indices are built in a background thread after a game has been loaded and are stored in the
+ * game's home folder. A stored index is reused as long as the string table file has not been
+ * modified.
+ */
+public final class StringTableIndex
+{
+  /** Format string of the index file names. The placeholder is replaced by the string table type. */
+  public static final String INDEX_FILE_NAME_FMT = "nearinfinity-%s.tlkindex";
+
+  private static final String SIGNATURE = "NITI";
+  private static final int VERSION = 1;
+
+  private static final EnumMap<StringTable.Type, StringTableIndex> INDEX = new EnumMap<>(StringTable.Type.class);
+
+  private static Thread builder;
+  private static boolean rebuild;   // whether the builder has to process further changes
+  private static int generation;    // incremented whenever indices are discarded
+
+  private final String tlkPath;
+  private final long lastModified;
+  private final long size;
+  private final String charset;
+  private final int numEntries;
+  private final String[] words;     // distinct words in ascending order
+  private final int[][] postings;   // strrefs in ascending order for each word
+
+  /**
+   * Returns the index of the specified string table. Returns {@code null} if the index is not
+   * available yet or if the string table has been modified since the index was built.
+   * (Defaults to {@code Type.MALE} if specified type is not available.)
+   */
+  public static StringTableIndex get(StringTable.Type type)
+  {
+    type = getType(type);
+    StringTableIndex index;
+    synchronized (INDEX) {
+      index = INDEX.get(type);
+    }
+    if (index != null && !index.isValid(type)) {
+      if (!StringTable.isModified(type)) {
+        // string table has been saved or changed externally
+        update();
+      }
+      index = null;
+    }
+    return index;
+  }
+
+  /**
+   * Builds or restores the indices of all available string tables in a background thread.
+   * Does nothing if the indices are already up to date.
+   */
+  public static void update()
+  {
+    synchronized (INDEX) {
+      if (builder != null) {
+        rebuild = true;
+        return;
+      }
+      final int curGeneration = generation;
+      builder = new Thread(() -> {
+        boolean again = true;
+        while (again) {
+          synchronized (INDEX) {
+            rebuild = false;
+          }
+          updateIndex(StringTable.Type.MALE, curGeneration);
+          if (StringTable.hasFemaleTable()) {
+            updateIndex(StringTable.Type.FEMALE, curGeneration);
+          }
+          synchronized (INDEX) {
+            again = rebuild && curGeneration == generation;
+            if (!again && builder == Thread.currentThread()) {
+              builder = null;
+            }
+          }
+        }
+      }, "StringTableIndex");
+      builder.setDaemon(true);
+      builder.setPriority(Thread.MIN_PRIORITY);
+      builder.start();
+    }
+  }
+
+  /** Discards all indices. Call this after opening a new game. */
+  public static void clearCache()
+  {
+    synchronized (INDEX) {
+      INDEX.clear();
+      // an active builder discards its results, the next update starts a new one
+      builder = null;
+      rebuild = false;
+      generation++;
+    }
+  }
+
+  /**
+   * Creates the index of the specified string table from its current content.
+   * (Defaults to {@code Type.MALE} if specified type is not available.)
+   */
+  public static StringTableIndex create(StringTable.Type type)
+  {
+    type = getType(type);
+    Path path = StringTable.getPath(type);
+    long[] stamp = getStamp(path);
+    String charset = StringTable.getCharset().name();
+    int numEntries = StringTable.getNumEntries(type);
+
+    HashMap<String, Postings> map = new HashMap<>(numEntries * 2);
+    for (int strref = 0; strref < numEntries; strref++) {
+      String text = StringTable.getStringRef(type, strref, StringTable.Format.NONE);
+      for (int i = 0, len = text.length(); i < len; ) {
+        if (isWordChar(text.charAt(i))) {
+          int start = i;
+          while (i < len && isWordChar(text.charAt(i))) {
+            i++;
+          }
+          String word = toLowerCase(text, start, i);
+          Postings p = map.get(word);
+          if (p == null) {
+            p = new Postings();
+            map.put(word, p);
+          }
+          p.add(strref);
+        } else {
+          i++;
+        }
+      }
+    }
+
+    String[] words = map.keySet().toArray(new String[map.size()]);
+    Arrays.sort(words);
+    int[][] postings = new int[words.length][];
+    for (int i = 0; i < words.length; i++) {
+      postings[i] = map.get(words[i]).toArray();
+    }
+    return new StringTableIndex(path.toString(), stamp[0], stamp[1], charset, numEntries, words, postings);
+  }
+
+  /**
+   * Restores an index from the specified file. Returns {@code null} if the file is not available,
+   * cannot be read or is outdated.
+   * (Defaults to {@code Type.MALE} if specified type is not available.)
+   */
+  public static StringTableIndex load(Path file, StringTable.Type type)
+  {
+    if (file == null || !Files.isRegularFile(file)) {
+      return null;
+    }
+
+    type = getType(type);
+    try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      byte[] sig = new byte[SIGNATURE.length()];
+      dis.readFully(sig);
+      if (!SIGNATURE.equals(new String(sig, "US-ASCII")) || dis.readInt() != VERSION) {
+        return null;
+      }
+      String tlkPath = dis.readUTF();
+      long lastModified = dis.readLong();
+      long size = dis.readLong();
+      String charset = dis.readUTF();
+      int numEntries = dis.readInt();
+      int numWords = dis.readInt();
+      String[] words = new String[numWords];
+      int[][] postings = new int[numWords][];
+      for (int i = 0; i < numWords; i++) {
+        words[i] = dis.readUTF();
+        int[] list = new int[readVarInt(dis)];
+        for (int j = 0, strref = 0; j < list.length; j++) {
+          strref += readVarInt(dis);
+          list[j] = strref;
+        }
+        postings[i] = list;
+      }
+
+      StringTableIndex index =
+          new StringTableIndex(tlkPath, lastModified, size, charset, numEntries, words, postings);
+      return index.isValid(type) ? index : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private StringTableIndex(String tlkPath, long lastModified, long size, String charset, int numEntries,
+                           String[] words, int[][] postings)
+  {
+    this.tlkPath = tlkPath;
+    this.lastModified = lastModified;
+    this.size = size;
+    this.charset = charset;
+    this.numEntries = numEntries;
+    this.words = words;
+    this.postings = postings;
+  }
+
+  /**
+   * Writes the index to the specified file.
+   * @throws IOException if the file could not be written.
+   */
+  public void save(Path file) throws IOException
+  {
+    try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      dos.write(SIGNATURE.getBytes("US-ASCII"));
+      dos.writeInt(VERSION);
+      dos.writeUTF(tlkPath);
+      dos.writeLong(lastModified);
+      dos.writeLong(size);
+      dos.writeUTF(charset);
+      dos.writeInt(numEntries);
+      dos.writeInt(words.length);
+      for (int i = 0; i < words.length; i++) {
+        dos.writeUTF(words[i]);
+        int[] list = postings[i];
+        writeVarInt(dos, list.length);
+        for (int j = 0, strref = 0; j < list.length; j++) {
+          writeVarInt(dos, list[j] - strref);
+          strref = list[j];
+        }
+      }
+    }
+  }
+
+  /** Returns the number of distinct words in the index. */
+  public int getWordCount()
+  {
+    return words.length;
+  }
+
+  /**
+   * Returns the strrefs of all strings which may match the specified search term in ascending order.
+   * The returned strings contain all words or word fragments of the search term, but still have to be
+   * checked against the search term itself.
+   * @param term The search term.
+   * @param regex Whether the search term is a regular expression.
+   * @return Array of strrefs, or {@code null} if the search term doesn't contain any text which can
+   *         be looked up in the index.
+   */
+  public int[] find(String term, boolean regex)
+  {
+    List<String> tokens = getRequiredTokens(term, regex);
+    if (tokens.isEmpty()) {
+      return null;
+    }
+
+    BitSet result = null;
+    for (final String token: tokens) {
+      BitSet bits = new BitSet(numEntries);
+      for (int i = 0; i < words.length; i++) {
+        if (words[i].contains(token)) {
+          for (final int strref: postings[i]) {
+            bits.set(strref);
+          }
+        }
+      }
+      if (result == null) {
+        result = bits;
+      } else {
+        result.and(bits);
+      }
+      if (result.isEmpty()) {
+        break;
+      }
+    }
+
+    int[] retVal = new int[result.cardinality()];
+    for (int i = result.nextSetBit(0), j = 0; i >= 0; i = result.nextSetBit(i + 1)) {
+      retVal[j++] = i;
+    }
+    return retVal;
+  }
+
+  /**
+   * Returns the words or word fragments in lower case which are contained in every string
+   * matching the specified search term. For regular expressions only literal text outside of
+   * groups and character classes is considered. Patterns with alternatives don't return any tokens.
+   */
+  static List<String> getRequiredTokens(String term, boolean regex)
+  {
+    List<String> tokens = new ArrayList<>();
+    if (term == null) {
+      return tokens;
+    }
+    if (regex && (term.indexOf('|') >= 0 || term.contains("\\Q") ||
+                  (term.contains("(?") && term.indexOf('#') >= 0))) {
+      return tokens;
+    }
+
+    StringBuilder sb = new StringBuilder();
+    int depth = 0;
+    for (int i = 0, len = term.length(); i < len; i++) {
+      char ch = term.charAt(i);
+      if (regex) {
+        switch (ch) {
+          case '\\':
+            addToken(tokens, sb);
+            i = skipEscape(term, i + 1);
+            continue;
+          case '[':
+            addToken(tokens, sb);
+            i = skipCharClass(term, i + 1);
+            continue;
+          case '(':
+            addToken(tokens, sb);
+            depth++;
+            continue;
+          case ')':
+            depth = Math.max(0, depth - 1);
+            continue;
+          case '?':
+          case '*':
+          case '{':
+            // quantifier makes the preceding character optional
+            if (sb.length() > 0) {
+              sb.setLength(sb.length() - 1);
+            }
+            addToken(tokens, sb);
+            if (ch == '{') {
+              int end = term.indexOf('}', i);
+              i = (end >= 0) ? end : len;
+            }
+            continue;
+          default:
+        }
+        if (depth > 0) {
+          continue;
+        }
+      }
+      if (isWordChar(ch)) {
+        sb.append(Character.toLowerCase(ch));
+      } else {
+        addToken(tokens, sb);
+      }
+    }
+    addToken(tokens, sb);
+    return tokens;
+  }
+
+  // Returns the normalized string table type
+  private static StringTable.Type getType(StringTable.Type type)
+  {
+    if (type == null || (type == StringTable.Type.FEMALE && !StringTable.hasFemaleTable())) {
+      return StringTable.Type.MALE;
+    }
+    return type;
+  }
+
+  // Builds or restores the index of the specified string table
+  private static void updateIndex(StringTable.Type type, int curGeneration)
+  {
+    try {
+      if (get(type) != null || StringTable.isModified(type)) {
+        return;
+      }
+      Path file = getIndexFile(type);
+      StringTableIndex index = load(file, type);
+      if (index == null) {
+        index = create(type);
+        if (file != null && index.isValid(type)) {
+          try {
+            index.save(file);
+          } catch (IOException e) {
+            e.printStackTrace();
+          }
+        }
+      }
+      synchronized (INDEX) {
+        if (curGeneration == generation) {
+          INDEX.put(type, index);
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  // Returns the path of the index file for the specified string table, or null if not available
+  private static Path getIndexFile(StringTable.Type type)
+  {
+    Path homeRoot = Profile.getHomeRoot();
+    if (homeRoot != null && Files.isDirectory(homeRoot) &&
+        homeRoot.getFileSystem().equals(FileSystems.getDefault())) {
+      return homeRoot.resolve(String.format(INDEX_FILE_NAME_FMT, type.name().toLowerCase(Locale.ENGLISH)));
+    }
+    return null;
+  }
+
+  // Returns modification time and size of the specified file
+  private static long[] getStamp(Path file)
+  {
+    long[] retVal = { -1L, -1L };
+    try {
+      retVal[0] = Files.getLastModifiedTime(file).toMillis();
+      retVal[1] = Files.size(file);
+    } catch (IOException e) {
+    }
+    return retVal;
+  }
+
+  private static boolean isWordChar(char ch)
+  {
+    return Character.isLetterOrDigit(ch);
+  }
+
+  private static String toLowerCase(String text, int start, int end)
+  {
+    char[] buf = new char[end - start];
+    for (int i = 0; i < buf.length; i++) {
+      buf[i] = Character.toLowerCase(text.charAt(start + i));
+    }
+    return new String(buf);
+  }
+
+  private static void addToken(List<String> tokens, StringBuilder sb)
+  {
+    if (sb.length() > 0) {
+      tokens.add(sb.toString());
+      sb.setLength(0);
+    }
+  }
+
+  // Returns the position of the last character of the regex escape sequence starting at "pos"
+  private static int skipEscape(String term, int pos)
+  {
+    if (pos >= term.length()) {
+      return pos;
+    }
+    switch (term.charAt(pos)) {
+      case 'x':
+        if (pos + 1 < term.length() && term.charAt(pos + 1) == '{') {
+          int end = term.indexOf('}', pos);
+          return (end >= 0) ? end : term.length();
+        }
+        return Math.min(pos + 2, term.length());
+      case 'u':
+        return Math.min(pos + 4, term.length());
+      case 'c':
+        return Math.min(pos + 1, term.length());
+      case '0':
+        while (pos + 1 < term.length() && term.charAt(pos + 1) >= '0' && term.charAt(pos + 1) <= '7') {
+          pos++;
+        }
+        return pos;
+      case 'p':
+      case 'P':
+        if (pos + 1 < term.length() && term.charAt(pos + 1) == '{') {
+          int end = term.indexOf('}', pos);
+          return (end >= 0) ? end : term.length();
+        }
+        return Math.min(pos + 1, term.length());
+      case 'k':
+        if (pos + 1 < term.length() && term.charAt(pos + 1) == '<') {
+          int end = term.indexOf('>', pos);
+          return (end >= 0) ? end : term.length();
+        }
+        return pos;
+      default:
+        return pos;
+    }
+  }
+
+  // Returns the position of the closing bracket of the character class starting at "pos"
+  private static int skipCharClass(String term, int pos)
+  {
+    int depth = 1;
+    if (pos < term.length() && term.charAt(pos) == '^') {
+      pos++;
+    }
+    if (pos < term.length() && term.charAt(pos) == ']') {
+      pos++;  // literal bracket
+    }
+    for (; pos < term.length(); pos++) {
+      char ch = term.charAt(pos);
+      if (ch == '\\') {
+        pos++;
+      } else if (ch == '[') {
+        depth++;
+      } else if (ch == ']' && --depth == 0) {
+        return pos;
+      }
+    }
+    return term.length();
+  }
+
+  private static int readVarInt(DataInputStream dis) throws IOException
+  {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = dis.readUnsignedByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Invalid index data");
+  }
+
+  private static void writeVarInt(DataOutputStream dos, int value) throws IOException
+  {
+    while ((value & ~0x7f) != 0) {
+      dos.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    dos.writeByte(value);
+  }
+
+  // Returns whether the index matches the current state of the specified string table
+  private boolean isValid(StringTable.Type type)
+  {
+    Path path = StringTable.getPath(type);
+    long[] stamp = getStamp(path);
+    return lastModified != -1L && lastModified == stamp[0] && size == stamp[1] &&
+           tlkPath.equals(path.toString()) &&
+           charset.equals(StringTable.getCharset().name()) &&
+           numEntries == StringTable.getNumEntries(type) &&
+           !StringTable.isModified(type);
+  }
+
+
+//-------------------------- INNER CLASSES --------------------------
+
+  // List of strrefs containing a specific word
+  private static final class Postings
+  {
+    private int[] data = new int[2];
+    private int size;
+
+    public void add(int strref)
+    {
+      if (size == 0 || data[size - 1] != strref) {
+        if (size == data.length) {
+          data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = strref;
+      }
+    }
+
+    public int[] toArray()
+    {
+      return Arrays.copyOf(data, size);
+    }
+  }
+}
@@ -129,8 +129,13 @@ public void cut(AbstractStruct struct, int firstIndex, int lastIndex)
       e.printStackTrace();
     }
     hasValues = false;
-    for (int i = firstIndex; i <= lastIndex; i++)
-      struct.removeDatatype((AddRemovable)struct.getField(firstIndex), true);
+    struct.beginBatch();
+    try {
+      for (int i = firstIndex; i <= lastIndex; i++)
+        struct.removeDatatype((AddRemovable)struct.getField(firstIndex), true);
+    } finally {
+      struct.commitBatch();
+    }
     fireStateChanged();
   }
 
@@ -172,6 +177,7 @@ public int getContentType(AbstractStruct struct)
   public int paste(AbstractStruct targetStruct)
   {
     int lastIndex = 0;
+    targetStruct.beginBatch();
     try {
       for (int i = 0; i < contents.size(); i++) {
         AddRemovable pasteEntry = (AddRemovable)contents.get(i).clone();
@@ -186,6 +192,8 @@ public int paste(AbstractStruct targetStruct)
       }
     } catch (Exception e) {
       e.printStackTrace();
+    } finally {
+      targetStruct.commitBatch();
     }
     return lastIndex;
   }
@@ -0,0 +1,178 @@
+package org.infinity.datatype;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DatatypeFootprintTest {
+  private static final String[] FLAGS = {"No flags set", "Flag 1", "Flag 2;Tool tip", "Flag 3"};
+  private static final String[] MODES = {"Mode 0", "Mode 1", "Mode 2"};
+
+  // Size of a field record in the synthetic GAM structure
+  private static final int RECORD_SIZE = 24;
+  // Number of fields per record in the synthetic GAM structure
+  private static final int RECORD_FIELDS = 6;
+
+  // Returns the listener list of the field without allocating it
+  private static Object getListenerList(Datatype field) throws Exception {
+    Field f = Datatype.class.getDeclaredField("listeners");
+    f.setAccessible(true);
+    return f.get(field);
+  }
+
+  // Returns the shallow instance size of the class, assuming the object layout of a 64-bit JVM with
+  // compressed references (12 byte header, 4 byte references, 8 byte alignment)
+  private static int getShallowSize(Class<?> cls) {
+    int size = 12;
+    for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+      for (final Field f: c.getDeclaredFields()) {
+        if (Modifier.isStatic(f.getModifiers())) {
+          continue;
+        }
+        Class<?> type = f.getType();
+        if (type == long.class || type == double.class) {
+          size += 8;
+        } else if (type == int.class || type == float.class || !type.isPrimitive()) {
+          size += 4;
+        } else if (type == short.class || type == char.class) {
+          size += 2;
+        } else {
+          size += 1;
+        }
+      }
+    }
+    return (size + 7) & ~7;
+  }
+
+  // Creates the fields of a GAM-like structure with the specified number of records, such as
+  // journal entries or stored NPC variables. Label tables are passed as copies, as they would be
+  // when read from external files.
+  private static List<Datatype> createGamFields(int numRecords) {
+    ByteBuffer buffer = ByteBuffer.allocate(numRecords * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < buffer.limit(); i++) {
+      buffer.put(i, (byte)i);
+    }
+    List<Datatype> fields = new ArrayList<>(numRecords * RECORD_FIELDS);
+    for (int i = 0; i < numRecords; i++) {
+      int ofs = i * RECORD_SIZE;
+      fields.add(new DecNumber(buffer, ofs, 4, "Time"));
+      fields.add(new DecNumber(buffer, ofs + 4, 4, "Value"));
+      fields.add(new Flag(buffer, ofs + 8, 4, "Flags", FLAGS.clone()));
+      fields.add(new Bitmap(buffer, ofs + 12, 4, "Mode", MODES));
+      for (int j = 0; j < 2; j++) {
+        fields.add(new DecNumber(buffer, ofs + 16 + j * 4, 4, Datatype.getIndexedName("Index", j)));
+      }
+    }
+    return fields;
+  }
+
+  // Returns the number of distinct object instances returned by the accessor for all given fields
+  private static int countDistinct(List<Datatype> fields, Function<Datatype, Object> accessor) {
+    Set<Object> set = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (final Datatype field: fields) {
+      Object o = accessor.apply(field);
+      if (o != null) {
+        set.add(o);
+      }
+    }
+    return set.size();
+  }
+
+  @Test
+  public void testShallowSize() {
+    Assert.assertTrue(getShallowSize(Datatype.class) <= 32);
+    Assert.assertTrue(getShallowSize(DecNumber.class) <= 48);
+    Assert.assertTrue(getShallowSize(Bitmap.class) <= 48);
+    Assert.assertTrue(getShallowSize(Flag.class) <= 72);
+  }
+
+  @Test
+  public void testGamFootprint() {
+    List<Datatype> small = createGamFields(10);
+    List<Datatype> large = createGamFields(20000);
+    Assert.assertEquals(20000 * RECORD_FIELDS, large.size());
+
+    // bytes per field, excluding shared data
+    long total = 0L;
+    for (final Datatype field: large) {
+      total += getShallowSize(field.getClass());
+    }
+    Assert.assertTrue(total / large.size() <= 56);
+
+    // label tables and names are shared, regardless of the number of records
+    Function<Datatype, Object> flagTable = f -> (f instanceof Flag) ? ((Flag)f).table : null;
+    Function<Datatype, Object> flagToolTable = f -> (f instanceof Flag) ? ((Flag)f).toolTable : null;
+    Assert.assertEquals(1, countDistinct(large, flagTable));
+    Assert.assertEquals(1, countDistinct(large, flagToolTable));
+    Assert.assertEquals(countDistinct(small, Datatype::getName), countDistinct(large, Datatype::getName));
+    Assert.assertEquals(RECORD_FIELDS, countDistinct(large, Datatype::getName));
+  }
+
+  @Test
+  public void testLazyListenerList() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    Datatype[] fields = {new DecNumber(buffer, 0, 4, "Value"),
+                         new Flag(buffer, 0, 4, "Flags", FLAGS.clone()),
+                         new Bitmap(buffer, 0, 4, "Mode", MODES)};
+    for (final Datatype field: fields) {
+      Assert.assertNull(getListenerList(field));
+      field.getUpdateListeners();
+      field.removeUpdateListener(event -> false);
+      Assert.assertNull(getListenerList(field));
+      field.addUpdateListener(event -> false);
+      Assert.assertNotNull(getListenerList(field));
+    }
+  }
+
+  @Test
+  public void testListeners() {
+    ByteBuffer buffer = ByteBuffer.allocate(4);
+    DecNumber number = new DecNumber(buffer, 0, 4, "Value");
+    Assert.assertEquals(0, number.getUpdateListeners().length);
+    UpdateListener l = event -> false;
+    number.removeUpdateListener(l);
+    number.addUpdateListener(l);
+    Assert.assertArrayEquals(new UpdateListener[]{l}, number.getUpdateListeners());
+    number.removeUpdateListener(l);
+    Assert.assertEquals(0, number.getUpdateListeners().length);
+  }
+
+  @Test
+  public void testSharedNames() {
+    Assert.assertSame(Datatype.getIndexedName("Index", 12), Datatype.getIndexedName("Index", 12));
+    Assert.assertEquals("Index 1000", Datatype.getIndexedName("Index", 1000));
+    Assert.assertEquals("Index -1", Datatype.getIndexedName("Index", -1));
+  }
+
+  @Test
+  public void testSharedFlagDescriptions() {
+    ByteBuffer buffer = ByteBuffer.allocate(4);
+    Flag flag1 = new Flag(buffer, 0, 1, "Flags", new String[]{FLAGS[0], FLAGS[1], FLAGS[2], FLAGS[3]});
+    Flag flag2 = new Flag(buffer, 0, 1, "Flags", FLAGS.clone());
+    Assert.assertSame(flag1.table, flag2.table);
+    Assert.assertEquals("Flag 2", flag1.table[1]);
+    Assert.assertEquals("Tool tip", flag1.toolTable[1]);
+    Flag flag3 = new Flag(buffer, 0, 1, "Flags", new String[]{FLAGS[0], "Other"});
+    Assert.assertNotSame(flag1.table, flag3.table);
+  }
+
+  @Test
+  public void testClearFlagDescriptions() {
+    ByteBuffer buffer = ByteBuffer.allocate(4);
+    Flag flag1 = new Flag(buffer, 0, 1, "Flags", FLAGS.clone());
+    Flag.clearCache();
+    Flag flag2 = new Flag(buffer, 0, 1, "Flags", FLAGS.clone());
+    Assert.assertNotSame(flag1.table, flag2.table);
+    Assert.assertArrayEquals(flag1.table, flag2.table);
+  }
+}
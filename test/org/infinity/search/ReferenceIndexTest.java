@@ -0,0 +1,55 @@
+package org.infinity.search;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReferenceIndexTest {
+  @Test
+  public void testTextTerms() {
+    Set<String> terms = new HashSet<String>();
+    ReferenceIndex.addTextTerms(terms, "StartMusic(12,PLAY)\nGA_ar0602 007 x12y");
+    Assert.assertTrue(terms.containsAll(Arrays.asList("W:STARTMUSIC", "W:12", "W:PLAY", "W:GA_AR0602",
+                                                      "S:12", "S:602", "S:7", "W:X12Y")));
+    Assert.assertFalse(terms.contains("W:AR0602"));
+  }
+
+  @Test
+  public void testWordMatch() {
+    ReferenceIndex.Query query = new ReferenceIndex.Query().addWordMatch("ar0602", "AP_", "GA_");
+    Assert.assertEquals(Arrays.asList("W:AR0602", "W:AP_AR0602", "W:GA_AR0602"),
+                        Arrays.asList(query.getTerms().toArray()));
+    query = new ReferenceIndex.Query().addWordMatch("Imoen 2", "AP_");
+    Assert.assertEquals(Arrays.asList("W:2"), Arrays.asList(query.getTerms().toArray()));
+    Assert.assertFalse(query.isUnrestricted());
+  }
+
+  @Test
+  public void testUnrestrictedQuery() {
+    Assert.assertTrue(new ReferenceIndex.Query().addWordMatch("a.b").isUnrestricted());
+    Assert.assertTrue(new ReferenceIndex.Query().addWordMatch("#!").isUnrestricted());
+    Assert.assertFalse(new ReferenceIndex.Query().addWord("#!").isUnrestricted());
+  }
+
+  @Test
+  public void testTermsOfMatchingText() {
+    String[] texts = { "GA_SPWI101 ~#IMOEN~", "Imoen 2 is here", "x #imoen#2 y", "SetMusic(0,17)" };
+    String[] names = { "SPWI101", "#IMOEN", "Imoen 2", "#imoen#2" };
+    for (final String name: names) {
+      Pattern pattern = Pattern.compile("\\b(AP_|GA_)?" + name + "\\b", Pattern.CASE_INSENSITIVE);
+      ReferenceIndex.Query query = new ReferenceIndex.Query().addWordMatch(name, "AP_", "GA_");
+      for (final String text: texts) {
+        if (pattern.matcher(text).find()) {
+          Set<String> terms = new HashSet<String>();
+          ReferenceIndex.addTextTerms(terms, text);
+          terms.retainAll(query.getTerms());
+          Assert.assertFalse(name + " / " + text, terms.isEmpty());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package org.infinity.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntegerHashMapTest {
+  @Test
+  public void testPutAndGet() {
+    IntegerHashMap<String> map = new IntegerHashMap<String>();
+    Assert.assertNull(map.put(1, "A"));
+    Assert.assertNull(map.put(-5, "B"));
+    Assert.assertEquals("A", map.put(1, "C"));
+    Assert.assertEquals(2, map.size());
+    Assert.assertEquals("C", map.get(1));
+    Assert.assertEquals("B", map.get(Integer.valueOf(-5)));
+    Assert.assertNull(map.get(2));
+    Assert.assertNull(map.get("1"));
+  }
+
+  @Test
+  public void testNullValue() {
+    IntegerHashMap<String> map = new IntegerHashMap<String>();
+    map.put(7, null);
+    Assert.assertTrue(map.containsKey(7));
+    Assert.assertNull(map.get(7));
+    Assert.assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testRemove() {
+    IntegerHashMap<String> map = new IntegerHashMap<String>();
+    for (int i = 0; i < 100; i++) {
+      map.put(i * 16, Integer.toString(i));
+    }
+    Assert.assertEquals("50", map.remove(800));
+    Assert.assertNull(map.remove(800));
+    Assert.assertFalse(map.containsKey(800));
+    Assert.assertEquals(99, map.size());
+    // entries behind removed slots must remain reachable
+    for (int i = 0; i < 100; i++) {
+      if (i != 50) {
+        Assert.assertEquals(Integer.toString(i), map.get(i * 16));
+      }
+    }
+  }
+
+  @Test
+  public void testAgainstHashMap() {
+    IntegerHashMap<Integer> map = new IntegerHashMap<Integer>();
+    HashMap<Integer, Integer> ref = new HashMap<Integer, Integer>();
+    Random rnd = new Random(1234);
+    for (int i = 0; i < 20000; i++) {
+      int key = rnd.nextInt(2000) - 1000;
+      if (rnd.nextInt(3) == 0) {
+        Assert.assertEquals(ref.remove(key), map.remove(key));
+      } else {
+        Assert.assertEquals(ref.put(key, i), map.put(key, Integer.valueOf(i)));
+      }
+    }
+    Assert.assertEquals(ref, map);
+    Assert.assertEquals(ref.size(), map.keys().length);
+  }
+
+  @Test
+  public void testIteratorRemove() {
+    IntegerHashMap<String> map = new IntegerHashMap<String>();
+    for (int i = 0; i < 10; i++) {
+      map.put(i, Integer.toString(i));
+    }
+    for (Iterator<Map.Entry<Integer, String>> iter = map.entrySet().iterator(); iter.hasNext();) {
+      if ((iter.next().getKey() & 1) != 0) {
+        iter.remove();
+      }
+    }
+    Assert.assertEquals(5, map.size());
+    Assert.assertTrue(map.containsKey(4));
+    Assert.assertFalse(map.containsKey(5));
+  }
+
+  @Test
+  public void testClear() {
+    IntegerHashMap<String> map = new IntegerHashMap<String>(4);
+    map.put(1, "A");
+    map.clear();
+    Assert.assertTrue(map.isEmpty());
+    Assert.assertNull(map.get(1));
+  }
+
+  @Test
+  public void testLongKeysInAscendingOrder() {
+    LongIntegerHashMap<String> map = new LongIntegerHashMap<String>();
+    map.put(0xffffffffL, "C");
+    map.put(3L, "B");
+    map.put(-2L, "A");
+    Assert.assertArrayEquals(new long[]{-2L, 3L, 0xffffffffL}, map.keys());
+    Assert.assertEquals("{-2=A, 3=B, 4294967295=C}", map.toString());
+    Assert.assertEquals("B", map.remove(3L));
+    Assert.assertArrayEquals(new long[]{-2L, 0xffffffffL}, map.keys());
+  }
+
+  @Test(expected=UnsupportedOperationException.class)
+  public void testLongReadOnly() {
+    LongIntegerHashMap<String> map = new LongIntegerHashMap<String>();
+    map.put(1L, "A");
+    map.setReadOnly();
+    Assert.assertEquals("A", map.get(1L));
+    map.put(2L, "B");
+  }
+
+  @Test
+  public void testIntegerIntMap() {
+    IntegerIntHashMap map = new IntegerIntHashMap(2);
+    for (int i = 0; i < 1000; i++) {
+      map.put(i * 31, i & 0xff);
+    }
+    Assert.assertEquals(1000, map.size());
+    Assert.assertEquals(0xff, map.get(255 * 31, -1));
+    Assert.assertEquals(-1, map.get(1, -1));
+    map.put(0, 42);
+    Assert.assertEquals(42, map.get(0, -1));
+    map.clear();
+    Assert.assertFalse(map.containsKey(0));
+  }
+}
@@ -0,0 +1,159 @@
+package org.infinity.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Compares memory usage and lookup time of the primitive key maps with the boxed maps they replace.
+ * Run with "ant benchmark". Results depend on the JVM and are not checked automatically.
+ */
+public class PrimitiveMapBenchmark {
+  private static final int NUM_KEYS = 200000;
+  private static final int NUM_PASSES = 20;
+
+  public static void main(String[] args) {
+    Random rnd = new Random(42L);
+    int[] intKeys = new int[NUM_KEYS];
+    long[] longKeys = new long[NUM_KEYS];
+    for (int i = 0; i < NUM_KEYS; i++) {
+      intKeys[i] = rnd.nextInt();
+      longKeys[i] = rnd.nextLong() & 0xffffffffL;
+    }
+
+    System.out.println(String.format("%d random keys, %d lookup passes, Java %s",
+                                     NUM_KEYS, NUM_PASSES, System.getProperty("java.version")));
+
+    // int -> byte (converter color caches)
+    run("HashMap<Integer, Byte>", () -> {
+      HashMap<Integer, Byte> map = new HashMap<>();
+      for (final int key: intKeys) {
+        map.put(key, (byte)key);
+      }
+      return map;
+    }, map -> {
+      long sum = 0L;
+      for (final int key: intKeys) {
+        sum += map.get(key);
+      }
+      return sum;
+    });
+    run("IntegerIntHashMap", () -> {
+      IntegerIntHashMap map = new IntegerIntHashMap();
+      for (final int key: intKeys) {
+        map.put(key, (byte)key);
+      }
+      return map;
+    }, map -> {
+      long sum = 0L;
+      for (final int key: intKeys) {
+        sum += map.get(key, 0);
+      }
+      return sum;
+    });
+
+    // int -> V
+    run("HashMap<Integer, String>", () -> {
+      HashMap<Integer, String> map = new HashMap<>();
+      for (final int key: intKeys) {
+        map.put(key, "");
+      }
+      return map;
+    }, map -> {
+      long sum = 0L;
+      for (final int key: intKeys) {
+        sum += map.get(key).length() + 1;
+      }
+      return sum;
+    });
+    run("IntegerHashMap<String>", () -> {
+      IntegerHashMap<String> map = new IntegerHashMap<>();
+      for (final int key: intKeys) {
+        map.put(key, "");
+      }
+      return map;
+    }, map -> {
+      long sum = 0L;
+      for (final int key: intKeys) {
+        sum += map.get(key).length() + 1;
+      }
+      return sum;
+    });
+
+    // long -> V (IDS and HashBitmap tables)
+    run("TreeMap<Long, String>", () -> {
+      TreeMap<Long, String> map = new TreeMap<>();
+      for (final long key: longKeys) {
+        map.put(key, "");
+      }
+      return map;
+    }, map -> {
+      long sum = 0L;
+      for (final long key: longKeys) {
+        sum += map.get(key).length() + 1;
+      }
+      return sum;
+    });
+    run("LongIntegerHashMap<String>", () -> {
+      LongIntegerHashMap<String> map = new LongIntegerHashMap<>();
+      for (final long key: longKeys) {
+        map.put(key, "");
+      }
+      return map;
+    }, map -> {
+      long sum = 0L;
+      for (final long key: longKeys) {
+        sum += map.get(key).length() + 1;
+      }
+      return sum;
+    });
+  }
+
+  // Measures retained heap of the map created by the factory and the time of all lookup passes
+  private static <M> void run(String name, Supplier<M> factory, LookupFunction<M> lookup) {
+    long before = getUsedMemory();
+    M map = factory.get();
+    long after = getUsedMemory();
+
+    // warm-up
+    long check = 0L;
+    for (int i = 0; i < NUM_PASSES; i++) {
+      check += lookup.apply(map);
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < NUM_PASSES; i++) {
+      check += lookup.apply(map);
+    }
+    long elapsed = (System.nanoTime() - start) / 1000000L;
+
+    System.out.println(String.format("  %-28s %6.1f MB  %6d ms  (%d entries, checksum %d)",
+                                     name, (after - before) / (1024.0 * 1024.0), elapsed,
+                                     getSize(map), check));
+  }
+
+  private static int getSize(Object map) {
+    if (map instanceof Map<?, ?>) {
+      return ((Map<?, ?>)map).size();
+    } else if (map instanceof IntegerIntHashMap) {
+      return ((IntegerIntHashMap)map).size();
+    }
+    return -1;
+  }
+
+  private static long getUsedMemory() {
+    Runtime rt = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+    }
+    return used;
+  }
+
+  private interface LookupFunction<M> {
+    long apply(M map);
+  }
+}
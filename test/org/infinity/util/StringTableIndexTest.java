@@ -0,0 +1,50 @@
+package org.infinity.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StringTableIndexTest {
+  @Test
+  public void testPlainTerm() {
+    Assert.assertEquals(Arrays.asList("hello", "world"), StringTableIndex.getRequiredTokens("Hello, World!", false));
+    Assert.assertEquals(Arrays.asList("a", "b"), StringTableIndex.getRequiredTokens("a(b)?", false));
+    Assert.assertEquals(Collections.emptyList(), StringTableIndex.getRequiredTokens("...", false));
+  }
+
+  @Test
+  public void testRegexLiterals() {
+    Assert.assertEquals(Arrays.asList("hello", "world"), StringTableIndex.getRequiredTokens("\\bhello\\s+world\\b", true));
+    Assert.assertEquals(Arrays.asList("colo", "r"), StringTableIndex.getRequiredTokens("colou?r", true));
+    Assert.assertEquals(Arrays.asList("gold"), StringTableIndex.getRequiredTokens("gold[0-9]{2,3} (pieces)?", true));
+    Assert.assertEquals(Arrays.asList("name"), StringTableIndex.getRequiredTokens("\\x41\\u0042name\\p{L}", true));
+  }
+
+  @Test
+  public void testRegexWithoutTokens() {
+    Assert.assertTrue(StringTableIndex.getRequiredTokens("sword|shield", true).isEmpty());
+    Assert.assertTrue(StringTableIndex.getRequiredTokens("\\Qa.b\\E", true).isEmpty());
+    Assert.assertTrue(StringTableIndex.getRequiredTokens("(sword)", true).isEmpty());
+  }
+
+  @Test
+  public void testTokensAreContainedInMatches() {
+    String[] texts = { "The colour of gold", "gold12 pieces", "Hello\nworld", "swords" };
+    String[] terms = { "colou?r", "gold[0-9]{2,3} (pieces)?", "hello.world", "o", "sword.?" };
+    for (final String term: terms) {
+      Pattern pattern = Pattern.compile(".*" + term + ".*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+      List<String> tokens = StringTableIndex.getRequiredTokens(term, true);
+      for (final String text: texts) {
+        if (pattern.matcher(text).matches()) {
+          for (final String token: tokens) {
+            Assert.assertTrue(term + " / " + text, text.toLowerCase().contains(token));
+          }
+        }
+      }
+    }
+  }
+}